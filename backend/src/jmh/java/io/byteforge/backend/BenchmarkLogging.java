@@ -0,0 +1,16 @@
+package io.byteforge.backend;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.slf4j.LoggerFactory;
+
+public final class BenchmarkLogging {
+
+    private BenchmarkLogging() {
+    }
+
+    // The hot paths log at INFO on every message; without Spring Boot's config that would go to the console at DEBUG
+    public static void quiet() {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+}
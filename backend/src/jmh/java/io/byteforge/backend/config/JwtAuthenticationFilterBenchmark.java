@@ -0,0 +1,90 @@
+package io.byteforge.backend.config;
+
+import io.byteforge.backend.service.tokens.CookieService;
+import io.byteforge.backend.service.tokens.JwtService;
+import io.byteforge.backend.service.tokens.TokenRevocationService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private JwtService jwtService;
+    private JwtAuthenticationFilter filter;
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "accessTokenExpiration", TimeUnit.MINUTES.toMillis(15));
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpiration", TimeUnit.DAYS.toMillis(7));
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaxSize", 10_000L);
+        jwtService.init();
+
+        TokenRevocationService tokenRevocationService = new TokenRevocationService(true, TimeUnit.MINUTES.toMillis(15));
+
+        filter = new JwtAuthenticationFilter(jwtService, new CookieService(jwtService, null), tokenRevocationService);
+        accessToken = jwtService.generateAccessToken(42L, "bench");
+    }
+
+    @Benchmark
+    public void filterRequest(Blackhole blackhole) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/project");
+        request.setCookies(new Cookie("ACCESS_TOKEN", accessToken));
+
+        FilterChain chain = (req, res) -> blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public Object parseOnce() {
+        return jwtService.parseClaims(accessToken);
+    }
+
+    @Benchmark
+    public Object verifyCached() {
+        return jwtService.verify(accessToken);
+    }
+
+    @Benchmark
+    public Object rebuildKeyAndParseTwice() {
+        Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(accessToken);
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(accessToken)
+                .getBody()
+                .getSubject();
+    }
+}
@@ -0,0 +1,151 @@
+package io.byteforge.backend.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.byteforge.backend.BenchmarkLogging;
+import io.byteforge.backend.model.custom.FileType;
+import io.byteforge.backend.repository.ProjectFileRepository;
+import io.byteforge.backend.repository.ProjectRepository;
+import io.byteforge.backend.service.FileService;
+import io.byteforge.backend.service.ProjectAccessService;
+import io.byteforge.backend.service.ProjectService;
+import io.byteforge.backend.service.SandboxService;
+import io.byteforge.backend.service.concurrency.ConnectionBudget;
+import io.byteforge.backend.service.diagnostics.ExecutionTraceRecorder;
+import io.byteforge.backend.service.index.ProjectPathIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebSocketHandlerBenchmark {
+
+    private static final long PROJECT_ID = 1L;
+    private static final long FILE_ID = 100L;
+
+    @Param({"1", "10", "50", "200"})
+    private int roomSize;
+
+    @Param({"1024"})
+    private int contentSize;
+
+    private ProjectWebSocketHandler handler;
+    private final List<FakeWebSocketSession> sessions = new ArrayList<>();
+    private FakeWebSocketSession sender;
+
+    private TextMessage cursorMove;
+    private TextMessage onlineUsers;
+    private TextMessage fileSave;
+    private Map<String, Object> broadcast;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkLogging.quiet();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        // Only the collaborators reached by the benchmarked paths are backed by fakes; nothing touches a database
+        ProjectRepository projectRepository = mock(ProjectRepository.class);
+        when(projectRepository.existsById(PROJECT_ID)).thenReturn(true);
+        ProjectFileRepository projectFileRepository = mock(ProjectFileRepository.class);
+        when(projectFileRepository.findPathEntriesByProjectId(PROJECT_ID))
+                .thenReturn(List.<Object[]>of(new Object[]{FILE_ID, "src/main.cpp", FileType.FILE}));
+        ProjectPathIndex pathIndex = new ProjectPathIndex(projectFileRepository, projectRepository);
+
+        ProjectAccessService accessService = mock(ProjectAccessService.class);
+        when(accessService.can(anyLong(), any(), any())).thenReturn(true);
+
+        ConnectionBudget connectionBudget = mock(ConnectionBudget.class);
+        when(connectionBudget.databasePermits()).thenReturn(8);
+
+        ExecutionTraceRecorder executionTraces = new ExecutionTraceRecorder(64);
+        handler = new ProjectWebSocketHandler(
+                new SandboxService(objectMapper, meterRegistry, executionTraces),
+                executionTraces,
+                mock(ProjectService.class),
+                mock(FileService.class),
+                pathIndex,
+                accessService,
+                objectMapper,
+                meterRegistry,
+                connectionBudget);
+        ReflectionTestUtils.setField(handler, "databaseQueueCapacity", 256);
+        handler.init();
+
+        for (int i = 0; i < roomSize; i++) {
+            FakeWebSocketSession session = new FakeWebSocketSession("session-" + i, PROJECT_ID, i + 1);
+            sessions.add(session);
+            handler.afterConnectionEstablished(session);
+        }
+        sender = sessions.get(0);
+
+        String content = "x".repeat(contentSize);
+        cursorMove = new TextMessage("{\"type\":\"CURSOR_MOVE\",\"fileId\":" + FILE_ID + ",\"line\":10,\"column\":4}");
+        onlineUsers = new TextMessage("{\"type\":\"GET_ONLINE_USERS\"}");
+        fileSave = new TextMessage(objectMapper.writeValueAsString(
+                Map.of("type", "FILE_SAVE", "fileId", FILE_ID, "content", content)));
+        broadcast = Map.of(
+                "type", "FILE_SAVED",
+                "fileId", String.valueOf(FILE_ID),
+                "content", content,
+                "userId", sender.getId(),
+                "timestamp", 0L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        for (FakeWebSocketSession session : sessions) {
+            handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+        }
+        handler.shutdown();
+    }
+
+    @Benchmark
+    public void parseAndDispatchCursorMove() throws Exception {
+        handler.handleTextMessage(sender, cursorMove);
+    }
+
+    @Benchmark
+    public void parseAndDispatchOnlineUsers() throws Exception {
+        handler.handleTextMessage(sender, onlineUsers);
+    }
+
+    @Benchmark
+    public void parseAndDispatchFileSave() throws Exception {
+        handler.handleTextMessage(sender, fileSave);
+    }
+
+    @Benchmark
+    public void broadcastToProject() {
+        ReflectionTestUtils.invokeMethod(handler, "broadcastToProject", String.valueOf(PROJECT_ID), broadcast);
+    }
+}
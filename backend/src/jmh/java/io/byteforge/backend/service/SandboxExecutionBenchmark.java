@@ -0,0 +1,104 @@
+package io.byteforge.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.byteforge.backend.BenchmarkLogging;
+import io.byteforge.backend.controllers.FakeWebSocketSession;
+import io.byteforge.backend.service.diagnostics.ExecutionTraceRecorder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// End to end through SandboxService: connect, send the program, parse the streamed output, forward it to the session
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SandboxExecutionBenchmark {
+
+    private static final String SESSION_ID = "bench-session";
+    private static final String CODE = "#include <iostream>\nint main() { std::cout << \"hi\"; }";
+
+    @Param({"0", "65536", "1048576"})
+    private long outputBytes;
+
+    @Param({"128"})
+    private int messageSize;
+
+    private FakeSandboxServer sandbox;
+    private SandboxService sandboxService;
+    private final ExecutionTraceRecorder traces = new ExecutionTraceRecorder(1024);
+    private ResultSession session;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkLogging.quiet();
+
+        sandbox = new FakeSandboxServer(outputBytes > 0
+                ? FakeSandboxServer.Scenario.hugeOutput(outputBytes, messageSize)
+                : FakeSandboxServer.Scenario.success("hello"));
+
+        sandboxService = new SandboxService(new ObjectMapper(), new SimpleMeterRegistry(), traces);
+        ReflectionTestUtils.setField(sandboxService, "socketHost", sandbox.host());
+        ReflectionTestUtils.setField(sandboxService, "socketPort", sandbox.port());
+        ReflectionTestUtils.setField(sandboxService, "timeoutSeconds", 10);
+        ReflectionTestUtils.setField(sandboxService, "memoryLimitMb", 256);
+        ReflectionTestUtils.setField(sandboxService, "maxConcurrentExecutions", 16);
+        ReflectionTestUtils.setField(sandboxService, "executionQueueCapacity", 64);
+        sandboxService.init();
+
+        session = new ResultSession();
+        sandboxService.registerSession(SESSION_ID, session);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        sandboxService.cleanup();
+        sandbox.close();
+    }
+
+    @Benchmark
+    public long execute() throws Exception {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        session.result = result;
+        long before = session.messages();
+
+        sandboxService.executeCodeInteractive(SESSION_ID, CODE, "bench", traces.start(SESSION_ID, 1L));
+        result.get(30, TimeUnit.SECONDS);
+        return session.messages() - before;
+    }
+
+    private static final class ResultSession extends FakeWebSocketSession {
+
+        private volatile CompletableFuture<Void> result;
+
+        private ResultSession() {
+            super(SESSION_ID, 1L, 1L);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            super.sendMessage(message);
+            if (message instanceof TextMessage text && text.getPayload().contains("\"type\":\"EXECUTION_RESULT\"")) {
+                result.complete(null);
+            }
+        }
+    }
+}
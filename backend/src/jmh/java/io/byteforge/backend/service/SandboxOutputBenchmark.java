@@ -0,0 +1,131 @@
+package io.byteforge.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.byteforge.backend.BenchmarkLogging;
+import io.byteforge.backend.controllers.FakeWebSocketSession;
+import io.byteforge.backend.service.diagnostics.ExecutionTraceRecorder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SandboxOutputBenchmark {
+
+    private static final String SESSION_ID = "bench-session";
+
+    // Same chunk size as the reader loop in SandboxService
+    private static final int CHUNK_SIZE = 8192;
+
+    @Param({"65536", "1048576"})
+    private int outputSize;
+
+    @Param({"lines", "json"})
+    private String shape;
+
+    private SandboxService sandboxService;
+    private FakeWebSocketSession session;
+    private MethodHandle processOutputChunk;
+    private MethodHandle findJsonEnd;
+
+    private String output;
+    private String jsonDocument;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Delivered {
+        public long messages;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            messages = 0;
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkLogging.quiet();
+
+        sandboxService = new SandboxService(new ObjectMapper(), new SimpleMeterRegistry(), new ExecutionTraceRecorder(64));
+        session = new FakeWebSocketSession(SESSION_ID, 1L, 1L);
+        sandboxService.registerSession(SESSION_ID, session);
+
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(SandboxService.class, MethodHandles.lookup());
+        processOutputChunk = lookup.findVirtual(SandboxService.class, "processOutputChunk",
+                MethodType.methodType(void.class, String.class, StringBuilder.class));
+        findJsonEnd = lookup.findVirtual(SandboxService.class, "findJsonEnd",
+                MethodType.methodType(int.class, String.class, int.class));
+
+        output = "json".equals(shape) ? jsonOutput(outputSize) : lineOutput(outputSize);
+        jsonDocument = jsonDocument(outputSize);
+    }
+
+    @Benchmark
+    public int processOutput(Delivered delivered) throws Throwable {
+        long messagesBefore = session.messages();
+        long bytesBefore = session.bytes();
+
+        StringBuilder outputBuffer = new StringBuilder();
+        for (int offset = 0; offset < output.length(); offset += CHUNK_SIZE) {
+            outputBuffer.append(output, offset, Math.min(output.length(), offset + CHUNK_SIZE));
+            processOutputChunk.invokeExact(sandboxService, SESSION_ID, outputBuffer);
+        }
+
+        delivered.messages += session.messages() - messagesBefore;
+        delivered.bytes += session.bytes() - bytesBefore;
+        return outputBuffer.length();
+    }
+
+    @Benchmark
+    public int findJsonEnd() throws Throwable {
+        return (int) findJsonEnd.invokeExact(sandboxService, jsonDocument, 0);
+    }
+
+    private static String lineOutput(int size) {
+        StringBuilder builder = new StringBuilder(size + 64);
+        for (int i = 0; builder.length() < size; i++) {
+            builder.append("iteration ").append(i).append(": value=").append(i * 31 % 977).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static String jsonOutput(int size) {
+        StringBuilder builder = new StringBuilder(size + 128);
+        for (int i = 0; builder.length() < size; i++) {
+            builder.append("{\"type\":\"OUTPUT\",\"message\":\"line ").append(i)
+                    .append(" with \\\"quoted\\\" {braces}\"}\n");
+        }
+        return builder.toString();
+    }
+
+    // One large message, the worst case for the brace scan
+    private static String jsonDocument(int size) {
+        StringBuilder builder = new StringBuilder(size + 64).append("{\"type\":\"OUTPUT\",\"message\":\"");
+        while (builder.length() < size) {
+            builder.append("{nested \\\"text\\\"} ");
+        }
+        return builder.append("\"}").toString();
+    }
+}
@@ -0,0 +1,197 @@
+package io.byteforge.backend.service.export;
+
+import io.byteforge.backend.BenchmarkLogging;
+import io.byteforge.backend.model.custom.ExportFormat;
+import io.byteforge.backend.model.custom.FileType;
+import io.byteforge.backend.model.dto.FileDto;
+import io.byteforge.backend.model.dto.ProjectDto;
+import io.byteforge.backend.model.entity.Project;
+import io.byteforge.backend.repository.ProjectFileRepository;
+import io.byteforge.backend.repository.ProjectPathTombstoneRepository;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZipExportBenchmark {
+
+    @Param({"2000"})
+    private int files;
+
+    @Param({"4096", "65536"})
+    private int fileSize;
+
+    @Param({"4"})
+    private int threads;
+
+    private final List<String> names = new ArrayList<>();
+    private final List<String> contents = new ArrayList<>();
+    private ExecutorService executor;
+
+    private ProjectArchiveWriter archiveWriter;
+    private Project project;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+        public long inputBytes;
+        public long archiveBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            inputBytes = 0;
+            archiveBytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] words = {"public", "class", "return", "int", "String", "final", "static", "void", "new", "if", "for"};
+
+        for (int i = 0; i < files; i++) {
+            StringBuilder content = new StringBuilder(fileSize);
+            while (content.length() < fileSize) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+                if (random.nextInt(8) == 0) {
+                    content.append("value").append(random.nextInt(10_000)).append(";\n");
+                }
+            }
+            names.add("src/pkg" + (i % 20) + "/File" + i + ".java");
+            contents.add(content.toString());
+        }
+
+        executor = Executors.newFixedThreadPool(threads);
+
+        BenchmarkLogging.quiet();
+        LocalDateTime updatedAt = LocalDateTime.now();
+        List<FileDto.ExportEntry> entries = new ArrayList<>();
+        for (int i = 0; i < files; i++) {
+            entries.add(new Entry(names.get(i), FileType.FILE, contents.get(i), updatedAt));
+        }
+
+        // The repository stream is the only collaborator; everything downstream of it is the production writer
+        ProjectFileRepository projectFileRepository = mock(ProjectFileRepository.class);
+        when(projectFileRepository.streamExportEntries(anyLong())).thenAnswer(invocation -> entries.stream());
+
+        archiveWriter = new ProjectArchiveWriter(projectFileRepository, mock(ProjectPathTombstoneRepository.class));
+        ReflectionTestUtils.setField(archiveWriter, "compressionThreads", threads);
+        ReflectionTestUtils.setField(archiveWriter, "compressionLevel", 6);
+        ReflectionTestUtils.setField(archiveWriter, "minCompressSize", 256);
+        archiveWriter.init();
+
+        project = new Project();
+        project.setId(1L);
+        project.setTitle("benchmark");
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        archiveWriter.shutdown();
+    }
+
+    @Benchmark
+    public long sequentialZipOutputStream(Bytes bytes) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        LocalDateTime now = LocalDateTime.now();
+
+        try (ZipOutputStream zos = new ZipOutputStream(out)) {
+            for (int i = 0; i < files; i++) {
+                byte[] content = contents.get(i).getBytes(StandardCharsets.UTF_8);
+                ZipEntry entry = new ZipEntry(names.get(i));
+                entry.setTimeLocal(now);
+                zos.putNextEntry(entry);
+                zos.write(content);
+                zos.closeEntry();
+                bytes.inputBytes += content.length;
+            }
+        }
+
+        bytes.archiveBytes += out.count;
+        return out.count;
+    }
+
+    @Benchmark
+    public long parallelZipWriter(Bytes bytes) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        LocalDateTime now = LocalDateTime.now();
+
+        ParallelZipWriter zip = new ParallelZipWriter(out, executor, 6, 256, threads * 4);
+        for (int i = 0; i < files; i++) {
+            zip.addFile(names.get(i), now, contents.get(i));
+        }
+        zip.finish();
+
+        bytes.inputBytes += zip.uncompressedBytes();
+        bytes.archiveBytes += out.count;
+        return out.count;
+    }
+
+    @Benchmark
+    public long projectArchiveWriter(Bytes bytes) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        ProjectDto.ExportRequest request = ProjectDto.ExportRequest.builder()
+                .format(ExportFormat.ZIP.name())
+                .includeGit(true)
+                .build();
+
+        ProjectArchiveWriter.ArchiveStats stats = archiveWriter.write(project, request, out);
+
+        bytes.inputBytes += stats.bytes();
+        bytes.archiveBytes += stats.archiveBytes();
+        return out.count;
+    }
+
+    private record Entry(String getPath, FileType getType, String getContent, LocalDateTime getUpdatedAt)
+            implements FileDto.ExportEntry {
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
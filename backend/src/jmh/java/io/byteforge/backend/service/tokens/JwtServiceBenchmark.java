@@ -0,0 +1,77 @@
+package io.byteforge.backend.service.tokens;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret";
+
+    // Token populations below and above the verified-token cache size
+    @Param({"1", "100000"})
+    private int distinctTokens;
+
+    @Param({"10000"})
+    private long cacheSize;
+
+    private JwtService jwtService;
+    private String[] tokens;
+    private String tampered;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "accessTokenExpiration", TimeUnit.MINUTES.toMillis(15));
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpiration", TimeUnit.DAYS.toMillis(7));
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaxSize", cacheSize);
+        jwtService.init();
+
+        tokens = new String[distinctTokens];
+        for (int i = 0; i < distinctTokens; i++) {
+            tokens[i] = jwtService.generateAccessToken((long) i + 1, "user" + i);
+        }
+
+        // The last base64url character of an HS512 signature carries padding bits, so flip one before it
+        String token = tokens[0];
+        int index = token.length() - 8;
+        char flipped = token.charAt(index) == 'A' ? 'B' : 'A';
+        tampered = token.substring(0, index) + flipped + token.substring(index + 1);
+    }
+
+    @Benchmark
+    public Object verify() {
+        String token = tokens[next];
+        next = next + 1 == tokens.length ? 0 : next + 1;
+        return jwtService.verify(token);
+    }
+
+    @Benchmark
+    public Object rejectTamperedSignature() {
+        return jwtService.verify(tampered);
+    }
+
+    @Benchmark
+    public Object generateAccessToken() {
+        return jwtService.generateAccessToken(42L, "bench");
+    }
+}
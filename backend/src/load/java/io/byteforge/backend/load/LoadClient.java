@@ -0,0 +1,261 @@
+package io.byteforge.backend.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One simulated collaborator: a WebSocket connection that sends a weighted mix of messages and times the replies
+@Slf4j
+class LoadClient implements WebSocket.Listener {
+
+    static final Set<String> SUPPORTED_TYPES = Set.of("AUTH", "FILE_SAVE", "CURSOR_MOVE", "EXECUTE_CODE", "GET_ONLINE_USERS");
+
+    private static final String CONTENT_MARKER = "// load ";
+    private static final int MAX_PENDING_SENDS = 64;
+    private static final long EXECUTION_TIMEOUT_NANOS = Duration.ofSeconds(30).toNanos();
+    private static final String PROGRAM = """
+            #include <iostream>
+            int main() {
+                for (int i = 0; i < 20; i++) std::cout << "line " << i << std::endl;
+                return 0;
+            }
+            """;
+
+    private final int index;
+    private final long fileId;
+    private final LoadOptions options;
+    private final LoadMetrics metrics;
+    private final ObjectMapper objectMapper;
+    private final String[] mix;
+    private final String filler;
+
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+    private final Queue<Long> pendingAuth = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> pendingSaves = new ConcurrentLinkedQueue<>();
+    private final AtomicLong executionStartedAt = new AtomicLong();
+    private final AtomicInteger pendingSends = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final StringBuilder partial = new StringBuilder();
+
+    private volatile WebSocket webSocket;
+    private CompletableFuture<WebSocket> sendChain;
+
+    LoadClient(int index, long fileId, LoadOptions options, LoadMetrics metrics, ObjectMapper objectMapper) {
+        this.index = index;
+        this.fileId = fileId;
+        this.options = options;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
+        this.mix = options.mix().entrySet().stream()
+                .flatMap(entry -> Collections.nCopies(entry.getValue(), entry.getKey()).stream())
+                .toArray(String[]::new);
+        this.filler = "x".repeat(Math.max(0, options.contentSize()));
+    }
+
+    CompletableFuture<Void> connect(HttpClient httpClient, URI uri, String accessToken) {
+        httpClient.newWebSocketBuilder()
+                .header("Cookie", "ACCESS_TOKEN=" + accessToken)
+                .connectTimeout(Duration.ofSeconds(10))
+                .buildAsync(uri, this)
+                .whenComplete((ws, e) -> {
+                    if (e != null) {
+                        metrics.error("connect");
+                        ready.completeExceptionally(e);
+                    }
+                });
+        return ready;
+    }
+
+    // Called by the driver at the configured per-client rate
+    void tick() {
+        if (webSocket == null || webSocket.isOutputClosed()) {
+            return;
+        }
+
+        try {
+            String type = mix[ThreadLocalRandom.current().nextInt(mix.length)];
+            Map<String, Object> message = message(type);
+            if (message != null) {
+                send(type, objectMapper.writeValueAsString(message));
+            }
+        } catch (Exception e) {
+            metrics.error("tick");
+            log.debug("Load client {} tick failed: {}", index, e.getMessage());
+        }
+    }
+
+    void close() {
+        WebSocket ws = webSocket;
+        if (ws != null && !ws.isOutputClosed()) {
+            ws.sendClose(WebSocket.NORMAL_CLOSURE, "load test finished");
+        }
+    }
+
+    private Map<String, Object> message(String type) {
+        long now = System.nanoTime();
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", type);
+
+        switch (type) {
+            case "AUTH" -> pendingAuth.add(now);
+            case "CURSOR_MOVE" -> {
+                message.put("fileId", fileId);
+                message.put("line", ThreadLocalRandom.current().nextInt(1, 200));
+                message.put("column", ThreadLocalRandom.current().nextInt(1, 80));
+            }
+            case "FILE_SAVE" -> {
+                message.put("fileId", fileId);
+                message.put("content", CONTENT_MARKER + index + " " + sequence.incrementAndGet() + " " + now + "\n" + filler);
+                pendingSaves.add(now);
+            }
+            case "EXECUTE_CODE" -> {
+                // SandboxService keeps one sandbox socket per WebSocket session, so runs are never overlapped
+                long startedAt = executionStartedAt.get();
+                if (startedAt != 0 && now - startedAt < EXECUTION_TIMEOUT_NANOS) {
+                    metrics.skipped("execution-busy");
+                    return null;
+                }
+                if (startedAt != 0) {
+                    metrics.error("execution-timeout");
+                }
+                executionStartedAt.set(now);
+                message.put("code", PROGRAM);
+                message.put("connectionId", "load-" + index);
+            }
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    private synchronized void send(String type, String text) {
+        if (pendingSends.incrementAndGet() > MAX_PENDING_SENDS) {
+            pendingSends.decrementAndGet();
+            metrics.skipped("backlogged");
+            return;
+        }
+
+        metrics.sent(type);
+        sendChain = sendChain.thenCompose(ws -> ws.sendText(text, true))
+                .handle((ws, e) -> {
+                    pendingSends.decrementAndGet();
+                    if (e != null) {
+                        metrics.error("send");
+                    }
+                    return webSocket;
+                });
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        this.webSocket = webSocket;
+        this.sendChain = CompletableFuture.completedFuture(webSocket);
+        webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        partial.append(data);
+        if (last) {
+            String payload = partial.toString();
+            partial.setLength(0);
+            handle(payload);
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        if (statusCode != WebSocket.NORMAL_CLOSURE) {
+            metrics.error("closed-" + statusCode);
+        }
+        ready.completeExceptionally(new IllegalStateException("Closed before SESSION_INFO: " + statusCode + " " + reason));
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        metrics.error("transport");
+        ready.completeExceptionally(error);
+        log.debug("Load client {} failed: {}", index, error.getMessage());
+    }
+
+    private void handle(String payload) {
+        long now = System.nanoTime();
+        JsonNode message;
+        try {
+            message = objectMapper.readTree(payload);
+        } catch (Exception e) {
+            metrics.error("unparseable");
+            return;
+        }
+
+        String type = message.path("type").asText("UNKNOWN");
+        metrics.received(type, payload.length());
+
+        switch (type) {
+            case "SESSION_INFO" -> ready.complete(null);
+            case "AUTH_SUCCESS" -> recordOldest(pendingAuth, "AUTH", now);
+            case "FILE_SAVED" -> {
+                if (message.has("content")) {
+                    recordDelivery(message.get("content").asText(), now);
+                } else {
+                    recordOldest(pendingSaves, "FILE_SAVE", now);
+                }
+            }
+            case "EXECUTION_RESULT" -> {
+                long startedAt = executionStartedAt.getAndSet(0);
+                if (startedAt != 0) {
+                    metrics.latency("EXECUTE_CODE", now - startedAt);
+                }
+            }
+            case "ERROR" -> metrics.error("server-" + message.path("message").asText("unknown").split(":")[0]);
+            default -> {
+            }
+        }
+    }
+
+    private void recordOldest(Queue<Long> pending, String operation, long now) {
+        Long sentAt = pending.poll();
+        if (sentAt != null) {
+            metrics.latency(operation, now - sentAt);
+        }
+    }
+
+    // Every member of the room, the author included, receives the broadcast; the marker line carries the send time
+    private void recordDelivery(String content, long now) {
+        if (!content.startsWith(CONTENT_MARKER)) {
+            return;
+        }
+
+        int end = content.indexOf('\n');
+        String[] header = content.substring(CONTENT_MARKER.length(), end > 0 ? end : content.length()).split(" ");
+        if (header.length == 3) {
+            metrics.latency("FILE_SAVED broadcast", now - Long.parseLong(header[2]));
+        }
+    }
+}
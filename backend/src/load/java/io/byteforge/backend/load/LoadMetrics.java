@@ -0,0 +1,81 @@
+package io.byteforge.backend.load;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Client-side view of the run; nothing is recorded until measure() is called so warmup does not skew percentiles
+class LoadMetrics {
+
+    static final String LATENCY = "load.latency";
+    static final String SENT = "load.sent";
+    static final String RECEIVED = "load.received";
+    static final String RECEIVED_BYTES = "load.received.bytes";
+    static final String ERRORS = "load.errors";
+    static final String SKIPPED = "load.skipped";
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final Duration window;
+    private volatile boolean measuring;
+
+    LoadMetrics(LoadOptions options) {
+        // One histogram window spanning the whole run, otherwise percentiles only describe the last two minutes
+        this.window = options.warmup().plus(options.duration()).multipliedBy(2);
+    }
+
+    MeterRegistry registry() {
+        return registry;
+    }
+
+    void measure() {
+        measuring = true;
+    }
+
+    void stop() {
+        measuring = false;
+    }
+
+    void latency(String operation, long nanos) {
+        if (!measuring) {
+            return;
+        }
+        Timer.builder(LATENCY)
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                .percentilePrecision(2)
+                .distributionStatisticExpiry(window)
+                .distributionStatisticBufferLength(1)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void sent(String type) {
+        count(SENT, type);
+    }
+
+    void received(String type, int bytes) {
+        if (!measuring) {
+            return;
+        }
+        count(RECEIVED, type);
+        Counter.builder(RECEIVED_BYTES).register(registry).increment(bytes);
+    }
+
+    void error(String kind) {
+        count(ERRORS, kind);
+    }
+
+    void skipped(String reason) {
+        count(SKIPPED, reason);
+    }
+
+    private void count(String name, String type) {
+        if (measuring) {
+            Counter.builder(name).tag("type", type).register(registry).increment();
+        }
+    }
+}
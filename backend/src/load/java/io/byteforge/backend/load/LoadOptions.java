@@ -0,0 +1,81 @@
+package io.byteforge.backend.load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+record LoadOptions(int clients,
+                   int projects,
+                   Duration warmup,
+                   Duration duration,
+                   double rate,
+                   Map<String, Integer> mix,
+                   int contentSize,
+                   int outputLines,
+                   Duration sandboxDelay,
+                   Duration sandboxGap,
+                   Path report) {
+
+    static final String DEFAULT_MIX = "CURSOR_MOVE:70,FILE_SAVE:20,AUTH:5,EXECUTE_CODE:5";
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        LoadOptions options = new LoadOptions(
+                Integer.parseInt(values.getOrDefault("clients", "100")),
+                Integer.parseInt(values.getOrDefault("projects", "10")),
+                duration(values.getOrDefault("warmup", "10s")),
+                duration(values.getOrDefault("duration", "60s")),
+                Double.parseDouble(values.getOrDefault("rate", "2")),
+                mix(values.getOrDefault("mix", DEFAULT_MIX)),
+                Integer.parseInt(values.getOrDefault("content-size", "2048")),
+                Integer.parseInt(values.getOrDefault("output-lines", "20")),
+                duration(values.getOrDefault("sandbox-delay", "50ms")),
+                duration(values.getOrDefault("sandbox-gap", "0ms")),
+                values.containsKey("report") ? Path.of(values.get("report")) : null);
+
+        if (options.clients() < 1 || options.projects() < 1 || options.projects() > options.clients()) {
+            throw new IllegalArgumentException("Need at least one client per project");
+        }
+        if (options.rate() <= 0) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        return options;
+    }
+
+    private static Map<String, Integer> mix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split(":");
+            String type = pair[0].trim().toUpperCase();
+            if (!LoadClient.SUPPORTED_TYPES.contains(type)) {
+                throw new IllegalArgumentException("Unsupported message type in mix: " + type);
+            }
+            mix.put(type, pair.length > 1 ? Integer.parseInt(pair[1].trim()) : 1);
+        }
+        return mix;
+    }
+
+    // Accepts 500ms, 30s, 5m or an ISO-8601 duration
+    private static Duration duration(String value) {
+        String trimmed = value.trim().toLowerCase();
+        if (trimmed.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(trimmed.substring(0, trimmed.length() - 2)));
+        }
+        if (trimmed.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(trimmed.substring(0, trimmed.length() - 1)));
+        }
+        if (trimmed.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(trimmed.substring(0, trimmed.length() - 1)));
+        }
+        return Duration.parse(value);
+    }
+}
@@ -0,0 +1,298 @@
+package io.byteforge.backend.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+class LoadReport {
+
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    private final LoadOptions options;
+    private final MeterRegistry serverRegistry;
+    private final Map<String, double[]> serverBaseline = new HashMap<>();
+    private final ResourceUsage resources = new ResourceUsage();
+
+    LoadReport(LoadOptions options, MeterRegistry serverRegistry) {
+        this.options = options;
+        this.serverRegistry = serverRegistry;
+    }
+
+    void start() {
+        for (Meter meter : serverMeters()) {
+            serverBaseline.put(key(meter), totals(meter));
+        }
+        resources.start();
+    }
+
+    Map<String, Object> finish(LoadMetrics client, long elapsedNanos, int connected) {
+        Map<String, Object> resourceUsage = resources.stop(elapsedNanos);
+        double seconds = elapsedNanos / 1e9;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", config(connected));
+        report.put("latencyMs", latencies(client.registry()));
+        report.put("sentPerSecond", rates(client.registry(), LoadMetrics.SENT, seconds));
+        report.put("receivedPerSecond", rates(client.registry(), LoadMetrics.RECEIVED, seconds));
+        report.put("receivedMegabytesPerSecond", round(client.registry().find(LoadMetrics.RECEIVED_BYTES).counters().stream()
+                .mapToDouble(Counter::count).sum() / seconds / (1024 * 1024)));
+        report.put("errors", counts(client.registry(), LoadMetrics.ERRORS));
+        report.put("skipped", counts(client.registry(), LoadMetrics.SKIPPED));
+        report.put("server", server(seconds));
+        report.put("resources", resourceUsage);
+        return report;
+    }
+
+    void print(Map<String, Object> report, PrintStream out) {
+        out.println();
+        out.println("=== WebSocket load test ===");
+        print(report, "", out);
+    }
+
+    void write(Map<String, Object> report) throws IOException {
+        if (options.report() == null) {
+            return;
+        }
+        Files.write(options.report(), new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValueAsBytes(report));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void print(Map<String, Object> section, String indent, PrintStream out) {
+        for (Map.Entry<String, Object> entry : section.entrySet()) {
+            if (entry.getValue() instanceof Map<?, ?> nested) {
+                out.println(indent + entry.getKey() + ":");
+                print((Map<String, Object>) nested, indent + "  ", out);
+            } else {
+                out.println(indent + entry.getKey() + ": " + entry.getValue());
+            }
+        }
+    }
+
+    private Map<String, Object> config(int connected) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("clients", options.clients());
+        config.put("connected", connected);
+        config.put("projects", options.projects());
+        config.put("ratePerClient", options.rate());
+        config.put("mix", options.mix().toString());
+        config.put("contentSize", options.contentSize());
+        config.put("warmup", options.warmup().toString());
+        config.put("duration", options.duration().toString());
+        config.put("processors", Runtime.getRuntime().availableProcessors());
+        return config;
+    }
+
+    private Map<String, Object> latencies(MeterRegistry registry) {
+        Map<String, Object> latencies = new TreeMap<>();
+        for (Timer timer : registry.find(LoadMetrics.LATENCY).timers()) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", timer.count());
+            stats.put("mean", round(timer.mean(TimeUnit.MILLISECONDS)));
+            for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+                stats.put("p" + percentileLabel(percentile.percentile()), round(percentile.value(TimeUnit.MILLISECONDS)));
+            }
+            stats.put("max", round(timer.max(TimeUnit.MILLISECONDS)));
+            latencies.put(timer.getId().getTag("operation"), stats);
+        }
+        return latencies;
+    }
+
+    private Map<String, Object> rates(MeterRegistry registry, String name, double seconds) {
+        Map<String, Object> rates = new TreeMap<>();
+        double total = 0;
+        for (Counter counter : registry.find(name).counters()) {
+            rates.put(counter.getId().getTag("type"), round(counter.count() / seconds));
+            total += counter.count();
+        }
+        rates.put("total", round(total / seconds));
+        return rates;
+    }
+
+    private Map<String, Object> counts(MeterRegistry registry, String name) {
+        Map<String, Object> counts = new TreeMap<>();
+        for (Counter counter : registry.find(name).counters()) {
+            counts.put(counter.getId().getTag("type"), (long) counter.count());
+        }
+        return counts;
+    }
+
+    // Deltas of the backend's own meters over the measured window, so warmup and seeding do not count
+    private Map<String, Object> server(double seconds) {
+        Map<String, Object> server = new TreeMap<>();
+        for (Meter meter : serverMeters()) {
+            double[] before = serverBaseline.getOrDefault(key(meter), new double[2]);
+            double[] after = totals(meter);
+            double count = after[0] - before[0];
+            if (count <= 0) {
+                continue;
+            }
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("perSecond", round(count / seconds));
+            if (meter instanceof Timer timer) {
+                stats.put("meanMs", round((after[1] - before[1]) / count / NANOS_PER_MS));
+                stats.put("maxMs", round(timer.max(TimeUnit.MILLISECONDS)));
+            } else if (meter instanceof DistributionSummary summary) {
+                stats.put("mean", round((after[1] - before[1]) / count));
+                stats.put("max", round(summary.max()));
+            }
+            server.put(key(meter), stats);
+        }
+
+        for (Gauge gauge : serverRegistry.find("byteforge.ws.sessions.active").gauges()) {
+            server.put("byteforge.ws.sessions.active", (long) gauge.value());
+        }
+        for (Gauge gauge : serverRegistry.find("byteforge.ws.rooms.active").gauges()) {
+            server.put("byteforge.ws.rooms.active", (long) gauge.value());
+        }
+        return server;
+    }
+
+    private Iterable<Meter> serverMeters() {
+        return serverRegistry.getMeters().stream()
+                .filter(meter -> meter.getId().getName().startsWith("byteforge."))
+                .filter(meter -> meter instanceof Timer || meter instanceof DistributionSummary)
+                .toList();
+    }
+
+    private static double[] totals(Meter meter) {
+        if (meter instanceof Timer timer) {
+            return new double[]{timer.count(), timer.totalTime(TimeUnit.NANOSECONDS)};
+        }
+        DistributionSummary summary = (DistributionSummary) meter;
+        return new double[]{summary.count(), summary.totalAmount()};
+    }
+
+    private static String key(Meter meter) {
+        String tags = meter.getId().getTags().stream()
+                .filter(tag -> !"application".equals(tag.getKey()))
+                .map(Tag::getValue)
+                .collect(Collectors.joining(","));
+        return tags.isEmpty() ? meter.getId().getName() : meter.getId().getName() + "{" + tags + "}";
+    }
+
+    private static String percentileLabel(double percentile) {
+        String digits = String.valueOf(percentile * 100);
+        return digits.endsWith(".0") ? digits.substring(0, digits.length() - 2) : digits.replace(".", "");
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    // The generator shares the JVM with the backend, so CPU is split by thread name to approximate the server's share
+    private static final class ResourceUsage {
+
+        private final com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final AtomicLong peakHeap = new AtomicLong();
+
+        private ScheduledExecutorService sampler;
+        private long processCpu;
+        private Map<Long, Long> threadCpu;
+        private long gcCount;
+        private long gcTime;
+
+        void start() {
+            processCpu = os.getProcessCpuTime();
+            threadCpu = threadCpu();
+            gcCount = gcTotal(true);
+            gcTime = gcTotal(false);
+            threads.resetPeakThreadCount();
+            peakHeap.set(memory.getHeapMemoryUsage().getUsed());
+
+            sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "load-sampler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sampler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                    0, 250, TimeUnit.MILLISECONDS);
+        }
+
+        Map<String, Object> stop(long elapsedNanos) {
+            sampler.shutdownNow();
+            double cores = Runtime.getRuntime().availableProcessors();
+
+            long serverCpu = 0;
+            long generatorCpu = 0;
+            Map<Long, Long> now = threadCpu();
+            ThreadInfo[] infos = threads.getThreadInfo(now.keySet().stream().mapToLong(Long::longValue).toArray());
+            for (ThreadInfo info : infos) {
+                if (info == null) {
+                    continue;
+                }
+                long used = now.get(info.getThreadId()) - threadCpu.getOrDefault(info.getThreadId(), 0L);
+                if (isGenerator(info.getThreadName())) {
+                    generatorCpu += used;
+                } else {
+                    serverCpu += used;
+                }
+            }
+
+            Map<String, Object> usage = new LinkedHashMap<>();
+            usage.put("processCpuPercent", round(100.0 * (os.getProcessCpuTime() - processCpu) / elapsedNanos / cores));
+            usage.put("serverThreadsCpuPercent", round(100.0 * serverCpu / elapsedNanos / cores));
+            usage.put("generatorThreadsCpuPercent", round(100.0 * generatorCpu / elapsedNanos / cores));
+            usage.put("heapPeakMb", peakHeap.get() / (1024 * 1024));
+            usage.put("heapMaxMb", memory.getHeapMemoryUsage().getMax() / (1024 * 1024));
+            usage.put("gcCount", gcTotal(true) - gcCount);
+            usage.put("gcTimeMs", gcTotal(false) - gcTime);
+            usage.put("threadsPeak", threads.getPeakThreadCount());
+            usage.put("systemLoadAverage", round(os.getSystemLoadAverage()));
+            return usage;
+        }
+
+        private Map<Long, Long> threadCpu() {
+            Map<Long, Long> cpu = new HashMap<>();
+            for (long id : threads.getAllThreadIds()) {
+                long time = threads.getThreadCpuTime(id);
+                if (time >= 0) {
+                    cpu.put(id, time);
+                }
+            }
+            return cpu;
+        }
+
+        private static boolean isGenerator(String name) {
+            return name.startsWith("load-") || name.startsWith("HttpClient-") || name.startsWith("fake-sandbox");
+        }
+
+        private static long gcTotal(boolean count) {
+            long total = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                total += Math.max(0, count ? gc.getCollectionCount() : gc.getCollectionTime());
+            }
+            return total;
+        }
+    }
+}
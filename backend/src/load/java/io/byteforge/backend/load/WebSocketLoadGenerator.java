@@ -0,0 +1,228 @@
+package io.byteforge.backend.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.byteforge.backend.ByteForgeApplication;
+import io.byteforge.backend.model.custom.FileType;
+import io.byteforge.backend.model.entity.Project;
+import io.byteforge.backend.model.entity.ProjectFile;
+import io.byteforge.backend.model.entity.SharedProject;
+import io.byteforge.backend.model.entity.User;
+import io.byteforge.backend.repository.ProjectFileRepository;
+import io.byteforge.backend.repository.ProjectRepository;
+import io.byteforge.backend.repository.SharedProjectRepository;
+import io.byteforge.backend.repository.UserRepository;
+import io.byteforge.backend.service.FakeSandboxServer;
+import io.byteforge.backend.service.tokens.JwtService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Boots the backend on the in-memory test database, connects N collaborators across M projects and drives a message mix
+@Slf4j
+public class WebSocketLoadGenerator {
+
+    private static final int FILES_PER_PROJECT = 5;
+    private static final String MEMBER_ROLE = "DEVELOPER";
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+
+        try (FakeSandboxServer sandbox = new FakeSandboxServer(scenario(options))) {
+            ConfigurableApplicationContext app = start(sandbox.port());
+            try {
+                run(options, app);
+            } finally {
+                app.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    // A successful run: compile, a few output lines, the result
+    private static FakeSandboxServer.Scenario scenario(LoadOptions options) {
+        return run -> {
+            run.pause(options.sandboxDelay());
+            run.compileSuccess();
+            for (int i = 0; i < options.outputLines(); i++) {
+                run.pause(options.sandboxGap());
+                run.output("line " + i + "\n");
+            }
+            run.pause(options.sandboxDelay());
+            run.result("SUCCESS", 0, "", "");
+        };
+    }
+
+    private static ConfigurableApplicationContext start(int sandboxPort) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("management.server.port", "0");
+        properties.put("sandbox.socket.host", "127.0.0.1");
+        properties.put("sandbox.socket.port", String.valueOf(sandboxPort));
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("spring.jpa.properties.hibernate.generate_statistics", "false");
+        properties.put("diagnostics.pinning.enabled", "true");
+        // The handler logs every frame at INFO; pass -Dlogging.level.root=INFO to measure with production logging
+        properties.put("logging.level.root", "WARN");
+
+        // Command line arguments outrank the test profile, -D system properties still outrank these defaults
+        String[] arguments = properties.entrySet().stream()
+                .filter(entry -> System.getProperty(entry.getKey()) == null)
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+
+        return new SpringApplicationBuilder(ByteForgeApplication.class)
+                .profiles("test")
+                .run(arguments);
+    }
+
+    private static void run(LoadOptions options, ConfigurableApplicationContext app) throws Exception {
+        int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+        JwtService jwtService = app.getBean(JwtService.class);
+        ObjectMapper objectMapper = new ObjectMapper();
+        LoadMetrics metrics = new LoadMetrics(options);
+        List<Seat> seats = seed(app, options);
+
+        CustomizableThreadFactory clientThreads = new CustomizableThreadFactory("load-client-");
+        clientThreads.setDaemon(true);
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors()), clientThreads);
+        HttpClient httpClient = HttpClient.newBuilder().executor(clientExecutor).build();
+
+        List<LoadClient> clients = new ArrayList<>();
+        List<CompletableFuture<Void>> connections = new ArrayList<>();
+        for (int i = 0; i < seats.size(); i++) {
+            Seat seat = seats.get(i);
+            LoadClient client = new LoadClient(i, seat.fileId(), options, metrics, objectMapper);
+            URI uri = URI.create("ws://127.0.0.1:" + port + "/ws/project/" + seat.projectId());
+            connections.add(client.connect(httpClient, uri, jwtService.generateAccessToken(seat.userId(), seat.username())));
+            clients.add(client);
+        }
+
+        List<LoadClient> connected = new ArrayList<>();
+        for (int i = 0; i < clients.size(); i++) {
+            try {
+                connections.get(i).get(30, TimeUnit.SECONDS);
+                connected.add(clients.get(i));
+            } catch (TimeoutException | ExecutionException e) {
+                log.warn("Load client {} did not connect: {}", i, e.getMessage());
+            }
+        }
+        System.out.printf("Connected %d of %d clients across %d projects%n", connected.size(), clients.size(), options.projects());
+
+        CustomizableThreadFactory driverThreads = new CustomizableThreadFactory("load-driver-");
+        driverThreads.setDaemon(true);
+        ScheduledExecutorService driver = Executors.newScheduledThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors() / 2), driverThreads);
+        long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.rate());
+        for (LoadClient client : connected) {
+            driver.scheduleAtFixedRate(client::tick, ThreadLocalRandom.current().nextLong(periodNanos), periodNanos,
+                    TimeUnit.NANOSECONDS);
+        }
+
+        System.out.printf("Warming up for %s%n", options.warmup());
+        Thread.sleep(options.warmup().toMillis());
+
+        LoadReport report = new LoadReport(options, app.getBean(MeterRegistry.class));
+        report.start();
+        metrics.measure();
+        long startedAt = System.nanoTime();
+        System.out.printf("Measuring for %s%n", options.duration());
+        Thread.sleep(options.duration().toMillis());
+        metrics.stop();
+        long elapsed = System.nanoTime() - startedAt;
+
+        driver.shutdownNow();
+        Map<String, Object> result = report.finish(metrics, elapsed, connected.size());
+
+        // Disconnect before printing so the report is not interleaved with the server's teardown logging
+        connected.forEach(LoadClient::close);
+        Thread.sleep(1000);
+        clientExecutor.shutdownNow();
+
+        report.print(result, System.out);
+        report.write(result);
+    }
+
+    private static List<Seat> seed(ConfigurableApplicationContext app, LoadOptions options) {
+        UserRepository userRepository = app.getBean(UserRepository.class);
+        ProjectRepository projectRepository = app.getBean(ProjectRepository.class);
+        ProjectFileRepository projectFileRepository = app.getBean(ProjectFileRepository.class);
+        SharedProjectRepository sharedProjectRepository = app.getBean(SharedProjectRepository.class);
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < options.clients(); i++) {
+            User user = new User();
+            user.setUsername("load-user-" + i);
+            user.setEmail("load-user-" + i + "@byteforge.io");
+            user.setPassword("password");
+            users.add(userRepository.save(user));
+        }
+
+        List<Project> projects = new ArrayList<>();
+        List<List<Long>> files = new ArrayList<>();
+        for (int p = 0; p < options.projects(); p++) {
+            Project project = new Project();
+            project.setTitle("Load project " + p);
+            project.setOwner(users.get(p));
+            project = projectRepository.save(project);
+            projects.add(project);
+
+            ProjectFile folder = file(project, null, "src", FileType.FOLDER, null);
+            folder = projectFileRepository.save(folder);
+            List<Long> fileIds = new ArrayList<>();
+            for (int f = 0; f < FILES_PER_PROJECT; f++) {
+                ProjectFile file = file(project, folder, "src/file" + f + ".cpp", FileType.FILE, "int main() {}\n");
+                fileIds.add(projectFileRepository.save(file).getId());
+            }
+            files.add(fileIds);
+        }
+
+        List<Seat> seats = new ArrayList<>();
+        for (int i = 0; i < options.clients(); i++) {
+            int p = i % options.projects();
+            User user = users.get(i);
+            if (i >= options.projects()) {
+                SharedProject membership = new SharedProject();
+                membership.setProject(projects.get(p));
+                membership.setUser(user);
+                membership.setAccessLevel(MEMBER_ROLE);
+                sharedProjectRepository.save(membership);
+            }
+            long fileId = files.get(p).get((i / options.projects()) % FILES_PER_PROJECT);
+            seats.add(new Seat(user.getId(), user.getUsername(), projects.get(p).getId(), fileId));
+        }
+        return seats;
+    }
+
+    private static ProjectFile file(Project project, ProjectFile parent, String path, FileType type, String content) {
+        ProjectFile file = new ProjectFile();
+        file.setProject(project);
+        file.setParent(parent);
+        file.setPath(path);
+        file.setName(path.substring(path.lastIndexOf('/') + 1));
+        file.setType(type);
+        file.setContent(content);
+        return file;
+    }
+
+    private record Seat(Long userId, String username, Long projectId, Long fileId) {
+    }
+}
@@ -0,0 +1,56 @@
+package io.byteforge.backend.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USERS = "users";
+    public static final String PROJECTS = "projects";
+    public static final String MEMBERSHIPS = "memberships";
+
+    @Value("${cache.users.max-size:10000}")
+    private long usersMaxSize;
+
+    @Value("${cache.users.ttl:10m}")
+    private Duration usersTtl;
+
+    @Value("${cache.projects.max-size:10000}")
+    private long projectsMaxSize;
+
+    @Value("${cache.projects.ttl:10m}")
+    private Duration projectsTtl;
+
+    @Value("${cache.memberships.max-size:5000}")
+    private long membershipsMaxSize;
+
+    @Value("${cache.memberships.ttl:5m}")
+    private Duration membershipsTtl;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(USERS, buildCache(usersMaxSize, usersTtl));
+        cacheManager.registerCustomCache(PROJECTS, buildCache(projectsMaxSize, projectsTtl));
+        cacheManager.registerCustomCache(MEMBERSHIPS, buildCache(membershipsMaxSize, membershipsTtl));
+        return cacheManager;
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> buildCache(long maxSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+}
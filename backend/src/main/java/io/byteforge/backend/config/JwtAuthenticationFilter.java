@@ -1,27 +1,34 @@
 package io.byteforge.backend.config;
 
+import io.byteforge.backend.model.custom.CustomUserDetails;
 import io.byteforge.backend.service.tokens.CookieService;
 import io.byteforge.backend.service.tokens.JwtService;
+import io.byteforge.backend.service.tokens.TokenRevocationService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final List<GrantedAuthority> USER_AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
     private final JwtService jwtService;
     private final CookieService cookieService;
-    private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -29,9 +36,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     FilterChain filterChain) throws ServletException, IOException {
         String accessToken = cookieService.resolveTokenFromCookie(request, "ACCESS_TOKEN");
 
-        if (accessToken != null && !accessToken.isEmpty() && jwtService.validateToken(accessToken)) {
-            Long userId = jwtService.getUserIdFromToken(accessToken);
-            UserDetails userDetails = userDetailsService.loadUserById(userId);
+        JwtService.VerifiedToken verifiedToken = accessToken != null && !accessToken.isEmpty()
+                ? jwtService.verify(accessToken)
+                : null;
+
+        if (verifiedToken != null && !tokenRevocationService.isRevoked(verifiedToken)) {
+            UserDetails userDetails = new CustomUserDetails(
+                    verifiedToken.userId(),
+                    verifiedToken.username(),
+                    "",
+                    USER_AUTHORITIES,
+                    true
+            );
 
             UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                     userDetails, null, userDetails.getAuthorities());
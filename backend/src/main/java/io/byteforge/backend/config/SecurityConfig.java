@@ -2,14 +2,21 @@ package io.byteforge.backend.config;
 
 import io.byteforge.backend.service.tokens.CookieService;
 import io.byteforge.backend.service.tokens.JwtService;
+import io.byteforge.backend.service.tokens.TokenRevocationService;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.expression.WebExpressionAuthorizationManager;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -25,11 +32,14 @@ public class SecurityConfig {
 
     private final JwtService jwtService;
     private final CookieService cookieService;
-    private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
+
+    @Value("${cors.allowed-origins}")
+    private List<String> allowedOrigins;
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtService, cookieService, userDetailsService);
+        return new JwtAuthenticationFilter(jwtService, cookieService, tokenRevocationService);
     }
 
     @Bean
@@ -38,6 +48,10 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll()
+                        // Diagnostics expose every user's data; a signed-in account alone is not enough to read them
+                        .requestMatchers(EndpointRequest.to("executions", "jfr")).access(fromLoopback())
                         .requestMatchers("/api/v1/auth/**",
                                          "/api/v1/project/join-link").permitAll()
                         .anyRequest().authenticated()
@@ -50,12 +64,15 @@ public class SecurityConfig {
         return http.build();
     }
 
+    private static AuthorizationManager<RequestAuthorizationContext> fromLoopback() {
+        return new WebExpressionAuthorizationManager(
+                "isAuthenticated() and (hasIpAddress('127.0.0.1') or hasIpAddress('::1'))");
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
-        configuration.setAllowedOriginPatterns(List.of(
-                "*"
-        ));
+        configuration.setAllowedOriginPatterns(allowedOrigins);
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         configuration.setAllowedHeaders(List.of("*"));
         configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Disposition"));
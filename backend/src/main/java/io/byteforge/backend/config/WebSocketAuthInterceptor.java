@@ -0,0 +1,72 @@
+package io.byteforge.backend.config;
+
+import io.byteforge.backend.model.custom.CustomUserDetails;
+import io.byteforge.backend.service.ProjectAccessService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WebSocketAuthInterceptor implements HandshakeInterceptor {
+
+    public static final String USER_ID_ATTRIBUTE = "userId";
+    public static final String USERNAME_ATTRIBUTE = "username";
+    public static final String PROJECT_ID_ATTRIBUTE = "projectId";
+
+    private final ProjectAccessService projectAccessService;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        if (!(request.getPrincipal() instanceof Authentication authentication)
+                || !(authentication.getPrincipal() instanceof CustomUserDetails user)) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        Long projectId = extractProjectId(request);
+        if (projectId == null) {
+            response.setStatusCode(HttpStatus.BAD_REQUEST);
+            return false;
+        }
+
+        if (!projectAccessService.can(projectId, user.getId(), ProjectAccessService.Permission.VIEW)) {
+            log.warn("🚫 WebSocket handshake rejected - User: {}, Project: {}", user.getId(), projectId);
+            response.setStatusCode(HttpStatus.FORBIDDEN);
+            return false;
+        }
+
+        attributes.put(USER_ID_ATTRIBUTE, user.getId());
+        attributes.put(USERNAME_ATTRIBUTE, user.getUsername());
+        attributes.put(PROJECT_ID_ATTRIBUTE, projectId);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private Long extractProjectId(ServerHttpRequest request) {
+        String[] segments = request.getURI().getPath().split("/");
+        if (segments.length <= 3) {
+            return null;
+        }
+
+        try {
+            return Long.valueOf(segments[3]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package io.byteforge.backend.config;
 
 import io.byteforge.backend.controllers.ProjectWebSocketHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
@@ -11,14 +12,22 @@ import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry
 public class WebSocketConfig implements WebSocketConfigurer {
 
     private final ProjectWebSocketHandler projectWebSocketHandler;
+    private final WebSocketAuthInterceptor webSocketAuthInterceptor;
+    private final String[] allowedOrigins;
 
-    public WebSocketConfig(ProjectWebSocketHandler projectWebSocketHandler) {
+    public WebSocketConfig(ProjectWebSocketHandler projectWebSocketHandler,
+                           WebSocketAuthInterceptor webSocketAuthInterceptor,
+                           @Value("${cors.allowed-origins}") String[] allowedOrigins) {
         this.projectWebSocketHandler = projectWebSocketHandler;
+        this.webSocketAuthInterceptor = webSocketAuthInterceptor;
+        this.allowedOrigins = allowedOrigins;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(projectWebSocketHandler, "/ws/project/{projectId}")
-                .setAllowedOriginPatterns("*");
+                .addInterceptors(webSocketAuthInterceptor)
+                // The handshake is authenticated by the ambient ACCESS_TOKEN cookie, so any other origin could open the socket as the user
+                .setAllowedOriginPatterns(allowedOrigins);
     }
 }
\ No newline at end of file
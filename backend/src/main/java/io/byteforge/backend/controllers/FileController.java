@@ -1,10 +1,13 @@
 package io.byteforge.backend.controllers;
 
+import io.byteforge.backend.model.custom.CustomUserDetails;
 import io.byteforge.backend.service.FileService;
+import io.byteforge.backend.service.ProjectAccessService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.coyote.BadRequestException;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -16,10 +19,12 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class FileController {
     private final FileService fileService;
+    private final ProjectAccessService projectAccessService;
 
     @GetMapping("/files")
-    public ResponseEntity<?> getFiles(@PathVariable Long projectId) throws BadRequestException {
+    public ResponseEntity<?> getFiles(@PathVariable Long projectId, @AuthenticationPrincipal CustomUserDetails userDetails) throws BadRequestException {
         log.info("Get files for project with id: {}", projectId);
+        projectAccessService.check(projectId, userDetails.getId(), ProjectAccessService.Permission.VIEW);
         return fileService.getFiles(projectId);
     }
 }
\ No newline at end of file
@@ -2,16 +2,25 @@ package io.byteforge.backend.controllers;
 
 import io.byteforge.backend.model.custom.CustomUserDetails;
 import io.byteforge.backend.model.dto.ProjectDto;
+import io.byteforge.backend.service.ProjectAccessService;
 import io.byteforge.backend.service.ProjectExportService;
 import io.byteforge.backend.service.ProjectService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.coyote.BadRequestException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -22,6 +31,7 @@ public class ProjectController {
 
     private final ProjectService projectService;
     private final ProjectExportService projectExportService;
+    private final ProjectAccessService projectAccessService;
 
     @GetMapping("/project")
     public ResponseEntity<List<ProjectDto.Response>> getProjects(@AuthenticationPrincipal CustomUserDetails userDetails) {
@@ -29,6 +39,15 @@ public class ProjectController {
         return projectService.getProjects(userDetails.getId());
     }
 
+    @GetMapping("/project/page")
+    public ResponseEntity<ProjectDto.Page> getProjectPage(@AuthenticationPrincipal CustomUserDetails userDetails,
+                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterUpdatedAt,
+                                                          @RequestParam(required = false) Long afterId,
+                                                          @RequestParam(defaultValue = "20") int size) {
+        log.info("Get project page for user with id: {}", userDetails.getId());
+        return projectService.getProjectPage(userDetails.getId(), afterUpdatedAt, afterId, size);
+    }
+
     @PostMapping("/project")
     public ResponseEntity<ProjectDto.Response> createProject(@Valid @RequestBody ProjectDto.Create projectData, @AuthenticationPrincipal CustomUserDetails userDetails) throws BadRequestException {
         log.info("Create project for user with id: {}", userDetails.getId());
@@ -38,66 +57,103 @@ public class ProjectController {
     @GetMapping("/project/{id}")
     public ResponseEntity<ProjectDto.Response> getProject(@PathVariable("id") Long projectId, @AuthenticationPrincipal CustomUserDetails userDetails) throws BadRequestException {
         log.info("Get project with id: {} for user with id: {}", projectId, userDetails.getId());
+        projectAccessService.check(projectId, userDetails.getId(), ProjectAccessService.Permission.VIEW);
         return projectService.getProject(projectId, userDetails.getId());
     }
 
     @PutMapping("/project/{id}")
     public ResponseEntity<ProjectDto.Response> editProject(@PathVariable("id") Long projectId, @Valid @RequestBody ProjectDto.Create projectData, @AuthenticationPrincipal CustomUserDetails userDetails) throws BadRequestException {
         log.info("Edit project with id: {} for user with id: {}", projectId, userDetails.getId());
+        projectAccessService.check(projectId, userDetails.getId(), ProjectAccessService.Permission.MANAGE);
         return projectService.editProject(projectData, projectId, userDetails.getId());
     }
 
     @DeleteMapping("/project/{id}")
-    public ResponseEntity<Void> deleteProject(@PathVariable("id") Long projectId) throws BadRequestException {
+    public ResponseEntity<Void> deleteProject(@PathVariable("id") Long projectId, @AuthenticationPrincipal CustomUserDetails userDetails) throws BadRequestException {
         log.info("Delete project with id: {}", projectId);
+        projectAccessService.check(projectId, userDetails.getId(), ProjectAccessService.Permission.MANAGE);
         return projectService.deleteProject(projectId);
     }
 
     @GetMapping("/project/{id}/contributors")
-    public ResponseEntity<List<ProjectDto.ProjectUsers>> getContributors(@PathVariable("id") Long projectId) throws BadRequestException {
+    public ResponseEntity<List<ProjectDto.ProjectUsers>> getContributors(@PathVariable("id") Long projectId, @AuthenticationPrincipal CustomUserDetails userDetails) throws BadRequestException {
         log.info("Get contributors for project with id: {}", projectId);
+        projectAccessService.check(projectId, userDetails.getId(), ProjectAccessService.Permission.VIEW);
         return projectService.getProjectUsers(projectId);
     }
 
     @PutMapping("/project/{id}/contributors/{contId}")
-    public void changeContributorRole(@PathVariable("id") Long projectId, @PathVariable("contId") Long contributorId, @RequestBody ProjectDto.ChangeRole data) {
+    public void changeContributorRole(@PathVariable("id") Long projectId, @PathVariable("contId") Long contributorId, @RequestBody ProjectDto.ChangeRole data, @AuthenticationPrincipal CustomUserDetails userDetails) throws BadRequestException {
         log.info("Change contributor for project with id: {}", projectId);
-        projectService.changeContributorRole(contributorId, data.getRole());
+        projectAccessService.check(projectId, userDetails.getId(), ProjectAccessService.Permission.MANAGE);
+        projectService.changeContributorRole(projectId, contributorId, data.getRole());
     }
 
     @DeleteMapping("/project/{id}/contributors/{contId}")
-    public void removeContributor(@PathVariable("id") Long projectId, @PathVariable("contId") Long contributorId) {
+    public void removeContributor(@PathVariable("id") Long projectId, @PathVariable("contId") Long contributorId, @AuthenticationPrincipal CustomUserDetails userDetails) throws BadRequestException {
         log.info("Remove user from project with id: {}", projectId);
-        projectService.removeUserFromSharedProject(contributorId);
+        projectAccessService.check(projectId, userDetails.getId(), ProjectAccessService.Permission.MANAGE);
+        projectService.removeUserFromSharedProject(projectId, contributorId);
     }
 
     @GetMapping("/project/{id}/join-link")
-    public ResponseEntity<ProjectDto.InviteToken> createJoinLink(@PathVariable("id") Long projectId) throws BadRequestException {
+    public ResponseEntity<ProjectDto.InviteToken> createJoinLink(@PathVariable("id") Long projectId, @RequestParam(required = false) String role, @AuthenticationPrincipal CustomUserDetails userDetails) throws BadRequestException {
         log.info("Create join link for project with id: {}", projectId);
-        return projectService.createJoinLink(projectId);
+        projectAccessService.check(projectId, userDetails.getId(), ProjectAccessService.Permission.MANAGE);
+        return projectService.createJoinLink(projectId, role);
     }
 
     @PostMapping("/project/join-link")
     public ResponseEntity<ProjectDto.JoinResponse> joinProjectByToken(@RequestBody @Valid ProjectDto.InviteToken body, @AuthenticationPrincipal CustomUserDetails userDetails) throws BadRequestException {
         log.info("Join user to project with token: {}", body.getToken());
-        return projectService.joinByToken(body.getToken(), body.getRole(), userDetails.getId());
+        return projectService.joinByToken(body.getToken(), userDetails.getId());
     }
 
     @PostMapping("/project/{id}/export")
     public ResponseEntity<ProjectDto.ExportResponse> startExport(@PathVariable("id") Long projectId, @RequestBody ProjectDto.ExportRequest request, @AuthenticationPrincipal CustomUserDetails userDetails) {
         log.info("Start export for project with id: {}", projectId);
+        projectAccessService.check(projectId, userDetails.getId(), ProjectAccessService.Permission.VIEW);
         return ResponseEntity.ok(projectExportService.startExport(projectId, request, userDetails.getId()));
     }
 
+    @GetMapping("/project/{id}/export/stream")
+    public ResponseEntity<StreamingResponseBody> streamExport(@PathVariable("id") Long projectId,
+                                                              @RequestParam(defaultValue = "true") Boolean includeGit,
+                                                              @RequestParam(defaultValue = "ZIP") String format,
+                                                              @RequestParam(required = false) Integer compressionLevel,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime changedSince,
+                                                              @RequestParam(required = false) String sinceExportId,
+                                                              @AuthenticationPrincipal CustomUserDetails userDetails) {
+        log.info("Stream export for project with id: {}", projectId);
+        projectAccessService.check(projectId, userDetails.getId(), ProjectAccessService.Permission.VIEW);
+        return projectExportService.streamExport(projectId, ProjectDto.ExportRequest.builder()
+                .includeGit(includeGit)
+                .format(format)
+                .compressionLevel(compressionLevel)
+                .changedSince(changedSince)
+                .sinceExportId(sinceExportId)
+                .build());
+    }
+
     @GetMapping("/project/{id}/export/{exportId}/status")
-    public ResponseEntity<ProjectDto.ExportResponse> getExportStatus(@PathVariable("id") Long projectId, @PathVariable String exportId) {
+    public ResponseEntity<ProjectDto.ExportResponse> getExportStatus(@PathVariable("id") Long projectId, @PathVariable String exportId, @AuthenticationPrincipal CustomUserDetails userDetails) {
         log.info("Get export status for project with id: {} and exportId: {}", projectId, exportId);
-        return ResponseEntity.ok(projectExportService.getExportStatus(exportId));
+        projectAccessService.check(projectId, userDetails.getId(), ProjectAccessService.Permission.VIEW);
+        return ResponseEntity.ok(projectExportService.getExportStatus(projectId, exportId));
+    }
+
+    @GetMapping(value = "/project/{id}/export/{exportId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToExport(@PathVariable("id") Long projectId, @PathVariable String exportId, @AuthenticationPrincipal CustomUserDetails userDetails) {
+        log.info("Subscribe to export progress for project with id: {} and exportId: {}", projectId, exportId);
+        projectAccessService.check(projectId, userDetails.getId(), ProjectAccessService.Permission.VIEW);
+        return projectExportService.subscribe(projectId, exportId);
     }
 
     @GetMapping("/project/{id}/export/{exportId}/download")
-    public ResponseEntity<org.springframework.core.io.Resource> downloadExport(@PathVariable("id") Long projectId, @PathVariable String exportId) {
+    public void downloadExport(@PathVariable("id") Long projectId, @PathVariable String exportId, @AuthenticationPrincipal CustomUserDetails userDetails,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
         log.info("Download export for project with id: {} and exportId: {}", projectId, exportId);
-        return projectExportService.downloadExport(exportId);
+        projectAccessService.check(projectId, userDetails.getId(), ProjectAccessService.Permission.VIEW);
+        projectExportService.downloadExport(projectId, exportId, request, response);
     }
 }
\ No newline at end of file
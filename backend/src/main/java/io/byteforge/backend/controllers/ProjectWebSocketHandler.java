@@ -2,28 +2,49 @@ package io.byteforge.backend.controllers;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.byteforge.backend.config.WebSocketAuthInterceptor;
+import io.byteforge.backend.model.custom.FileType;
 import io.byteforge.backend.model.dto.FileDto;
 import io.byteforge.backend.service.FileService;
+import io.byteforge.backend.service.ProjectAccessService;
 import io.byteforge.backend.service.ProjectService;
 import io.byteforge.backend.service.SandboxService;
+import io.byteforge.backend.service.concurrency.Bulkhead;
+import io.byteforge.backend.service.concurrency.ConnectionBudget;
+import io.byteforge.backend.service.concurrency.WebSocketSendLock;
+import io.byteforge.backend.service.diagnostics.BroadcastEvent;
+import io.byteforge.backend.service.diagnostics.ExecutionTrace;
+import io.byteforge.backend.service.diagnostics.ExecutionTraceRecorder;
+import io.byteforge.backend.service.diagnostics.WebSocketMessageEvent;
+import io.byteforge.backend.service.index.PathTrie;
+import io.byteforge.backend.service.index.ProjectPathIndex;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.Builder;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.coyote.BadRequestException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Component
@@ -31,16 +52,33 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ProjectWebSocketHandler extends TextWebSocketHandler {
 
+    private static final Set<String> MESSAGE_TYPES = Set.of(
+            "AUTH", "GET_ONLINE_USERS", "FILE_SAVE", "FILE_CREATE", "FILE_DELETE", "FILE_RENAME", "FILE_MOVE",
+            "EXECUTE_CODE", "SEND_INPUT", "STOP_EXECUTION", "CURSOR_MOVE", "KICK_USER");
+
     private final Map<String, WebSocketSession> projectSessions = new ConcurrentHashMap<>();
     private final Map<String, CopyOnWriteArraySet<String>> projectToSessions = new ConcurrentHashMap<>();
     private final Map<String, UserInfo> sessionToUserInfo = new ConcurrentHashMap<>();
     private final Map<String, CopyOnWriteArraySet<UserInfo>> projectToUsers = new ConcurrentHashMap<>();
-    private final Object sendLock = new Object();
+    private final Map<String, Timer> messageTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> broadcastTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> fanOutSummaries = new ConcurrentHashMap<>();
 
     private final SandboxService sandboxService;
+    private final ExecutionTraceRecorder executionTraces;
     private final ProjectService projectService;
     private final FileService fileService;
+    private final ProjectPathIndex pathIndex;
+    private final ProjectAccessService projectAccessService;
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    // File operations run inside a transaction; on virtual threads nothing else stops them from queueing on the JDBC pool
+    private final ConnectionBudget connectionBudget;
+
+    @Value("${db.concurrency.queue-capacity:256}")
+    private int databaseQueueCapacity;
+
+    private Bulkhead database;
 
     @Data
     @Builder
@@ -53,6 +91,23 @@ public class ProjectWebSocketHandler extends TextWebSocketHandler {
         private Long connectedAt;
     }
 
+    @PostConstruct
+    public void init() {
+        database = new Bulkhead("database", connectionBudget.databasePermits(), databaseQueueCapacity, meterRegistry);
+
+        Gauge.builder("byteforge.ws.sessions.active", projectSessions, Map::size)
+                .description("Open project WebSocket sessions")
+                .register(meterRegistry);
+        Gauge.builder("byteforge.ws.rooms.active", projectToSessions, Map::size)
+                .description("Projects with at least one open session")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        database.close();
+    }
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         String sessionId = session.getId();
@@ -62,40 +117,40 @@ public class ProjectWebSocketHandler extends TextWebSocketHandler {
         projectToSessions
                 .computeIfAbsent(projectId, k -> new CopyOnWriteArraySet<>())
                 .add(sessionId);
+        pathIndex.retain(Long.valueOf(projectId));
 
-        UserInfo tempUser = UserInfo.builder()
+        UserInfo userInfo = UserInfo.builder()
                 .sessionId(sessionId)
-                .userId(null)
-                .username("Anonymous")
+                .userId((Long) session.getAttributes().get(WebSocketAuthInterceptor.USER_ID_ATTRIBUTE))
+                .username((String) session.getAttributes().get(WebSocketAuthInterceptor.USERNAME_ATTRIBUTE))
                 .projectId(Long.valueOf(projectId))
                 .connectedAt(System.currentTimeMillis())
                 .build();
 
-        sessionToUserInfo.put(sessionId, tempUser);
+        sessionToUserInfo.put(sessionId, userInfo);
         projectToUsers
                 .computeIfAbsent(projectId, k -> new CopyOnWriteArraySet<>())
-                .add(tempUser);
+                .add(userInfo);
 
         sandboxService.registerSession(sessionId, session);
 
-        log.info("✅ WebSocket connected - Session: {}, Project: {}", sessionId, projectId);
+        log.info("✅ WebSocket connected - Session: {}, Project: {}, User: {} ({})",
+                sessionId, projectId, userInfo.getUsername(), userInfo.getUserId());
 
         sendMessageSafely(session, Map.of(
                 "type", "SESSION_INFO",
                 "sessionId", sessionId,
+                "user", Map.of(
+                        "id", userInfo.getUserId(),
+                        "username", userInfo.getUsername()
+                ),
                 "message", "Connected successfully",
                 "timestamp", System.currentTimeMillis()
         ));
 
         sendOnlineUsers(projectId);
 
-        CompletableFuture.runAsync(() -> {
-            try {
-                sendProjectState(session, projectId);
-            } catch (Exception e) {
-                log.error("Failed to send project state", e);
-            }
-        });
+        sendProjectState(session, projectId);
     }
 
     @Override
@@ -106,28 +161,39 @@ public class ProjectWebSocketHandler extends TextWebSocketHandler {
 
         log.info("📨 Received from {} (project: {}): {}", sessionId, projectId, payload);
 
+        WebSocketMessageEvent event = new WebSocketMessageEvent();
+        event.begin();
+        long startedAt = System.nanoTime();
+        String type = "INVALID";
         try {
             JsonNode data = objectMapper.readTree(payload);
-            String type = data.get("type").asText();
+            type = data.get("type").asText();
+
+            if (!isAllowed(session, projectId, type, data)) {
+                return;
+            }
 
             switch (type) {
                 case "AUTH":
-                    handleAuth(session, data);
+                    handleAuth(session);
                     break;
                 case "GET_ONLINE_USERS":
                     handleGetOnlineUsers(session, projectId, data);
                     break;
                 case "FILE_SAVE":
-                    handleFileSave(session, projectId, data);
+                    database.run(() -> handleFileSave(session, projectId, data));
                     break;
                 case "FILE_CREATE":
-                    handleFileCreate(session, projectId, data);
+                    database.run(() -> handleFileCreate(session, projectId, data));
                     break;
                 case "FILE_DELETE":
-                    handleFileDelete(session, projectId, data);
+                    database.run(() -> handleFileDelete(session, projectId, data));
                     break;
                 case "FILE_RENAME":
-                    handleFileRename(session, projectId, data);
+                    database.run(() -> handleFileRename(session, projectId, data));
+                    break;
+                case "FILE_MOVE":
+                    database.run(() -> handleFileMove(session, projectId, data));
                     break;
                 case "EXECUTE_CODE":
                     handleCodeExecute(session, projectId, data);
@@ -152,9 +218,59 @@ public class ProjectWebSocketHandler extends TextWebSocketHandler {
         } catch (Exception e) {
             log.error("Error handling message from {}: {}", sessionId, e.getMessage(), e);
             sendError(session, "Message processing error: " + e.getMessage());
+        } finally {
+            messageTimer(type).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            // Sizing the payload re-encodes it, so only pay for that while a recording wants the event
+            if (event.isEnabled()) {
+                event.finish(messageTag(type), Long.parseLong(projectId), sessionId, message.getPayloadLength());
+            }
         }
     }
 
+    // Client-supplied types are folded into a fixed set so a bad client cannot blow up tag cardinality
+    private static String messageTag(String type) {
+        return MESSAGE_TYPES.contains(type) || "INVALID".equals(type) ? type : "UNKNOWN";
+    }
+
+    private Timer messageTimer(String type) {
+        return messageTimers.computeIfAbsent(messageTag(type), t -> Timer.builder("byteforge.ws.message")
+                .description("Time to handle one inbound WebSocket message")
+                .tag("type", t)
+                .register(meterRegistry));
+    }
+
+    private boolean isAllowed(WebSocketSession session, String projectId, String type, JsonNode data) {
+        ProjectAccessService.Permission permission = switch (type) {
+            case "FILE_SAVE", "FILE_CREATE", "FILE_DELETE", "FILE_RENAME", "FILE_MOVE" -> ProjectAccessService.Permission.EDIT;
+            case "KICK_USER" -> ProjectAccessService.Permission.MANAGE;
+            default -> null;
+        };
+        if (permission == null) {
+            return true;
+        }
+
+        UserInfo userInfo = sessionToUserInfo.get(session.getId());
+        Long userId = userInfo != null ? userInfo.getUserId() : null;
+        if (!projectAccessService.can(Long.valueOf(projectId), userId, permission)) {
+            log.warn("🚫 {} denied - User: {}, Project: {}", type, userId, projectId);
+            sendError(session, "You do not have " + permission.name().toLowerCase() + " access to this project");
+            return false;
+        }
+
+        if (data.hasNonNull("fileId") && !belongsToProject(projectId, data.get("fileId").asLong())) {
+            log.warn("🚫 {} denied - File {} is not in project {}", type, data.get("fileId").asText(), projectId);
+            sendError(session, "File not found in this project");
+            return false;
+        }
+
+        return true;
+    }
+
+    private boolean belongsToProject(String projectId, Long fileId) {
+        PathTrie trie = pathIndex.get(Long.valueOf(projectId));
+        return trie != null && trie.resolve(fileId) != null;
+    }
+
     private void handleKickUser(WebSocketSession session, String projectId, JsonNode data) throws IOException, InterruptedException {
         Long targetUserId = data.get("userId").asLong();
         String sessionId = session.getId();
@@ -211,58 +327,22 @@ public class ProjectWebSocketHandler extends TextWebSocketHandler {
                 .orElse(null);
     }
 
-    private void handleAuth(WebSocketSession session, JsonNode data) throws Exception {
-        String sessionId = session.getId();
-        String projectId = extractProjectId(session);
-
-        Long userId = data.has("userId") ? data.get("userId").asLong() : null;
-        String username = data.has("username") ? data.get("username").asText() : "Unknown";
-        String email = data.has("email") ? data.get("email").asText() : "";
-
-        log.info("🔐 Authentication - User: {} ({}), Project: {}", username, userId, projectId);
-
-        UserInfo userInfo = UserInfo.builder()
-                .sessionId(sessionId)
-                .userId(userId)
-                .username(username)
-                .email(email)
-                .projectId(Long.valueOf(projectId))
-                .connectedAt(System.currentTimeMillis())
-                .build();
-
-        UserInfo oldUser = sessionToUserInfo.put(sessionId, userInfo);
-
-        CopyOnWriteArraySet<UserInfo> projectUsers = projectToUsers.get(projectId);
-        if (projectUsers != null) {
-            if (oldUser != null) {
-                projectUsers.remove(oldUser);
-            }
-            projectUsers.add(userInfo);
+    private void handleAuth(WebSocketSession session) {
+        UserInfo userInfo = sessionToUserInfo.get(session.getId());
+        if (userInfo == null) {
+            sendError(session, "Authentication required");
+            return;
         }
 
         sendMessageSafely(session, Map.of(
                 "type", "AUTH_SUCCESS",
                 "message", "Authenticated successfully",
                 "user", Map.of(
-                        "id", userId,
-                        "username", username,
-                        "email", email
+                        "id", userInfo.getUserId(),
+                        "username", userInfo.getUsername()
                 ),
                 "timestamp", System.currentTimeMillis()
         ));
-
-        broadcastToProject(projectId, Map.of(
-                "type", "USER_JOINED",
-                "user", Map.of(
-                        "id", userId,
-                        "username", username,
-                        "email", email,
-                        "sessionId", sessionId
-                ),
-                "timestamp", System.currentTimeMillis()
-        ));
-
-        sendOnlineUsers(projectId);
     }
 
     private void handleGetOnlineUsers(WebSocketSession session, String projectId, JsonNode data) {
@@ -339,15 +419,20 @@ public class ProjectWebSocketHandler extends TextWebSocketHandler {
         String name = data.get("newFileName").asText();
         Long fileId = data.get("fileId").asLong();
 
-        fileService.renameFile(fileId, name);
+        FileDto.SubtreeMove moved = fileService.renameFile(fileId, name);
 
-        broadcastToProject(projectId, Map.of(
-                "type", "FILE_RENAMED",
-                "fileId", fileId,
-                "name", name,
-                "userId", session.getId(),
-                "timestamp", System.currentTimeMillis()
-        ));
+        if (moved.getType() == FileType.FOLDER) {
+            broadcastSubtreeMoved(session, projectId, moved);
+        } else {
+            broadcastToProject(projectId, Map.of(
+                    "type", "FILE_RENAMED",
+                    "fileId", fileId,
+                    "name", name,
+                    "newPath", moved.getNewPath(),
+                    "userId", session.getId(),
+                    "timestamp", System.currentTimeMillis()
+            ));
+        }
 
         sendMessageSafely(session, Map.of(
                 "type", "FILE_RENAMED",
@@ -356,6 +441,31 @@ public class ProjectWebSocketHandler extends TextWebSocketHandler {
         ));
     }
 
+    private void handleFileMove(WebSocketSession session, String projectId, JsonNode data) throws BadRequestException {
+        log.info("File move requested for project: {}", projectId);
+        Long fileId = data.get("fileId").asLong();
+        Long parentId = data.hasNonNull("parentId") ? data.get("parentId").asLong() : 0L;
+
+        FileDto.SubtreeMove moved = fileService.moveFile(fileId, parentId);
+
+        broadcastSubtreeMoved(session, projectId, moved);
+    }
+
+    private void broadcastSubtreeMoved(WebSocketSession session, String projectId, FileDto.SubtreeMove moved) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", "SUBTREE_MOVED");
+        message.put("fileId", moved.getFileId());
+        message.put("name", moved.getName());
+        message.put("parentId", moved.getParentId());
+        message.put("oldPath", moved.getOldPath());
+        message.put("newPath", moved.getNewPath());
+        message.put("affected", moved.getAffected());
+        message.put("userId", session.getId());
+        message.put("timestamp", System.currentTimeMillis());
+
+        broadcastToProject(projectId, message);
+    }
+
     private void handleCursorMove(WebSocketSession session, String projectId, JsonNode data) {
         log.info("Cursor move for project: {}", projectId);
     }
@@ -364,38 +474,39 @@ public class ProjectWebSocketHandler extends TextWebSocketHandler {
         String sessionId = session.getId();
         String connectionId = data.has("connectionId") ? data.get("connectionId").asText() : "unknown";
 
-        log.info("🚀 EXECUTE CODE - Session: {}, Project: {}", sessionId, projectId);
+        ExecutionTrace trace = executionTraces.start(sessionId, Long.valueOf(projectId));
+        log.info("🚀 EXECUTE CODE - Session: {}, Project: {}, Execution: {}", sessionId, projectId, trace.getId());
 
         sendMessageSafely(session, Map.of(
                 "type", "EXECUTION_STARTED",
                 "message", "Starting code execution...",
+                "executionId", trace.getId(),
                 "timestamp", System.currentTimeMillis()
         ));
 
-        CompletableFuture.runAsync(() -> {
-            try {
-                if (data.has("files")) {
-                    log.info("📁 MULTI-FILE EXECUTION DETECTED");
-                    Map<String, String> files = new HashMap<>();
-                    JsonNode filesNode = data.get("files");
-                    filesNode.fields().forEachRemaining(entry -> {
-                        files.put(entry.getKey(), entry.getValue().asText());
-                    });
-                    sandboxService.executeMultiFileInteractive(sessionId, files, connectionId);
-                } else if (data.has("code")) {
-                    log.info("📄 SINGLE-FILE EXECUTION DETECTED");
-                    String code = data.get("code").asText();
-                    String filePath = data.has("filePath") ? data.get("filePath").asText() : "main.cpp";
-                    log.info("Code length: {}, File: {}", code.length(), filePath);
-                    sandboxService.executeCodeInteractive(sessionId, code, connectionId);
-                } else {
-                    throw new IllegalArgumentException("No code or files provided");
-                }
-            } catch (Exception e) {
-                log.error("❌ Execution failed for session {}: {}", sessionId, e.getMessage(), e);
-                sendError(session, "Execution failed: " + e.getMessage());
+        // SandboxService hands the execution to its own virtual thread, so this returns as soon as it is queued
+        try {
+            if (data.has("files")) {
+                log.info("📁 MULTI-FILE EXECUTION DETECTED");
+                Map<String, String> files = new HashMap<>();
+                JsonNode filesNode = data.get("files");
+                filesNode.fields().forEachRemaining(entry -> {
+                    files.put(entry.getKey(), entry.getValue().asText());
+                });
+                sandboxService.executeMultiFileInteractive(sessionId, files, connectionId, trace);
+            } else if (data.has("code")) {
+                log.info("📄 SINGLE-FILE EXECUTION DETECTED");
+                String code = data.get("code").asText();
+                String filePath = data.has("filePath") ? data.get("filePath").asText() : "main.cpp";
+                log.info("Code length: {}, File: {}", code.length(), filePath);
+                sandboxService.executeCodeInteractive(sessionId, code, connectionId, trace);
+            } else {
+                throw new IllegalArgumentException("No code or files provided");
             }
-        });
+        } catch (Exception e) {
+            log.error("❌ Execution failed for session {}: {}", sessionId, e.getMessage(), e);
+            sendError(session, "Execution failed: " + e.getMessage());
+        }
     }
 
     private void handleCodeInput(WebSocketSession session, String projectId, JsonNode data) {
@@ -498,16 +609,14 @@ public class ProjectWebSocketHandler extends TextWebSocketHandler {
     }
 
     private void sendMessageSafely(WebSocketSession session, Map<String, Object> message) {
-        synchronized (sendLock) {
-            try {
-                if (session.isOpen()) {
-                    String jsonMessage = objectMapper.writeValueAsString(message);
-                    session.sendMessage(new TextMessage(jsonMessage));
-                    log.debug("📤 Sent to {}: {}", session.getId(), message.get("type"));
-                }
-            } catch (Exception e) {
-                log.error("Failed to send message to session {}: {}", session.getId(), e.getMessage());
+        try {
+            if (session.isOpen()) {
+                String jsonMessage = objectMapper.writeValueAsString(message);
+                WebSocketSendLock.send(session, new TextMessage(jsonMessage));
+                log.debug("📤 Sent to {}: {}", session.getId(), message.get("type"));
             }
+        } catch (Exception e) {
+            log.error("Failed to send message to session {}: {}", session.getId(), e.getMessage());
         }
     }
 
@@ -515,6 +624,11 @@ public class ProjectWebSocketHandler extends TextWebSocketHandler {
         CopyOnWriteArraySet<String> sessionIds = projectToSessions.get(projectId);
         if (sessionIds == null || sessionIds.isEmpty()) return;
 
+        BroadcastEvent event = new BroadcastEvent();
+        event.begin();
+        long startedAt = System.nanoTime();
+        String type = String.valueOf(message.get("type"));
+
         String jsonMessage;
         try {
             jsonMessage = objectMapper.writeValueAsString(message);
@@ -523,23 +637,45 @@ public class ProjectWebSocketHandler extends TextWebSocketHandler {
             return;
         }
 
+        int delivered = 0;
         for (String sessionId : sessionIds) {
             WebSocketSession session = projectSessions.get(sessionId);
             if (session != null && session.isOpen()) {
-                synchronized (sendLock) {
-                    try {
-                        session.sendMessage(new TextMessage(jsonMessage));
-                    } catch (IOException e) {
-                        log.error("Failed to broadcast to session {}: {}", sessionId, e.getMessage());
-                        sessionIds.remove(sessionId);
-                        projectSessions.remove(sessionId);
-                    }
+                try {
+                    WebSocketSendLock.send(session, new TextMessage(jsonMessage));
+                    delivered++;
+                } catch (IOException | IllegalStateException e) {
+                    // A write aborted by a dead peer leaves Tomcat's endpoint unusable; drop it like a failed send
+                    log.error("Failed to broadcast to session {}: {}", sessionId, e.getMessage());
+                    sessionIds.remove(sessionId);
+                    projectSessions.remove(sessionId);
                 }
             } else {
                 sessionIds.remove(sessionId);
                 projectSessions.remove(sessionId);
             }
         }
+
+        fanOutSummary(type).record(delivered);
+        broadcastTimer(type).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        if (event.isEnabled()) {
+            event.finish(type, Long.parseLong(projectId), jsonMessage.getBytes(StandardCharsets.UTF_8).length, delivered);
+        }
+    }
+
+    private DistributionSummary fanOutSummary(String type) {
+        return fanOutSummaries.computeIfAbsent(type, t -> DistributionSummary.builder("byteforge.ws.broadcast.fanout")
+                .description("Sessions a single broadcast was delivered to")
+                .baseUnit("sessions")
+                .tag("type", t)
+                .register(meterRegistry));
+    }
+
+    private Timer broadcastTimer(String type) {
+        return broadcastTimers.computeIfAbsent(type, t -> Timer.builder("byteforge.ws.broadcast")
+                .description("Time to serialize and deliver one broadcast to a project")
+                .tag("type", t)
+                .register(meterRegistry));
     }
 
     private void sendError(WebSocketSession session, String errorMessage) {
@@ -577,6 +713,7 @@ public class ProjectWebSocketHandler extends TextWebSocketHandler {
         }
 
         sandboxService.unregisterSession(sessionId);
+        pathIndex.release(Long.valueOf(projectId));
 
         log.info("🔌 WebSocket disconnected - Session: {}, Project: {}, User: {}, Reason: {}",
                 sessionId, projectId,
@@ -1,6 +1,7 @@
 package io.byteforge.backend.controllers;
 
 import io.byteforge.backend.model.custom.CustomUserDetails;
+import io.byteforge.backend.model.custom.ProfileImageSize;
 import io.byteforge.backend.model.dto.UserDto;
 import io.byteforge.backend.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -42,8 +43,15 @@ public class UserController {
     }
 
     @GetMapping("/profile-image/{id}")
-    public ResponseEntity<Resource> getProfileImage(@PathVariable("id") Long userId) throws IOException {
+    public ResponseEntity<Resource> getProfileImage(@PathVariable("id") Long userId,
+                                                    @RequestParam(required = false) String size) throws IOException {
         log.info("Get profileImage for user with id: {}", userId);
-        return userService.getProfileImage(userId);
+        return userService.getProfileImage(userId, ProfileImageSize.from(size));
+    }
+
+    @GetMapping("/profile-images/{fileName}")
+    public ResponseEntity<Resource> getProfileImageFile(@PathVariable String fileName) throws IOException {
+        log.debug("Get profileImage file {}", fileName);
+        return userService.getProfileImageFile(fileName);
     }
 }
\ No newline at end of file
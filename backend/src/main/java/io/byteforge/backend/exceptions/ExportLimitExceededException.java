@@ -0,0 +1,7 @@
+package io.byteforge.backend.exceptions;
+
+public class ExportLimitExceededException extends RuntimeException {
+    public ExportLimitExceededException(String message) {
+        super(message);
+    }
+}
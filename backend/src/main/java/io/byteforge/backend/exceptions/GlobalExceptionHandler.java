@@ -42,6 +42,16 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(ExportLimitExceededException.class)
+    public ResponseEntity<ErrorResponseDto> handleExportLimitExceeded(ExportLimitExceededException ex) {
+        ErrorResponseDto error = ErrorResponseDto.of(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "EXPORT_LIMIT_EXCEEDED",
+                ex.getMessage()
+        );
+        return new ResponseEntity<>(error, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
     @ExceptionHandler(AuthenticationException.class)
     public ResponseEntity<ErrorResponseDto> handleAuthenticationException(AuthenticationException ex) {
         ErrorResponseDto error = ErrorResponseDto.of(
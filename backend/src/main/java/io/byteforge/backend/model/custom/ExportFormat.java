@@ -0,0 +1,38 @@
+package io.byteforge.backend.model.custom;
+
+import java.util.Locale;
+
+public enum ExportFormat {
+    ZIP("zip", "application/zip"),
+    ZIP_STORE("zip", "application/zip"),
+    TAR_GZ("tar.gz", "application/gzip");
+
+    private final String extension;
+    private final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static ExportFormat from(String value) {
+        if (value == null || value.isBlank()) {
+            return ZIP;
+        }
+
+        return switch (value.trim().toUpperCase(Locale.ROOT).replace('.', '_')) {
+            case "ZIP" -> ZIP;
+            case "ZIP_STORE", "STORE" -> ZIP_STORE;
+            case "TAR_GZ", "TGZ" -> TAR_GZ;
+            default -> throw new IllegalArgumentException("Unsupported export format: " + value);
+        };
+    }
+}
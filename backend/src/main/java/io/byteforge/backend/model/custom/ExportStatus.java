@@ -0,0 +1,12 @@
+package io.byteforge.backend.model.custom;
+
+public enum ExportStatus {
+    QUEUED,
+    PROCESSING,
+    COMPLETED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
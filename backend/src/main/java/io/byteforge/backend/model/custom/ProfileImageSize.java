@@ -0,0 +1,52 @@
+package io.byteforge.backend.model.custom;
+
+import java.util.Locale;
+
+public enum ProfileImageSize {
+    SMALL(96),
+    LARGE(192),
+    ORIGINAL(0);
+
+    public static final String URL_PREFIX = "/api/v1/profile-images/";
+
+    private final int pixels;
+
+    ProfileImageSize(int pixels) {
+        this.pixels = pixels;
+    }
+
+    public int getPixels() {
+        return pixels;
+    }
+
+    public boolean isThumbnail() {
+        return this != ORIGINAL;
+    }
+
+    // Thumbnails sit next to the original and inherit its content-hashed base name
+    public String fileName(String profileImage) {
+        if (!isThumbnail()) {
+            return profileImage;
+        }
+
+        int dot = profileImage.lastIndexOf('.');
+        String base = dot > 0 ? profileImage.substring(0, dot) : profileImage;
+        return base + "-" + pixels + ".png";
+    }
+
+    public String url(String profileImage) {
+        return profileImage != null && !profileImage.isEmpty() ? URL_PREFIX + fileName(profileImage) : null;
+    }
+
+    public static ProfileImageSize from(String value) {
+        if (value == null || value.isBlank()) {
+            return ORIGINAL;
+        }
+
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported profile image size: " + value);
+        }
+    }
+}
@@ -29,6 +29,34 @@ public class FileDto {
         String content;
     }
 
+    @Data
+    @Builder
+    public static class SubtreeMove {
+        Long fileId;
+        String name;
+        FileType type;
+        Long parentId;
+        String oldPath;
+        String newPath;
+        Integer affected;
+    }
+
+    public interface ExportEntry {
+        String getPath();
+
+        FileType getType();
+
+        String getContent();
+
+        LocalDateTime getUpdatedAt();
+    }
+
+    public interface SubtreeStats {
+        Long getFiles();
+
+        Long getBytes();
+    }
+
     @Data
     @Builder
     public static class Response {
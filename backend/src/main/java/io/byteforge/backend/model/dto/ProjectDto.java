@@ -1,14 +1,15 @@
 package io.byteforge.backend.model.dto;
 
+import io.byteforge.backend.model.custom.ProfileImageSize;
 import io.byteforge.backend.model.entity.Project;
 import io.byteforge.backend.model.entity.SharedProject;
-import io.byteforge.backend.model.entity.User;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public class ProjectDto {
@@ -33,8 +34,8 @@ public class ProjectDto {
         private String token;
         private String role;
 
-        public static InviteToken toDto(String token) {
-            return InviteToken.builder().token(token).build();
+        public static InviteToken toDto(String token, String role) {
+            return InviteToken.builder().token(token).role(role).build();
         }
     }
 
@@ -59,6 +60,21 @@ public class ProjectDto {
         private Long ownerId;
         private Boolean isPublic;
         private Long fileCount;
+        private Long totalBytes;
+
+        public static Response toDto(Summary summary) {
+            return Response.builder()
+                    .id(summary.getId())
+                    .title(summary.getTitle())
+                    .description(summary.getDescription())
+                    .createdAt(summary.getCreatedAt())
+                    .isPublic(summary.getIsPublic())
+                    .updatedAt(summary.getUpdatedAt())
+                    .ownerId(summary.getOwnerId())
+                    .fileCount(summary.getFileCount())
+                    .totalBytes(summary.getTotalBytes())
+                    .build();
+        }
 
         public static Response toDto(Project project, Long fileCount) {
             if (project == null) {
@@ -74,10 +90,60 @@ public class ProjectDto {
                     .updatedAt(project.getUpdatedAt())
                     .ownerId(project.getOwner().getId())
                     .fileCount(fileCount)
+                    .totalBytes(project.getTotalBytes())
                     .build();
         }
     }
 
+    public interface Summary {
+        Long getId();
+
+        String getTitle();
+
+        String getDescription();
+
+        LocalDateTime getCreatedAt();
+
+        LocalDateTime getUpdatedAt();
+
+        Long getOwnerId();
+
+        Boolean getIsPublic();
+
+        Long getFileCount();
+
+        Long getTotalBytes();
+    }
+
+    @Data
+    @Builder
+    public static class Page {
+        private List<Response> items;
+        private LocalDateTime nextUpdatedAt;
+        private Long nextId;
+        private Boolean hasMore;
+    }
+
+    public interface Invite {
+        Long getId();
+
+        Long getOwnerId();
+
+        String getInviteRole();
+    }
+
+    public interface Membership {
+        Long getUserId();
+
+        String getUsername();
+
+        String getEmail();
+
+        String getAccessLevel();
+
+        String getProfileImage();
+    }
+
     @Data
     public static class ChangeRole {
         private String role;
@@ -90,8 +156,10 @@ public class ProjectDto {
         private String username;
         private String email;
         private String role;
+        private String avatarUrl;
+        private String profileImageUrl;
 
-        public static ProjectUsers toOwner(Optional<User> user) {
+        public static ProjectUsers toOwner(Optional<UserDto.Profile> user) {
             if (user.isEmpty()) {
                 throw new IllegalArgumentException("Owner not exists");
             }
@@ -101,6 +169,19 @@ public class ProjectDto {
                     .username(user.get().getUsername())
                     .email(user.get().getEmail())
                     .role("OWNER")
+                    .avatarUrl(ProfileImageSize.SMALL.url(user.get().getProfileImage()))
+                    .profileImageUrl(ProfileImageSize.LARGE.url(user.get().getProfileImage()))
+                    .build();
+        }
+
+        public static ProjectUsers toUser(Membership membership) {
+            return ProjectUsers.builder()
+                    .id(membership.getUserId())
+                    .username(membership.getUsername())
+                    .email(membership.getEmail())
+                    .role(membership.getAccessLevel())
+                    .avatarUrl(ProfileImageSize.SMALL.url(membership.getProfileImage()))
+                    .profileImageUrl(ProfileImageSize.LARGE.url(membership.getProfileImage()))
                     .build();
         }
 
@@ -110,6 +191,8 @@ public class ProjectDto {
                     .username(sharedProject.getUser().getUsername())
                     .email(sharedProject.getUser().getEmail())
                     .role(sharedProject.getAccessLevel())
+                    .avatarUrl(ProfileImageSize.SMALL.url(sharedProject.getUser().getProfileImage()))
+                    .profileImageUrl(ProfileImageSize.LARGE.url(sharedProject.getUser().getProfileImage()))
                     .build();
         }
     }
@@ -119,6 +202,9 @@ public class ProjectDto {
     public static class ExportRequest {
         private Boolean includeGit;
         private String format;
+        private Integer compressionLevel;
+        private LocalDateTime changedSince;
+        private String sinceExportId;
     }
 
     @Data
@@ -126,9 +212,11 @@ public class ProjectDto {
     public static class ExportResponse {
         private String exportId;
         private String status;
+        private String format;
         private String downloadUrl;
         private String message;
         private Integer progress;
+        private LocalDateTime changedSince;
         private LocalDateTime createdAt;
     }
 
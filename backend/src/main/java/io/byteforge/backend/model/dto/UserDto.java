@@ -1,5 +1,6 @@
 package io.byteforge.backend.model.dto;
 
+import io.byteforge.backend.model.custom.ProfileImageSize;
 import io.byteforge.backend.model.entity.User;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -7,6 +8,7 @@ import jakarta.validation.constraints.Size;
 import lombok.Builder;
 import lombok.Data;
 
+import java.time.LocalDateTime;
 
 public class UserDto {
 
@@ -51,6 +53,7 @@ public class UserDto {
         private String email;
         private String created_at;
         private String profileImageUrl;
+        private String avatarUrl;
 
         public static Response toDto(User user) {
             return Response.builder()
@@ -58,10 +61,33 @@ public class UserDto {
                     .username(user.getUsername())
                     .email(user.getEmail())
                     .created_at(user.getCreatedAt().toString())
-                    .profileImageUrl(user.getProfileImage() != null ?
-                            "/api/users/" + user.getId() + "/profile-image" : null)
+                    .profileImageUrl(ProfileImageSize.LARGE.url(user.getProfileImage()))
+                    .avatarUrl(ProfileImageSize.SMALL.url(user.getProfileImage()))
                     .build();
         }
+
+        public static Response toDto(Profile profile) {
+            return Response.builder()
+                    .id(profile.getId())
+                    .username(profile.getUsername())
+                    .email(profile.getEmail())
+                    .created_at(profile.getCreatedAt().toString())
+                    .profileImageUrl(ProfileImageSize.LARGE.url(profile.getProfileImage()))
+                    .avatarUrl(ProfileImageSize.SMALL.url(profile.getProfileImage()))
+                    .build();
+        }
+    }
+
+    public interface Profile {
+        Long getId();
+
+        String getUsername();
+
+        String getEmail();
+
+        LocalDateTime getCreatedAt();
+
+        String getProfileImage();
     }
 
 }
@@ -0,0 +1,60 @@
+package io.byteforge.backend.model.entity;
+
+import io.byteforge.backend.model.custom.ExportStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity(name = "export_jobs")
+@Table(indexes = {
+        @Index(name = "idx_export_jobs_status", columnList = "status"),
+        @Index(name = "idx_export_jobs_expires_at", columnList = "expires_at")
+})
+@NoArgsConstructor
+public class ExportJob {
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 16)
+    private String format;
+
+    @Column(name = "include_git", nullable = false)
+    private boolean includeGit;
+
+    @Column(name = "compression_level")
+    private Integer compressionLevel;
+
+    @Column(name = "changed_since")
+    private LocalDateTime changedSince;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ExportStatus status;
+
+    private int progress;
+
+    @Column(length = 512)
+    private String message;
+
+    @Column(name = "artifact_key", length = 128)
+    private String artifactKey;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -2,6 +2,7 @@ package io.byteforge.backend.model.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -9,7 +10,9 @@ import java.util.List;
 
 @Data
 @Entity
-@Table(name = "projects")
+@Table(name = "projects", indexes = {
+        @Index(name = "idx_projects_owner_updated", columnList = "owner_id, updated_at DESC, id DESC")
+})
 public class Project {
 
     @Id
@@ -35,6 +38,19 @@ public class Project {
     @Column(name = "invite_token", unique = true)
     private String inviteToken;
 
+    // Chosen by the owner when the link is created; whoever follows the link cannot ask for more
+    @Column(name = "invite_role")
+    private String inviteRole;
+
+    // Maintained only by ProjectRepository.adjustFileStats, so saving a stale entity cannot roll them back
+    @ColumnDefault("0")
+    @Column(name = "file_count", nullable = false, insertable = false, updatable = false)
+    private Long fileCount = 0L;
+
+    @ColumnDefault("0")
+    @Column(name = "total_bytes", nullable = false, insertable = false, updatable = false)
+    private Long totalBytes = 0L;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id", nullable = false)
     private User owner;
@@ -11,7 +11,9 @@ import java.util.List;
 
 @Data
 @Entity
-@Table(name = "project_files")
+@Table(name = "project_files", indexes = {
+        @Index(name = "idx_project_files_project_updated_at", columnList = "project_id, updated_at")
+})
 @SQLRestriction("deleted = false")
 public class ProjectFile {
 
@@ -0,0 +1,33 @@
+package io.byteforge.backend.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+// A path that stopped existing while its row lived on, i.e. the old side of a rename or move
+@Data
+@Entity
+@Table(name = "project_path_tombstones", indexes = {
+        @Index(name = "idx_path_tombstones_project_removed_at", columnList = "project_id, removed_at")
+})
+public class ProjectPathTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Project project;
+
+    @Column(nullable = false)
+    private String path;
+
+    @Column(name = "removed_at", nullable = false)
+    private LocalDateTime removedAt;
+}
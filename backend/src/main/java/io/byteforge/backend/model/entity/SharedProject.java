@@ -7,7 +7,9 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "shared_project")
+@Table(name = "shared_project", indexes = {
+        @Index(name = "idx_shared_project_user_project", columnList = "user_id, project_id")
+})
 public class SharedProject {
 
     @Id
@@ -9,14 +9,22 @@ import java.time.Instant;
 
 @Data
 @Entity(name = "tokens")
+@Table(indexes = {
+        @Index(name = "uk_tokens_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_tokens_user_family", columnList = "user_id, family"),
+        @Index(name = "idx_tokens_expiry_date", columnList = "expiry_date")
+})
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // для JPA
 public class Token {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false)
-    private String token;
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+
+    @Column(nullable = false, length = 36)
+    private String family;
 
     @Column(nullable = false)
     private Instant expiryDate;
@@ -25,8 +33,9 @@ public class Token {
     @JoinColumn(name = "user_id")
     private User user;
 
-    public Token(String token, Instant expiryDate, User user) {
-        this.token = token;
+    public Token(String tokenHash, String family, Instant expiryDate, User user) {
+        this.tokenHash = tokenHash;
+        this.family = family;
         this.expiryDate = expiryDate;
         this.user = user;
     }
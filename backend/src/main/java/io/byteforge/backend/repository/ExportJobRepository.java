@@ -0,0 +1,25 @@
+package io.byteforge.backend.repository;
+
+import io.byteforge.backend.model.custom.ExportStatus;
+import io.byteforge.backend.model.entity.ExportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ExportJobRepository extends JpaRepository<ExportJob, String> {
+
+    List<ExportJob> findByStatusInOrderByCreatedAt(Collection<ExportStatus> statuses);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM export_jobs j WHERE j.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
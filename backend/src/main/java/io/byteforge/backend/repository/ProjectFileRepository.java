@@ -1,13 +1,20 @@
 package io.byteforge.backend.repository;
 
 import io.byteforge.backend.model.custom.FileType;
+import io.byteforge.backend.model.dto.FileDto;
 import io.byteforge.backend.model.entity.ProjectFile;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProjectFileRepository extends JpaRepository<ProjectFile, Long> {
@@ -16,6 +23,54 @@ public interface ProjectFileRepository extends JpaRepository<ProjectFile, Long>
 
     boolean existsProjectFileByProject_IdAndPathAndNameAndType(Long projectId, String path, String name, FileType type);
 
-    @Query("SELECT pf FROM ProjectFile pf LEFT JOIN FETCH pf.children WHERE pf.project.id = :projectId AND pf.deleted = false")
-    List<ProjectFile> findAllByProjectIdWithChildren(@Param("projectId") Long projectId);
+    boolean existsByProject_IdAndPath(Long projectId, String path);
+
+    @Query("SELECT pf.id, pf.path, pf.type FROM ProjectFile pf WHERE pf.project.id = :projectId")
+    List<Object[]> findPathEntriesByProjectId(@Param("projectId") Long projectId);
+
+    @Query("SELECT COUNT(pf) AS files, COALESCE(SUM(OCTET_LENGTH(pf.content)), 0) AS bytes " +
+            "FROM ProjectFile pf " +
+            "WHERE pf.project.id = :projectId AND (pf.path = :path OR pf.path LIKE :pattern ESCAPE '\\')")
+    FileDto.SubtreeStats sumSubtree(@Param("projectId") Long projectId,
+                                    @Param("path") String path,
+                                    @Param("pattern") String pattern);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProjectFile pf " +
+            "SET pf.path = CONCAT(:newPrefix, SUBSTRING(pf.path, :oldPrefixLength + 1)), pf.updatedAt = :now " +
+            "WHERE pf.project.id = :projectId AND pf.path LIKE :pattern ESCAPE '\\'")
+    int rewriteSubtreePaths(@Param("projectId") Long projectId,
+                            @Param("pattern") String pattern,
+                            @Param("oldPrefixLength") int oldPrefixLength,
+                            @Param("newPrefix") String newPrefix,
+                            @Param("now") LocalDateTime now);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "128"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT pf.path AS path, pf.type AS type, pf.content AS content, pf.updatedAt AS updatedAt " +
+            "FROM ProjectFile pf WHERE pf.project.id = :projectId ORDER BY pf.id")
+    Stream<FileDto.ExportEntry> streamExportEntries(@Param("projectId") Long projectId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "128"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT pf.path AS path, pf.type AS type, pf.content AS content, pf.updatedAt AS updatedAt " +
+            "FROM ProjectFile pf WHERE pf.project.id = :projectId AND pf.updatedAt >= :since ORDER BY pf.id")
+    Stream<FileDto.ExportEntry> streamExportEntriesChangedSince(@Param("projectId") Long projectId,
+                                                               @Param("since") LocalDateTime since);
+
+    // Native so the soft-delete restriction on the entity does not hide the tombstones
+    @Query(value = "SELECT path FROM project_files " +
+            "WHERE project_id = :projectId AND deleted = true AND updated_at >= :since", nativeQuery = true)
+    List<String> findPathsDeletedSince(@Param("projectId") Long projectId, @Param("since") LocalDateTime since);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "512"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT pf.id, pf.path, pf.type, pf.updatedAt FROM ProjectFile pf WHERE pf.project.id = :projectId ORDER BY pf.id")
+    Stream<Object[]> streamFingerprintRows(@Param("projectId") Long projectId);
 }
@@ -0,0 +1,44 @@
+package io.byteforge.backend.repository;
+
+import io.byteforge.backend.model.entity.ProjectPathTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ProjectPathTombstoneRepository extends JpaRepository<ProjectPathTombstone, Long> {
+
+    // Native so the whole subtree is copied in one statement, before its paths are rewritten
+    @Modifying
+    @Query(value = "INSERT INTO project_path_tombstones (project_id, path, removed_at) " +
+            "SELECT project_id, path, :now FROM project_files " +
+            "WHERE project_id = :projectId AND deleted = false AND (path = :path OR path LIKE :pattern ESCAPE '\\')",
+            nativeQuery = true)
+    int recordSubtree(@Param("projectId") Long projectId,
+                      @Param("path") String path,
+                      @Param("pattern") String pattern,
+                      @Param("now") LocalDateTime now);
+
+    @Query("SELECT t.path FROM ProjectPathTombstone t WHERE t.project.id = :projectId AND t.removedAt >= :since")
+    List<String> findPathsRemovedSince(@Param("projectId") Long projectId, @Param("since") LocalDateTime since);
+
+    // Incremental exports older than the retention horizon are refused, so nothing still reads these
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM project_path_tombstones
+            WHERE id IN (SELECT id FROM project_path_tombstones WHERE removed_at < :cutoff ORDER BY removed_at LIMIT :batchSize)
+            """, nativeQuery = true)
+    int deleteRemovedBeforeBatch(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ProjectPathTombstone t WHERE t.project.id = :projectId")
+    int deleteByProjectId(@Param("projectId") Long projectId);
+}
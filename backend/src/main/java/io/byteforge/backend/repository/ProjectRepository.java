@@ -1,30 +1,64 @@
 package io.byteforge.backend.repository;
 
+import io.byteforge.backend.config.CacheConfig;
+import io.byteforge.backend.model.dto.ProjectDto;
 import io.byteforge.backend.model.entity.Project;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProjectRepository extends JpaRepository<Project, Long> {
 
+    String SUMMARY_SELECT = "SELECT p.id AS id, p.title AS title, p.description AS description, " +
+            "p.createdAt AS createdAt, p.updatedAt AS updatedAt, p.owner.id AS ownerId, p.isPublic AS isPublic, " +
+            "p.fileCount AS fileCount, p.totalBytes AS totalBytes " +
+            "FROM Project p ";
+
+    String ACCESSIBLE_BY_USER = "WHERE (p.owner.id = :userId " +
+            "OR EXISTS (SELECT 1 FROM SharedProject sp WHERE sp.project = p AND sp.user.id = :userId)) ";
+
+    // Ownership never changes, so only deleteProject has to evict this
+    @Cacheable(cacheNames = CacheConfig.PROJECTS, key = "#p0", unless = "#result == null")
+    @Query("SELECT p.owner.id FROM Project p WHERE p.id = :projectId")
+    Optional<Long> findOwnerIdById(@Param("projectId") Long projectId);
+
     Optional<Project> findProjectsByInviteToken(String inviteToken);
 
+    @Query(SUMMARY_SELECT + "WHERE p.id = :projectId")
+    Optional<ProjectDto.Summary> findProjectSummaryById(@Param("projectId") Long projectId);
+
+    @Query("SELECT p.id AS id, p.owner.id AS ownerId, p.inviteRole AS inviteRole FROM Project p WHERE p.inviteToken = :token")
+    Optional<ProjectDto.Invite> findInviteByToken(@Param("token") String token);
+
     @Query("SELECT p FROM Project p LEFT JOIN FETCH p.owner WHERE p.id = :projectId AND p.owner.id = :userId")
     Optional<Project> findProjectByIdAndOwner(@Param("projectId") Long projectId, @Param("userId") Long userId);
 
-    @Query("SELECT COUNT(pf) FROM ProjectFile pf WHERE pf.project.id = :projectId")
-    Long countFilesByProjectId(@Param("projectId") Long projectId);
+    // Leaves updatedAt alone: file edits must not reorder the project list under a client paging through it
+    @Modifying
+    @Query("UPDATE Project p " +
+            "SET p.fileCount = p.fileCount + :files, p.totalBytes = p.totalBytes + :bytes " +
+            "WHERE p.id = :projectId")
+    int adjustFileStats(@Param("projectId") Long projectId,
+                        @Param("files") long files,
+                        @Param("bytes") long bytes);
+
+    @Query(SUMMARY_SELECT + ACCESSIBLE_BY_USER + "ORDER BY p.updatedAt DESC, p.id DESC")
+    List<ProjectDto.Summary> findProjectSummaries(@Param("userId") Long userId, Limit limit);
 
-    @Query("SELECT p, COUNT(pf) " +
-            "FROM Project p " +
-            "LEFT JOIN p.files pf " +
-            "LEFT JOIN p.sharedWithUsers su " +
-            "WHERE p.owner.id = :userId OR su.user.id = :userId " +
-            "GROUP BY p")
-    List<Object[]> findProjectsWithFileCountRaw(@Param("userId") Long userId);
+    @Query(SUMMARY_SELECT + ACCESSIBLE_BY_USER +
+            "AND (p.updatedAt < :updatedAt OR (p.updatedAt = :updatedAt AND p.id < :id)) " +
+            "ORDER BY p.updatedAt DESC, p.id DESC")
+    List<ProjectDto.Summary> findProjectSummariesAfter(@Param("userId") Long userId,
+                                                       @Param("updatedAt") LocalDateTime updatedAt,
+                                                       @Param("id") Long id,
+                                                       Limit limit);
 }
@@ -1,22 +1,41 @@
 package io.byteforge.backend.repository;
 
+import io.byteforge.backend.config.CacheConfig;
+import io.byteforge.backend.model.dto.ProjectDto;
 import io.byteforge.backend.model.entity.Project;
 import io.byteforge.backend.model.entity.SharedProject;
 import io.byteforge.backend.model.entity.User;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 
 @Repository
 public interface SharedProjectRepository extends JpaRepository<SharedProject, Long> {
 
+    @EntityGraph(attributePaths = "user")
     List<SharedProject> findSharedProjectByProject(Project project);
 
     SharedProject findSharedProjectByProject_Id(Long projectId);
 
     SharedProject findSharedProjectByUser_Id(Long userId);
 
+    Optional<SharedProject> findSharedProjectByProject_IdAndUser_Id(Long projectId, Long userId);
+
+    boolean existsByProject_IdAndUser_Id(Long projectId, Long userId);
+
+    @Cacheable(cacheNames = CacheConfig.MEMBERSHIPS, key = "#p0")
+    @Query("SELECT u.id AS userId, u.username AS username, u.email AS email, sp.accessLevel AS accessLevel, " +
+            "u.profileImage AS profileImage " +
+            "FROM SharedProject sp JOIN sp.user u " +
+            "WHERE sp.project.id = :projectId")
+    List<ProjectDto.Membership> findMembershipsByProjectId(@Param("projectId") Long projectId);
+
     Long user(User user);
 }
@@ -2,13 +2,39 @@ package io.byteforge.backend.repository;
 
 import io.byteforge.backend.model.entity.Token;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 
 @Repository
 public interface TokenRepository extends JpaRepository<Token, Long> {
-    Optional<Token> findByToken(String token);
 
-    Optional<Token> findByUser_Id(Long userId);
+    @Query("SELECT t FROM tokens t JOIN FETCH t.user WHERE t.tokenHash = :tokenHash")
+    Optional<Token> findByTokenHash(@Param("tokenHash") String tokenHash);
+
+    // Conditional on the old hash, so of two concurrent rotations exactly one matches
+    @Modifying
+    @Query("UPDATE tokens t SET t.tokenHash = :newHash, t.expiryDate = :expiryDate WHERE t.tokenHash = :oldHash")
+    int rotate(@Param("oldHash") String oldHash, @Param("newHash") String newHash, @Param("expiryDate") Instant expiryDate);
+
+    @Modifying
+    @Query("DELETE FROM tokens t WHERE t.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    @Modifying
+    @Query("DELETE FROM tokens t WHERE t.user.id = :userId AND t.family = :family")
+    int deleteFamily(@Param("userId") Long userId, @Param("family") String family);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM tokens
+            WHERE id IN (SELECT id FROM tokens WHERE expiry_date < :now ORDER BY expiry_date LIMIT :batchSize)
+            """, nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") Instant now, @Param("batchSize") int batchSize);
 }
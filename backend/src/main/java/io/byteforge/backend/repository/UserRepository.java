@@ -1,13 +1,26 @@
 package io.byteforge.backend.repository;
 
+import io.byteforge.backend.config.CacheConfig;
+import io.byteforge.backend.model.dto.UserDto;
 import io.byteforge.backend.model.entity.User;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    // Read-only projection; writes go through findById so nothing cached is ever a managed entity
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#p0", unless = "#result == null")
+    @Query("SELECT u.id AS id, u.username AS username, u.email AS email, u.createdAt AS createdAt, " +
+            "u.profileImage AS profileImage " +
+            "FROM User u WHERE u.id = :id")
+    Optional<UserDto.Profile> findProfileById(@Param("id") Long id);
+
     Optional<User> findByEmail(String email);
 
     Optional<User> findByUsername(String username);
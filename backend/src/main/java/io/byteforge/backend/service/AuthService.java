@@ -5,21 +5,24 @@ import io.byteforge.backend.exceptions.InvalidPasswordException;
 import io.byteforge.backend.exceptions.UserAlreadyExistsException;
 import io.byteforge.backend.exceptions.UserNotFoundException;
 import io.byteforge.backend.model.dto.UserDto;
-import io.byteforge.backend.model.entity.Token;
 import io.byteforge.backend.model.entity.User;
-import io.byteforge.backend.repository.TokenRepository;
 import io.byteforge.backend.repository.UserRepository;
 import io.byteforge.backend.service.tokens.CookieService;
 import io.byteforge.backend.service.tokens.JwtService;
+import io.byteforge.backend.service.tokens.RefreshTokenService;
+import io.byteforge.backend.service.tokens.TokenFamilyRevokedEvent;
+import io.byteforge.backend.service.tokens.UserTokensRevokedEvent;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
 import java.util.Optional;
 
 @Service
@@ -30,8 +33,9 @@ public class AuthService {
     private final JwtService jwtService;
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
-    private final TokenRepository tokenRepository;
+    private final RefreshTokenService refreshTokenService;
     private final CookieService cookieService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ResponseEntity<UserDto.Response> signUp(UserDto.Create requestUser, HttpServletResponse response) {
         Optional<User> existingUser = userRepository.findByEmail(requestUser.getEmail());
@@ -47,7 +51,7 @@ public class AuthService {
 
         UserDto.Response createdUser = UserDto.Response.toDto(userRepository.save(user));
 
-        cookieService.setCookieInResponse(response, createdUser.getId());
+        cookieService.setCookieInResponse(response, createdUser.getId(), createdUser.getUsername());
 
         return ResponseEntity.status(HttpServletResponse.SC_CREATED).body(createdUser);
     }
@@ -65,7 +69,7 @@ public class AuthService {
         }
 
         UserDto.Response responseUser = UserDto.Response.toDto(user);
-        cookieService.setCookieInResponse(response, responseUser.getId());
+        cookieService.setCookieInResponse(response, responseUser.getId(), responseUser.getUsername());
 
         return ResponseEntity.status(HttpServletResponse.SC_OK).body(responseUser);
     }
@@ -77,9 +81,21 @@ public class AuthService {
             throw new AuthenticationException("Refresh token not found");
         }
 
-        Token storedToken = tokenRepository.findByToken(refreshToken)
-                .orElseThrow(() -> new AuthenticationException("Invalid refresh token"));
-        tokenRepository.delete(storedToken);
+        if (!refreshTokenService.revoke(refreshToken)) {
+            throw new AuthenticationException("Invalid refresh token");
+        }
+
+        // Only this device's session; refresh tokens minted before families existed fall back to every session of the user.
+        // Parsed rather than verified, so the refresh token never lands in the access-token cache
+        try {
+            Claims claims = jwtService.parseClaims(refreshToken);
+            String family = claims.get(JwtService.FAMILY_CLAIM, String.class);
+            eventPublisher.publishEvent(family != null
+                    ? new TokenFamilyRevokedEvent(family)
+                    : new UserTokensRevokedEvent(Long.parseLong(claims.getSubject())));
+        } catch (JwtException | IllegalArgumentException e) {
+            log.warn("Signed out with an unreadable refresh token: {}", e.getMessage());
+        }
 
         cookieService.removeTokenCookie(response, "ACCESS_TOKEN");
         cookieService.removeTokenCookie(response, "REFRESH_TOKEN");
@@ -96,25 +112,13 @@ public class AuthService {
             throw new AuthenticationException("Refresh token not found");
         }
 
-        Long userId = jwtService.getUserIdFromToken(refreshToken);
-
-        Token storedToken = tokenRepository.findByToken(refreshToken)
-                .orElseThrow(() -> new AuthenticationException("Invalid refresh token"));
-
-        if (storedToken.getExpiryDate().isBefore(Instant.now())) {
-            tokenRepository.delete(storedToken);
-            throw new AuthenticationException("Refresh token expired");
-        }
-
-        if (!jwtService.validateToken(refreshToken)) {
-            tokenRepository.delete(storedToken);
-            throw new AuthenticationException("Invalid refresh token signature");
-        }
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
 
         log.info("Start creating new refresh token");
 
-        cookieService.setCookieInResponse(response, userId);
-        tokenRepository.delete(storedToken);
+        cookieService.setTokenCookies(response,
+                jwtService.generateAccessToken(rotation.userId(), rotation.username(), rotation.family()),
+                rotation.refreshToken());
 
         log.info("End of function refresh()");
 
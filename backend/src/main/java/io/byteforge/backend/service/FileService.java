@@ -5,14 +5,26 @@ import io.byteforge.backend.model.dto.FileDto;
 import io.byteforge.backend.model.entity.Project;
 import io.byteforge.backend.model.entity.ProjectFile;
 import io.byteforge.backend.repository.ProjectFileRepository;
+import io.byteforge.backend.repository.ProjectPathTombstoneRepository;
 import io.byteforge.backend.repository.ProjectRepository;
+import io.byteforge.backend.service.diagnostics.FileSaveEvent;
+import io.byteforge.backend.service.index.PathTrie;
+import io.byteforge.backend.service.index.ProjectPathIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.apache.coyote.BadRequestException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjLongConsumer;
 
 @Service
 @RequiredArgsConstructor
@@ -20,6 +32,9 @@ public class FileService {
 
     private final ProjectFileRepository projectFileRepository;
     private final ProjectRepository projectRepository;
+    private final ProjectPathTombstoneRepository tombstoneRepository;
+    private final ProjectPathIndex pathIndex;
+    private final MeterRegistry meterRegistry;
 
     public ResponseEntity<?> getFiles(Long projectId) throws BadRequestException {
         if (!projectRepository.existsById(projectId)) {
@@ -35,7 +50,47 @@ public class FileService {
         return ResponseEntity.ok(response);
     }
 
+    @Transactional
     public FileDto.Response createFile(Long projectId, String fileName, String filePath, String type, Long parentId) throws BadRequestException {
+        PathTrie trie = pathIndex.get(projectId);
+        if (trie == null) {
+            return createFileWithoutIndex(projectId, fileName, filePath, type, parentId);
+        }
+
+        FileType fileType = FileType.valueOf(type);
+
+        ProjectFile newFile = new ProjectFile();
+        newFile.setName(fileName);
+        newFile.setPath(filePath);
+        newFile.setType(fileType);
+        newFile.setProject(projectRepository.getReferenceById(projectId));
+
+        if (parentId != 0) {
+            PathTrie.Entry parent = trie.resolve(parentId);
+            if (parent == null || parent.type() != FileType.FOLDER) {
+                throw new BadRequestException("Parent folder not found");
+            }
+            newFile.setParent(projectFileRepository.getReferenceById(parentId));
+        }
+
+        if (!trie.reserve(filePath, fileType)) {
+            throw new BadRequestException("File/folder with this path already exists");
+        }
+
+        ProjectFile savedFile;
+        try {
+            savedFile = projectFileRepository.save(newFile);
+            adjustFileStats(projectId, 1, contentBytes(savedFile.getContent()));
+        } catch (RuntimeException e) {
+            trie.release(filePath);
+            throw e;
+        }
+
+        onCompletion(() -> trie.commit(filePath, savedFile.getId()), () -> trie.release(filePath));
+        return FileDto.Response.toDto(savedFile);
+    }
+
+    private FileDto.Response createFileWithoutIndex(Long projectId, String fileName, String filePath, String type, Long parentId) throws BadRequestException {
         Project existingProject = projectRepository.findById(projectId)
                 .orElseThrow(() -> new BadRequestException("Project not exists"));
 
@@ -55,24 +110,218 @@ public class FileService {
             throw new BadRequestException("File/folder with this path already exists");
         }
 
-        return FileDto.Response.toDto(projectFileRepository.save(newFile));
+        ProjectFile savedFile = projectFileRepository.save(newFile);
+        adjustFileStats(projectId, 1, contentBytes(savedFile.getContent()));
+
+        return FileDto.Response.toDto(savedFile);
     }
 
+    @Transactional
     public ResponseEntity<FileDto.Response> updateFile(Long fileId, String fileData) throws BadRequestException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        FileSaveEvent event = new FileSaveEvent();
+        event.begin();
         ProjectFile existingFile = projectFileRepository.findById(fileId)
                 .orElseThrow(() -> new BadRequestException("File not exists"));
 
+        long contentBytes = contentBytes(fileData);
+        long bytesDelta = contentBytes - contentBytes(existingFile.getContent());
         existingFile.setContent(fileData);
 
-        return ResponseEntity.ok(FileDto.Response.toDto(projectFileRepository.save(existingFile)));
+        ProjectFile savedFile = projectFileRepository.save(existingFile);
+        Long projectId = savedFile.getProject().getId();
+        adjustFileStats(projectId, 0, bytesDelta);
+        timeCommit(sample, "byteforge.file.save",
+                (outcome, commitNanos) -> event.finish(projectId, fileId, contentBytes, outcome, commitNanos));
+
+        return ResponseEntity.ok(FileDto.Response.toDto(savedFile));
     }
 
-    public void renameFile(Long fileId, String name) throws BadRequestException {
+    @Transactional
+    public FileDto.SubtreeMove renameFile(Long fileId, String name) throws BadRequestException {
+        requireValidName(name);
         ProjectFile existingFile = projectFileRepository.findById(fileId)
                 .orElseThrow(() -> new BadRequestException("File not exists"));
 
+        String oldPath = existingFile.getPath();
+        String newPath = childPath(parentPathOf(oldPath), name);
+
         existingFile.setName(name);
-        projectFileRepository.save(existingFile);
+        return relocate(existingFile, oldPath, newPath);
+    }
+
+    @Transactional
+    public FileDto.SubtreeMove moveFile(Long fileId, Long newParentId) throws BadRequestException {
+        ProjectFile existingFile = projectFileRepository.findById(fileId)
+                .orElseThrow(() -> new BadRequestException("File not exists"));
+
+        String oldPath = existingFile.getPath();
+        ProjectFile newParent = null;
+
+        if (newParentId != null && newParentId != 0) {
+            newParent = projectFileRepository.findById(newParentId)
+                    .orElseThrow(() -> new BadRequestException("Parent folder not found"));
+
+            if (newParent.getType() != FileType.FOLDER
+                    || !newParent.getProject().getId().equals(existingFile.getProject().getId())) {
+                throw new BadRequestException("Target is not a folder of this project");
+            }
+            if (newParent.getId().equals(fileId) || newParent.getPath().startsWith(oldPath + "/")) {
+                throw new BadRequestException("Folder cannot be moved into itself");
+            }
+        }
+
+        existingFile.setParent(newParent);
+        String newPath = childPath(newParent != null ? newParent.getPath() : "", existingFile.getName());
+
+        return relocate(existingFile, oldPath, newPath);
+    }
+
+    private FileDto.SubtreeMove relocate(ProjectFile file, String oldPath, String newPath) throws BadRequestException {
+        Long projectId = file.getProject().getId();
+        PathTrie trie = pathIndex.get(projectId);
+
+        boolean pathChanged = !newPath.equals(oldPath);
+        if (pathChanged && (trie != null
+                ? !trie.reserve(newPath, file.getType())
+                : projectFileRepository.existsByProject_IdAndPath(projectId, newPath))) {
+            throw new BadRequestException("File/folder with this path already exists");
+        }
+
+        int affected = 1;
+        try {
+            // The rows keep their ids, so incremental exports learn about the old paths from tombstones
+            if (pathChanged) {
+                tombstoneRepository.recordSubtree(projectId, oldPath, escapeLike(oldPath + "/") + "%", LocalDateTime.now());
+            }
+
+            file.setPath(newPath);
+            projectFileRepository.save(file);
+
+            if (file.getType() == FileType.FOLDER && pathChanged) {
+                affected += projectFileRepository.rewriteSubtreePaths(
+                        projectId,
+                        escapeLike(oldPath + "/") + "%",
+                        oldPath.length(),
+                        newPath,
+                        LocalDateTime.now());
+            }
+        } catch (RuntimeException e) {
+            if (trie != null && pathChanged) {
+                trie.release(newPath);
+            }
+            throw e;
+        }
+
+        Long parentId = file.getParent() != null ? file.getParent().getId() : null;
+        if (trie != null) {
+            onCompletion(() -> {
+                if (!trie.move(file.getId(), parentId, file.getName())) {
+                    pathIndex.invalidate(projectId);
+                }
+            }, () -> {
+                if (pathChanged) {
+                    trie.release(newPath);
+                }
+            });
+        }
+
+        return FileDto.SubtreeMove.builder()
+                .fileId(file.getId())
+                .name(file.getName())
+                .type(file.getType())
+                .parentId(parentId)
+                .oldPath(oldPath)
+                .newPath(newPath)
+                .affected(affected)
+                .build();
+    }
+
+    private void onCompletion(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    onCommit.run();
+                } else if (onRollback != null) {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+
+    // The flush happens at commit, after the method returned, so both timers stop in afterCompletion
+    private void timeCommit(Timer.Sample sample, String name, ObjLongConsumer<String> onCompletion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            sample.stop(commitTimer(name, "committed"));
+            onCompletion.accept("committed", 0);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long commitStartedAt;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commitStartedAt = System.nanoTime();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                String outcome = status == STATUS_COMMITTED ? "committed" : "rolled_back";
+                sample.stop(commitTimer(name, outcome));
+                long commitNanos = commitStartedAt != 0 ? System.nanoTime() - commitStartedAt : 0;
+                if (commitStartedAt != 0) {
+                    commitTimer(name + ".flush", outcome).record(commitNanos, TimeUnit.NANOSECONDS);
+                }
+                onCompletion.accept(outcome, commitNanos);
+            }
+        });
+    }
+
+    private Timer commitTimer(String name, String outcome) {
+        return Timer.builder(name)
+                .description("File persistence latency including the transaction commit")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // A save that keeps the size the same has nothing to write, so it doesn't lock the project row
+    private void adjustFileStats(Long projectId, long files, long bytes) {
+        if (files != 0 || bytes != 0) {
+            projectRepository.adjustFileStats(projectId, files, bytes);
+        }
+    }
+
+    private long contentBytes(String content) {
+        return content != null ? content.getBytes(StandardCharsets.UTF_8).length : 0;
+    }
+
+    private String parentPathOf(String path) {
+        int lastSlash = path.lastIndexOf('/');
+        return lastSlash == -1 ? "" : path.substring(0, lastSlash);
+    }
+
+    // The name becomes one segment of every descendant's path, so it must not add, drop or climb a level
+    private void requireValidName(String name) throws BadRequestException {
+        if (name == null || name.isBlank() || name.equals(".") || name.equals("..") || name.contains("/")) {
+            throw new BadRequestException("Invalid file name");
+        }
+    }
+
+    private String childPath(String parentPath, String name) {
+        return parentPath.isEmpty() ? name : parentPath + "/" + name;
+    }
+
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
     }
 
     @Transactional
@@ -80,9 +329,19 @@ public class FileService {
         ProjectFile existingFile = projectFileRepository.findById(fileId)
                 .orElseThrow(() -> new BadRequestException("File not exists"));
 
+        Long projectId = existingFile.getProject().getId();
+        FileDto.SubtreeStats removed = projectFileRepository.sumSubtree(
+                projectId, existingFile.getPath(), escapeLike(existingFile.getPath() + "/") + "%");
+
         existingFile.softDelete();
 
         projectFileRepository.save(existingFile);
+        adjustFileStats(projectId, -removed.getFiles(), -removed.getBytes());
+
+        PathTrie trie = pathIndex.get(projectId);
+        if (trie != null) {
+            onCompletion(() -> trie.remove(fileId), null);
+        }
 
         ResponseEntity.noContent().build();
     }
@@ -0,0 +1,126 @@
+package io.byteforge.backend.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.byteforge.backend.model.dto.ProjectDto;
+import io.byteforge.backend.repository.ProjectRepository;
+import io.byteforge.backend.repository.SharedProjectRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Service
+@Slf4j
+public class ProjectAccessService {
+
+    public static final String OWNER_ROLE = "OWNER";
+    public static final String VIEWER_ROLE = "VIEWER";
+
+    public enum Permission {
+        VIEW,
+        EDIT,
+        MANAGE
+    }
+
+    private record ProjectAcl(Long ownerId, Map<Long, String> roles) {
+
+        String roleOf(Long userId) {
+            return ownerId.equals(userId) ? OWNER_ROLE : roles.get(userId);
+        }
+
+        ProjectAcl with(Long userId, String role) {
+            Map<Long, String> updated = new HashMap<>(roles);
+            if (role == null) {
+                updated.remove(userId);
+            } else {
+                updated.put(userId, role);
+            }
+            return new ProjectAcl(ownerId, Map.copyOf(updated));
+        }
+    }
+
+    private final ProjectRepository projectRepository;
+    private final SharedProjectRepository sharedProjectRepository;
+    private final LoadingCache<Long, ProjectAcl> acls;
+
+    public ProjectAccessService(ProjectRepository projectRepository,
+                                SharedProjectRepository sharedProjectRepository,
+                                @Value("${cache.project-access.max-size:10000}") long maxSize,
+                                @Value("${cache.project-access.ttl:5m}") Duration ttl) {
+        this.projectRepository = projectRepository;
+        this.sharedProjectRepository = sharedProjectRepository;
+        this.acls = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                // Write-based so a busy project still rereads its memberships from the database now and then
+                .expireAfterWrite(ttl)
+                .build(this::load);
+    }
+
+    public String roleOf(Long projectId, Long userId) {
+        if (projectId == null || userId == null) {
+            return null;
+        }
+
+        ProjectAcl acl = acls.get(projectId);
+        return acl != null ? acl.roleOf(userId) : null;
+    }
+
+    public boolean can(Long projectId, Long userId, Permission permission) {
+        if (projectId == null || userId == null) {
+            return false;
+        }
+
+        ProjectAcl acl = acls.get(projectId);
+        String role = acl != null ? acl.roleOf(userId) : null;
+        if (role == null) {
+            return false;
+        }
+
+        // Only the owner manages; a membership row that says OWNER is still just a contributor
+        return switch (permission) {
+            case VIEW -> true;
+            case EDIT -> !VIEWER_ROLE.equals(role);
+            case MANAGE -> acl.ownerId().equals(userId);
+        };
+    }
+
+    public void check(Long projectId, Long userId, Permission permission) {
+        if (!can(projectId, userId, permission)) {
+            log.warn("Access denied - User: {}, Project: {}, Permission: {}", userId, projectId, permission);
+            throw new AccessDeniedException("You do not have " + permission.name().toLowerCase() + " access to this project");
+        }
+    }
+
+    public void grant(Long projectId, Long userId, String role) {
+        acls.asMap().computeIfPresent(projectId, (id, acl) -> acl.with(userId, roleOrViewer(role)));
+    }
+
+    public void revoke(Long projectId, Long userId) {
+        acls.asMap().computeIfPresent(projectId, (id, acl) -> acl.with(userId, null));
+    }
+
+    public void forget(Long projectId) {
+        acls.invalidate(projectId);
+    }
+
+    private static String roleOrViewer(String role) {
+        return role != null ? role : VIEWER_ROLE;
+    }
+
+    private ProjectAcl load(Long projectId) {
+        return projectRepository.findOwnerIdById(projectId)
+                .map(ownerId -> {
+                    Map<Long, String> roles = new HashMap<>();
+                    for (ProjectDto.Membership membership : sharedProjectRepository.findMembershipsByProjectId(projectId)) {
+                        roles.put(membership.getUserId(), roleOrViewer(membership.getAccessLevel()));
+                    }
+                    return new ProjectAcl(ownerId, Map.copyOf(roles));
+                })
+                .orElse(null);
+    }
+}
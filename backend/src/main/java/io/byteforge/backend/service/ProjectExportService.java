@@ -1,273 +1,443 @@
 package io.byteforge.backend.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import io.byteforge.backend.model.dto.ExportTask;
+import io.byteforge.backend.exceptions.ExportLimitExceededException;
+import io.byteforge.backend.model.custom.ExportFormat;
+import io.byteforge.backend.model.custom.ExportStatus;
 import io.byteforge.backend.model.dto.ProjectDto;
+import io.byteforge.backend.model.entity.ExportJob;
 import io.byteforge.backend.model.entity.Project;
-import io.byteforge.backend.model.entity.ProjectFile;
-import io.byteforge.backend.repository.ProjectFileRepository;
+import io.byteforge.backend.repository.ExportJobRepository;
+import io.byteforge.backend.repository.ProjectPathTombstoneRepository;
 import io.byteforge.backend.repository.ProjectRepository;
+import io.byteforge.backend.service.concurrency.Bulkhead;
+import io.byteforge.backend.service.export.ExportArtifactCache;
+import io.byteforge.backend.service.export.ExportProgressPublisher;
+import io.byteforge.backend.service.export.ProjectArchiveWriter;
+import io.byteforge.backend.service.export.RangedFileResponder;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.UncheckedIOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ProjectExportService {
 
+    private static final List<ExportStatus> UNFINISHED = List.of(ExportStatus.QUEUED, ExportStatus.PROCESSING);
+
     private final ProjectRepository projectRepository;
-    private final ProjectFileRepository projectFileRepository;
+    private final ExportJobRepository exportJobRepository;
+    private final ProjectPathTombstoneRepository tombstoneRepository;
+    private final ProjectArchiveWriter archiveWriter;
+    private final ExportArtifactCache artifactCache;
+    private final ExportProgressPublisher progressPublisher;
+    private final RangedFileResponder fileResponder;
+    private final MeterRegistry meterRegistry;
 
-    private final Map<String, ExportTask> exportTasks = new ConcurrentHashMap<>();
+    @Value("${export.jobs.workers:2}")
+    private int workers;
 
-    public ProjectDto.ExportResponse startExport(Long projectId, ProjectDto.ExportRequest request, Long userId) {
-        String exportId = "export_" + System.currentTimeMillis() + "_" + UUID.randomUUID().toString().substring(0, 8);
-
-        ExportTask task = ExportTask.create(exportId, projectId, userId, request);
-        exportTasks.put(exportId, task);
-
-        CompletableFuture.runAsync(() -> {
-            try {
-                processExport(task);
-            } catch (Exception e) {
-                log.error("Export failed for task: {}", task.getExportId(), e);
-                task.setStatus("FAILED");
-                task.setMessage("Export failed: " + e.getMessage());
-            }
-        });
+    @Value("${export.jobs.queue-capacity:32}")
+    private int queueCapacity;
 
-        return ProjectDto.ExportResponse.builder()
-                .exportId(exportId)
-                .status("PROCESSING")
-                .progress(0)
-                .createdAt(LocalDateTime.now())
-                .build();
-    }
+    @Value("${export.jobs.per-user-limit:2}")
+    private int perUserLimit;
 
-    public ProjectDto.ExportResponse getExportStatus(String exportId) {
-        ExportTask task = exportTasks.get(exportId);
-        if (task == null) {
-            throw new RuntimeException("Export task not found");
-        }
+    @Value("${export.jobs.ttl:1h}")
+    private Duration jobTtl;
 
-        return ProjectDto.ExportResponse.builder()
-                .exportId(exportId)
-                .status(task.getStatus())
-                .progress(task.getProgress())
-                .message(task.getMessage())
-                .downloadUrl(task.getArchivePath() != null ?
-                        "/api/projects/export/download/" + exportId : null)
-                .createdAt(task.getCreatedAt())
-                .build();
-    }
+    @Value("${export.stream.permits:2}")
+    private int streamPermits;
 
-    public ResponseEntity<Resource> downloadExport(String exportId) {
-        try {
-            ExportTask task = exportTasks.get(exportId);
-            if (task == null || !"COMPLETED".equals(task.getStatus())) {
-                throw new RuntimeException("Export not available");
-            }
+    @Value("${export.stream.queue-capacity:0}")
+    private int streamQueueCapacity;
 
-            Resource resource = new FileSystemResource(task.getArchivePath());
-            String filename = "project_export_" + task.getProjectId() + "." + task.getRequest().getFormat().toLowerCase();
+    // How far back an incremental export can reach; the old paths of renames and moves are kept this long
+    @Value("${export.tombstones.retention:30d}")
+    private Duration tombstoneRetention;
 
-            exportTasks.remove(exportId);
+    @Value("${export.tombstones.purge-batch-size:1000}")
+    private int tombstonePurgeBatchSize;
 
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .body(resource);
+    private Bulkhead exportJobs;
+    private Bulkhead exportStreams;
+    private final Map<Long, Integer> activeJobsByUser = new ConcurrentHashMap<>();
 
-        } catch (Exception e) {
-            throw new RuntimeException("Download failed: " + e.getMessage());
+    @PostConstruct
+    public void init() {
+        // Jobs mostly wait on JDBC streaming and disk writes; the deflating itself runs on the archive writer's pool
+        exportJobs = new Bulkhead("export", workers, queueCapacity, meterRegistry);
+        // A stream keeps its read transaction, and so a pooled connection, until the client has downloaded everything
+        exportStreams = new Bulkhead("export-stream", streamPermits, streamQueueCapacity, meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        exportJobs.close();
+        exportStreams.close();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        List<ExportJob> unfinished = exportJobRepository.findByStatusInOrderByCreatedAt(UNFINISHED);
+        for (ExportJob job : unfinished) {
+            activeJobsByUser.merge(job.getUserId(), 1, Integer::sum);
+            update(job, ExportStatus.QUEUED, 0, "Re-queued after restart");
+            submit(job);
+        }
+
+        if (!unfinished.isEmpty()) {
+            log.info("Resumed {} unfinished export job(s)", unfinished.size());
         }
     }
 
-    private void processExport(ExportTask task) {
-        try {
-            Project project = projectRepository.findById(task.getProjectId())
-                    .orElseThrow(() -> new RuntimeException("Project not found"));
+    public ProjectDto.ExportResponse startExport(Long projectId, ProjectDto.ExportRequest request, Long userId) {
+        Project project = projectRepository.findById(projectId)
+                .orElseThrow(() -> new RuntimeException("Project not found"));
+        ProjectDto.ExportRequest normalized = normalize(projectId, request);
+
+        LocalDateTime now = LocalDateTime.now();
+        ExportJob job = new ExportJob();
+        job.setId("export_" + System.currentTimeMillis() + "_" + UUID.randomUUID().toString().substring(0, 8));
+        job.setProjectId(projectId);
+        job.setUserId(userId);
+        job.setFormat(normalized.getFormat());
+        job.setIncludeGit(normalized.getIncludeGit());
+        job.setCompressionLevel(normalized.getCompressionLevel());
+        job.setChangedSince(normalized.getChangedSince());
+        job.setArtifactKey(artifactKey(archiveWriter.contentDigest(project), normalized));
+        job.setCreatedAt(now);
+
+        if (artifactCache.get(job.getArtifactKey()) != null) {
+            log.info("Serving export {} for project {} from cache", job.getId(), projectId);
+            return update(job, ExportStatus.COMPLETED, 100, "Export completed");
+        }
 
-            task.updateProgress(25, "Collecting files...");
-            List<ProjectFile> allFiles = getAllProjectFilesWithChildren(task.getProjectId());
+        acquireSlot(userId);
+        ProjectDto.ExportResponse queued = update(job, ExportStatus.QUEUED, 0, "Waiting for a free export worker");
+        if (!submit(job)) {
+            throw new ExportLimitExceededException("Export queue is full, please try again later");
+        }
+        return queued;
+    }
 
-            task.updateProgress(50, "Filtering files...");
-            List<ProjectFile> filesToExport = filterFiles(allFiles, task.getRequest());
+    public ProjectDto.ExportResponse getExportStatus(Long projectId, String exportId) {
+        return toResponse(findJob(projectId, exportId));
+    }
 
-            task.updateProgress(75, "Creating archive...");
-            Path archiveFile = createArchive(project, filesToExport, task.getRequest().getFormat());
+    public SseEmitter subscribe(Long projectId, String exportId) {
+        findJob(projectId, exportId);
+        return progressPublisher.subscribe(exportId, () -> toResponse(findJob(projectId, exportId)));
+    }
 
-            task.updateProgress(100, "Export completed");
-            task.setArchivePath(archiveFile.toString());
-            task.setStatus("COMPLETED");
+    public void downloadExport(Long projectId, String exportId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ExportJob job = findJob(projectId, exportId);
+        if (job.getStatus() != ExportStatus.COMPLETED) {
+            throw new IllegalArgumentException("Export is not ready yet");
+        }
 
-        } catch (Exception e) {
-            log.error("Export failed for task: {}", task.getExportId(), e);
-            task.setStatus("FAILED");
-            task.setMessage("Export failed: " + e.getMessage());
+        ExportArtifactCache.Artifact artifact = artifactCache.get(job.getArtifactKey());
+        if (artifact == null) {
+            throw new IllegalArgumentException("Export has expired, please start a new one");
         }
-    }
 
-    @Transactional
-    public List<ProjectFile> getAllProjectFilesWithChildren(Long projectId) {
-        List<ProjectFile> allFiles = projectFileRepository.findAllByProjectIdWithChildren(projectId);
+        // Every (resumed) download keeps the job around for another TTL
+        job.setExpiresAt(LocalDateTime.now().plus(jobTtl));
+        exportJobRepository.save(job);
+
+        ExportFormat format = ExportFormat.from(job.getFormat());
+        fileResponder.send(new RangedFileResponder.FileDescriptor(
+                artifact.path(),
+                artifact.size(),
+                artifact.etag(),
+                artifact.createdAt(),
+                format.getContentType(),
+                "project_export_" + job.getProjectId() + "." + format.getExtension()), request, response);
+    }
 
-        for (ProjectFile file : allFiles) {
-            if (file.getChildren() != null) {
-                file.getChildren().size();
+    public ResponseEntity<StreamingResponseBody> streamExport(Long projectId, ProjectDto.ExportRequest request) {
+        Project project = projectRepository.findById(projectId)
+                .orElseThrow(() -> new RuntimeException("Project not found"));
+        ProjectDto.ExportRequest normalized = normalize(projectId, request);
+        ExportFormat format = ExportFormat.from(normalized.getFormat());
+        String fileName = archiveFileName(project, format.getExtension());
+
+        // Taken before the response starts so a full house is still a 429; the body gives it back once written
+        Bulkhead.Permit permit = acquireStreamPermit();
+
+        StreamingResponseBody body = out -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try (permit) {
+                ProjectArchiveWriter.ArchiveStats stats = archiveWriter.write(project, normalized, out);
+                recordExport(sample, "stream", format, "success", stats);
+                log.info("Streamed {} export for project {}: {} files, {} bytes", format, projectId, stats.files(), stats.bytes());
+            } catch (IOException | RuntimeException e) {
+                recordExport(sample, "stream", format, "failure", null);
+                throw e;
             }
+        };
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .body(body);
+    }
+
+    private Bulkhead.Permit acquireStreamPermit() {
+        try {
+            return exportStreams.acquire();
+        } catch (RejectedExecutionException e) {
+            throw new ExportLimitExceededException("Too many exports are streaming right now, please try again later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExportLimitExceededException("Export stream was interrupted while waiting for a slot");
         }
+    }
 
-        return allFiles;
+    @Scheduled(fixedDelayString = "${export.jobs.reap-interval:300000}")
+    public void reapExpiredJobs() {
+        int reaped = exportJobRepository.deleteExpired(LocalDateTime.now());
+        if (reaped > 0) {
+            log.info("Reaped {} expired export job(s)", reaped);
+        }
     }
 
-    private List<ProjectFile> filterFiles(List<ProjectFile> allFiles, ProjectDto.ExportRequest request) {
-        return allFiles.stream()
-                .filter(file -> {
-                    if (file.getType() == io.byteforge.backend.model.custom.FileType.FOLDER) {
-                        return true;
-                    }
+    @Scheduled(fixedDelayString = "${export.tombstones.purge-interval:3600000}",
+               initialDelayString = "${export.tombstones.purge-initial-delay:60000}")
+    public void purgeExpiredTombstones() {
+        LocalDateTime cutoff = tombstoneHorizon();
+        int total = 0;
+        int deleted;
 
-                    String path = file.getPath().toLowerCase();
+        do {
+            deleted = tombstoneRepository.deleteRemovedBeforeBatch(cutoff, tombstonePurgeBatchSize);
+            total += deleted;
+        } while (deleted == tombstonePurgeBatchSize);
 
-                    return !Boolean.FALSE.equals(request.getIncludeGit()) || !path.contains(".git/");
-                })
-                .collect(Collectors.toList());
+        if (total > 0) {
+            log.info("Purged {} path tombstone(s) older than {}", total, tombstoneRetention);
+        }
     }
 
-    private Path createArchive(Project project, List<ProjectFile> files, String format) throws IOException {
-        Path tempDir = Files.createTempDirectory("project-export-" + project.getId());
+    private LocalDateTime tombstoneHorizon() {
+        return LocalDateTime.now().minus(tombstoneRetention);
+    }
 
+    private boolean submit(ExportJob job) {
         try {
-            createProjectMetadata(project, files, tempDir);
-
-            for (ProjectFile file : files) {
-                if (file.getType() == io.byteforge.backend.model.custom.FileType.FOLDER) {
-                    Path dirPath = tempDir.resolve(file.getPath());
-                    Files.createDirectories(dirPath);
-                } else {
-                    Path filePath = tempDir.resolve(file.getPath());
-                    Files.createDirectories(filePath.getParent());
-                    String content = file.getContent() != null ? file.getContent() : "";
-                    Files.write(filePath, content.getBytes());
-                }
-            }
+            exportJobs.execute(() -> runJob(job.getId()));
+            return true;
+        } catch (RejectedExecutionException e) {
+            releaseSlot(job.getUserId());
+            update(job, ExportStatus.FAILED, 0, "Export queue is full");
+            return false;
+        }
+    }
 
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm"));
-            String fileName = sanitizeFileName(project.getTitle()) + "_" + timestamp + "." + format.toLowerCase();
-            Path archiveFile = Files.createTempFile("export-", "." + format.toLowerCase());
+    private void runJob(String exportId) {
+        ExportJob job = exportJobRepository.findById(exportId).orElse(null);
+        if (job == null) {
+            log.warn("Export job {} was reaped before it started", exportId);
+            return;
+        }
 
-            if ("RAR".equalsIgnoreCase(format)) {
-                createRarArchive(tempDir, archiveFile);
-            } else {
-                createZipArchive(tempDir, archiveFile);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        ExportFormat format = ExportFormat.from(job.getFormat());
+        try {
+            Project project = projectRepository.findById(job.getProjectId())
+                    .orElseThrow(() -> new RuntimeException("Project not found"));
+            ProjectDto.ExportRequest request = ProjectDto.ExportRequest.builder()
+                    .format(job.getFormat())
+                    .includeGit(job.isIncludeGit())
+                    .compressionLevel(job.getCompressionLevel())
+                    .changedSince(job.getChangedSince())
+                    .build();
+
+            update(job, ExportStatus.PROCESSING, 25, "Creating archive...");
+            Path archiveFile = artifactCache.newBuildFile();
+            ProjectArchiveWriter.ArchiveStats stats;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(archiveFile))) {
+                stats = archiveWriter.write(project, request, out);
             }
+            recordExport(sample, "job", format, "success", stats);
 
-            return archiveFile;
+            artifactCache.put(job.getArtifactKey(), archiveFile);
+            update(job, ExportStatus.COMPLETED, 100, "Export completed");
 
+        } catch (Exception e) {
+            recordExport(sample, "job", format, "failure", null);
+            log.error("Export failed for task: {}", job.getId(), e);
+            update(job, ExportStatus.FAILED, job.getProgress(), "Export failed: " + e.getMessage());
         } finally {
-            deleteDirectoryRecursive(tempDir);
+            releaseSlot(job.getUserId());
         }
     }
 
-    private void createProjectMetadata(Project project, List<ProjectFile> files, Path tempDir) throws IOException {
-        Map<String, Object> metadata = new HashMap<>();
-        metadata.put("projectName", project.getTitle());
-        metadata.put("projectId", project.getId());
-        metadata.put("exportDate", LocalDateTime.now().toString());
-        metadata.put("totalFiles", files.stream().filter(f -> f.getType() != io.byteforge.backend.model.custom.FileType.FOLDER).count());
-        metadata.put("totalFolders", files.stream().filter(f -> f.getType() == io.byteforge.backend.model.custom.FileType.FOLDER).count());
+    private void recordExport(Timer.Sample sample, String mode, ExportFormat format, String outcome,
+                              ProjectArchiveWriter.ArchiveStats stats) {
+        sample.stop(Timer.builder("byteforge.export.duration")
+                .description("Time to build one export archive")
+                .tag("mode", mode)
+                .tag("format", format.name())
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+
+        if (stats != null) {
+            exportBytes("byteforge.export.content", mode, format).record(stats.bytes());
+            exportBytes("byteforge.export.archive", mode, format).record(stats.archiveBytes());
+        }
+    }
 
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private DistributionSummary exportBytes(String name, String mode, ExportFormat format) {
+        return DistributionSummary.builder(name)
+                .description("Export size per archive")
+                .baseUnit("bytes")
+                .tag("mode", mode)
+                .tag("format", format.name())
+                .register(meterRegistry);
+    }
 
-        Path metadataFile = tempDir.resolve("PROJECT_INFO.json");
-        mapper.writerWithDefaultPrettyPrinter().writeValue(metadataFile.toFile(), metadata);
+    private ProjectDto.ExportResponse update(ExportJob job, ExportStatus status, int progress, String message) {
+        LocalDateTime now = LocalDateTime.now();
+        job.setStatus(status);
+        job.setProgress(progress);
+        job.setMessage(message);
+        job.setUpdatedAt(now);
+        job.setExpiresAt(now.plus(jobTtl));
+        exportJobRepository.save(job);
+
+        ProjectDto.ExportResponse response = toResponse(job);
+        progressPublisher.publish(response);
+        return response;
     }
 
-    private void createZipArchive(Path sourceDir, Path zipFile) throws IOException {
-        try (FileOutputStream fos = new FileOutputStream(zipFile.toFile());
-             ZipOutputStream zos = new ZipOutputStream(fos)) {
-
-            Files.walk(sourceDir)
-                    .filter(path -> !Files.isDirectory(path))
-                    .forEach(path -> {
-                        try {
-                            String relativePath = sourceDir.relativize(path).toString().replace("\\", "/");
-                            zos.putNextEntry(new ZipEntry(relativePath));
-                            Files.copy(path, zos);
-                            zos.closeEntry();
-                        } catch (IOException e) {
-                            throw new UncheckedIOException(e);
-                        }
-                    });
+    private void acquireSlot(Long userId) {
+        boolean[] acquired = {false};
+        activeJobsByUser.compute(userId, (id, active) -> {
+            int current = active != null ? active : 0;
+            if (current >= perUserLimit) {
+                return active;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+
+        if (!acquired[0]) {
+            throw new ExportLimitExceededException("You already have " + perUserLimit + " exports in progress");
         }
     }
 
-    private void createRarArchive(Path sourceDir, Path rarFile) throws IOException {
-        if (!isRarAvailable()) {
-            createZipArchive(sourceDir, rarFile);
-            return;
+    private void releaseSlot(Long userId) {
+        activeJobsByUser.computeIfPresent(userId, (id, active) -> active > 1 ? active - 1 : null);
+    }
+
+    private ExportJob findJob(Long projectId, String exportId) {
+        ExportJob job = exportJobRepository.findById(exportId)
+                .orElseThrow(() -> new IllegalArgumentException("Export not found"));
+        if (!job.getProjectId().equals(projectId)) {
+            throw new AccessDeniedException("Export belongs to another project");
+        }
+        return job;
+    }
+
+    private ProjectDto.ExportResponse toResponse(ExportJob job) {
+        return ProjectDto.ExportResponse.builder()
+                .exportId(job.getId())
+                .status(job.getStatus().name())
+                .format(job.getFormat())
+                .progress(job.getProgress())
+                .message(job.getMessage())
+                .changedSince(job.getChangedSince())
+                .downloadUrl(job.getStatus() == ExportStatus.COMPLETED
+                        ? "/api/v1/project/" + job.getProjectId() + "/export/" + job.getId() + "/download"
+                        : null)
+                .createdAt(job.getCreatedAt())
+                .build();
+    }
+
+    private ProjectDto.ExportRequest normalize(Long projectId, ProjectDto.ExportRequest request) {
+        ExportFormat format = ExportFormat.from(request != null ? request.getFormat() : null);
+        boolean includeGit = request == null || !Boolean.FALSE.equals(request.getIncludeGit());
+        int level = format == ExportFormat.ZIP_STORE
+                ? 0
+                : archiveWriter.compressionLevel(request != null ? request.getCompressionLevel() : null);
+
+        return ProjectDto.ExportRequest.builder()
+                .format(format.name())
+                .includeGit(includeGit)
+                .compressionLevel(level)
+                .changedSince(request != null ? changedSince(projectId, request) : null)
+                .build();
+    }
+
+    // Incremental exports start from a timestamp or from the moment a previous export snapshotted the project
+    private LocalDateTime changedSince(Long projectId, ProjectDto.ExportRequest request) {
+        if (request.getChangedSince() != null && request.getSinceExportId() != null) {
+            throw new IllegalArgumentException("Use either changedSince or sinceExportId, not both");
         }
 
-        ProcessBuilder pb = new ProcessBuilder("rar", "a", "-ep1", rarFile.toString(), sourceDir.toString());
-        try {
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                throw new IOException("RAR compression failed");
+        LocalDateTime since = request.getChangedSince();
+        if (request.getSinceExportId() != null) {
+            ExportJob previous = findJob(projectId, request.getSinceExportId());
+            if (previous.getStatus() != ExportStatus.COMPLETED) {
+                throw new IllegalArgumentException("Previous export has not completed");
             }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("RAR compression interrupted", e);
+            // Its content digest was taken when it was created, so anything touched after that is new
+            since = previous.getCreatedAt();
         }
-    }
 
-    private boolean isRarAvailable() {
-        try {
-            Process process = new ProcessBuilder("rar").start();
-            return process.waitFor() == 0;
-        } catch (Exception e) {
-            return false;
+        // Paths removed before the horizon may already be purged, so such an archive could not list them as deleted
+        if (since != null && since.isBefore(tombstoneHorizon())) {
+            throw new IllegalArgumentException("Changes older than " + tombstoneRetention.toDays()
+                    + " days are no longer tracked, take a full export instead");
         }
+
+        return since != null ? since.truncatedTo(ChronoUnit.MILLIS) : null;
     }
 
-    private void deleteDirectoryRecursive(Path path) throws IOException {
-        if (Files.exists(path)) {
-            Files.walk(path)
-                    .sorted(Comparator.reverseOrder())
-                    .forEach(p -> {
-                        try {
-                            Files.delete(p);
-                        } catch (IOException e) {
-                            log.warn("Failed to delete temporary file: {}", p);
-                        }
-                    });
-        }
+    private String artifactKey(String contentDigest, ProjectDto.ExportRequest request) {
+        String format = request.getFormat().toLowerCase();
+        String git = Boolean.FALSE.equals(request.getIncludeGit()) ? "nogit" : "git";
+        String key = contentDigest + "-" + format + "-" + request.getCompressionLevel() + "-" + git;
+        return request.getChangedSince() != null
+                ? key + "-since" + request.getChangedSince().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : key;
+    }
+
+    private String archiveFileName(Project project, String extension) {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm"));
+        return sanitizeFileName(project.getTitle()) + "_" + timestamp + "." + extension;
     }
 
     private String sanitizeFileName(String name) {
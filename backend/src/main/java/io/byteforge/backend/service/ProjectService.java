@@ -1,19 +1,27 @@
 package io.byteforge.backend.service;
 
+import io.byteforge.backend.config.CacheConfig;
 import io.byteforge.backend.exceptions.UserNotFoundException;
 import io.byteforge.backend.model.dto.ProjectDto;
 import io.byteforge.backend.model.entity.Project;
 import io.byteforge.backend.model.entity.SharedProject;
 import io.byteforge.backend.model.entity.User;
+import io.byteforge.backend.repository.ProjectPathTombstoneRepository;
 import io.byteforge.backend.repository.ProjectRepository;
 import io.byteforge.backend.repository.SharedProjectRepository;
 import io.byteforge.backend.repository.UserRepository;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.apache.coyote.BadRequestException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -25,6 +33,11 @@ public class ProjectService {
     private final UserRepository userRepository;
     private final ProjectRepository projectRepository;
     private final SharedProjectRepository sharedProjectRepository;
+    private final ProjectPathTombstoneRepository tombstoneRepository;
+    private final CacheManager cacheManager;
+    private final ProjectAccessService projectAccessService;
+
+    private static final int MAX_PAGE_SIZE = 100;
 
     public ResponseEntity<ProjectDto.Response> createProject(ProjectDto.Create projectData, Long userId) throws BadRequestException {
         User existUser = userRepository.findById(userId)
@@ -38,26 +51,47 @@ public class ProjectService {
         return getResponseResponseEntity(userId, newProject);
     }
 
+    // Kept for older clients; only the first page, the dashboard pages through getProjectPage
     public ResponseEntity<List<ProjectDto.Response>> getProjects(Long userId) {
-        List<Object[]> results = projectRepository.findProjectsWithFileCountRaw(userId);
-
-        List<ProjectDto.Response> response = results.stream()
-                .map(result
-                        -> ProjectDto.Response
-                        .toDto((Project) result[0], (Long) result[1]))
+        List<ProjectDto.Response> response = projectRepository.findProjectSummaries(userId, Limit.of(MAX_PAGE_SIZE))
+                .stream()
+                .map(ProjectDto.Response::toDto)
                 .toList();
 
         return ResponseEntity
                 .status(HttpServletResponse.SC_OK).body(response);
     }
 
+    public ResponseEntity<ProjectDto.Page> getProjectPage(Long userId, LocalDateTime afterUpdatedAt, Long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<ProjectDto.Summary> rows = afterUpdatedAt != null && afterId != null
+                ? projectRepository.findProjectSummariesAfter(userId, afterUpdatedAt, afterId, limit)
+                : projectRepository.findProjectSummaries(userId, limit);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ProjectDto.Response> items = rows.stream()
+                .limit(pageSize)
+                .map(ProjectDto.Response::toDto)
+                .toList();
+        ProjectDto.Response last = items.isEmpty() ? null : items.get(items.size() - 1);
+
+        return ResponseEntity.status(HttpServletResponse.SC_OK).body(ProjectDto.Page.builder()
+                .items(items)
+                .nextUpdatedAt(hasMore ? last.getUpdatedAt() : null)
+                .nextId(hasMore ? last.getId() : null)
+                .hasMore(hasMore)
+                .build());
+    }
+
     public ResponseEntity<ProjectDto.Response> getProject(Long projectId, Long userId) throws BadRequestException {
-        Project result = projectRepository.findById(projectId)
+        ProjectDto.Summary result = projectRepository.findProjectSummaryById(projectId)
                 .orElseThrow(() -> new BadRequestException("Project not found"));
 
         return ResponseEntity
                 .status(HttpServletResponse.SC_OK).body(ProjectDto.Response
-                        .toDto(result, null));
+                        .toDto(result));
     }
 
     public ResponseEntity<ProjectDto.Response> editProject(ProjectDto.Create projectData, Long projectId, Long userId) throws BadRequestException {
@@ -77,84 +111,122 @@ public class ProjectService {
         Project project = projectRepository.findProjectByIdAndOwner(savedProject.getId(), userId)
                 .orElseThrow(() -> new BadRequestException("Project not found after update"));
 
-        Long fileCount = projectRepository.countFilesByProjectId(savedProject.getId());
-
-        ProjectDto.Response responseDto = ProjectDto.Response.toDto(project, fileCount);
+        ProjectDto.Response responseDto = ProjectDto.Response.toDto(project, project.getFileCount());
         return ResponseEntity.status(HttpServletResponse.SC_ACCEPTED).body(responseDto);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PROJECTS, key = "#projectId"),
+            @CacheEvict(cacheNames = CacheConfig.MEMBERSHIPS, key = "#projectId")
+    })
     public ResponseEntity<Void> deleteProject(Long projectId) throws BadRequestException {
         Project existingProject = projectRepository.findById(projectId)
                 .orElseThrow(() -> new BadRequestException("Project not found"));
 
+        // ddl-auto=update never revisits an existing foreign key, so the ON DELETE CASCADE is not relied on
+        tombstoneRepository.deleteByProjectId(projectId);
         projectRepository.delete(existingProject);
+        projectAccessService.forget(projectId);
 
         return ResponseEntity.status(HttpServletResponse.SC_OK).build();
     }
 
     public ResponseEntity<List<ProjectDto.ProjectUsers>> getProjectUsers(Long projectId) throws BadRequestException {
-        Project existingProject = projectRepository.findById(projectId)
+        Long ownerId = projectRepository.findOwnerIdById(projectId)
                 .orElseThrow(() -> new BadRequestException("Project not exists"));
 
         List<ProjectDto.ProjectUsers> users = new ArrayList<>();
 
         users.add(ProjectDto.ProjectUsers
-                .toOwner(userRepository.findById(existingProject.getOwner().getId())));
+                .toOwner(userRepository.findProfileById(ownerId)));
 
-        sharedProjectRepository.findSharedProjectByProject(existingProject)
-                .forEach(sharedProject ->
-                        users.add(ProjectDto.ProjectUsers.toUser(sharedProject)));
+        sharedProjectRepository.findMembershipsByProjectId(projectId)
+                .forEach(membership ->
+                        users.add(ProjectDto.ProjectUsers.toUser(membership)));
 
         return ResponseEntity.status(HttpServletResponse.SC_OK).body(users);
     }
 
-    public void changeContributorRole(Long userId, String role) {
-        SharedProject existingSharedProject = sharedProjectRepository.findSharedProjectByUser_Id(userId);
+    @CacheEvict(cacheNames = CacheConfig.MEMBERSHIPS, key = "#projectId")
+    public void changeContributorRole(Long projectId, Long userId, String role) throws BadRequestException {
+        rejectOwnerRole(role);
+        SharedProject existingSharedProject = sharedProjectRepository.findSharedProjectByProject_IdAndUser_Id(projectId, userId)
+                .orElseThrow(() -> new BadRequestException("Contributor not found"));
         existingSharedProject.setAccessLevel(role);
         sharedProjectRepository.save(existingSharedProject);
+        projectAccessService.grant(projectId, userId, role);
     }
 
-    public void removeUserFromSharedProject(Long userId) {
-        SharedProject existingSharedProject = sharedProjectRepository.findSharedProjectByUser_Id(userId);
+    @CacheEvict(cacheNames = CacheConfig.MEMBERSHIPS, key = "#projectId")
+    public void removeUserFromSharedProject(Long projectId, Long userId) throws BadRequestException {
+        SharedProject existingSharedProject = sharedProjectRepository.findSharedProjectByProject_IdAndUser_Id(projectId, userId)
+                .orElseThrow(() -> new BadRequestException("Contributor not found"));
         sharedProjectRepository.delete(existingSharedProject);
+        projectAccessService.revoke(projectId, userId);
     }
 
-    public ResponseEntity<ProjectDto.InviteToken> createJoinLink(Long projectId) throws BadRequestException {
+    public ResponseEntity<ProjectDto.InviteToken> createJoinLink(Long projectId, String role) throws BadRequestException {
+        String inviteRole = role != null && !role.isBlank() ? role : ProjectAccessService.VIEWER_ROLE;
+        rejectOwnerRole(inviteRole);
+
         Project existingProject = projectRepository.findById(projectId)
                 .orElseThrow(() -> new BadRequestException("Project not found"));
 
-        if (existingProject.getInviteToken() != null && !existingProject.getInviteToken().isEmpty()) {
-            return ResponseEntity.status(HttpServletResponse.SC_CREATED).body(ProjectDto.InviteToken.toDto(existingProject.getInviteToken()));
+        if (existingProject.getInviteToken() != null && !existingProject.getInviteToken().isEmpty()
+                && inviteRole.equals(existingProject.getInviteRole())) {
+            return ResponseEntity.status(HttpServletResponse.SC_CREATED)
+                    .body(ProjectDto.InviteToken.toDto(existingProject.getInviteToken(), inviteRole));
         }
 
+        // A link never changes what it grants; asking for another role replaces it
         String token = UUID.randomUUID().toString();
 
         existingProject.setInviteToken(token);
+        existingProject.setInviteRole(inviteRole);
         projectRepository.save(existingProject);
 
-        return ResponseEntity.status(HttpServletResponse.SC_CREATED).body(ProjectDto.InviteToken.toDto(token));
+        return ResponseEntity.status(HttpServletResponse.SC_CREATED).body(ProjectDto.InviteToken.toDto(token, inviteRole));
     }
 
-    public ResponseEntity<ProjectDto.JoinResponse> joinByToken(String token, String role, Long userId) throws BadRequestException {
+    public ResponseEntity<ProjectDto.JoinResponse> joinByToken(String token, Long userId) throws BadRequestException {
         User existingUser = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException("User not found"));
 
-
-        Project existingProject = projectRepository.findProjectsByInviteToken(token)
+        ProjectDto.Invite existingProject = projectRepository.findInviteByToken(token)
                 .orElseThrow(() -> new BadRequestException("Project not found"));
+        String role = existingProject.getInviteRole() != null ? existingProject.getInviteRole() : ProjectAccessService.VIEWER_ROLE;
 
-        if (userId.equals(existingProject.getOwner().getId())) {
+        if (userId.equals(existingProject.getOwnerId())) {
             throw new BadRequestException("You already own this project");
         }
 
+        if (sharedProjectRepository.existsByProject_IdAndUser_Id(existingProject.getId(), userId)) {
+            throw new BadRequestException("You already joined this project");
+        }
+
         SharedProject newJoin = new SharedProject();
-        newJoin.setProject(existingProject);
+        newJoin.setProject(projectRepository.getReferenceById(existingProject.getId()));
         newJoin.setUser(existingUser);
         newJoin.setAccessLevel(role);
 
         sharedProjectRepository.save(newJoin);
+        evictMemberships(existingProject.getId());
+        projectAccessService.grant(existingProject.getId(), userId, role);
 
         return ResponseEntity.status(HttpServletResponse.SC_CREATED)
                 .body(ProjectDto.JoinResponse.toDto(existingProject.getId()));
     }
+
+    private static void rejectOwnerRole(String role) throws BadRequestException {
+        if (ProjectAccessService.OWNER_ROLE.equalsIgnoreCase(role)) {
+            throw new BadRequestException("Ownership cannot be granted to a contributor");
+        }
+    }
+
+    private void evictMemberships(Long projectId) {
+        Cache memberships = cacheManager.getCache(CacheConfig.MEMBERSHIPS);
+        if (memberships != null) {
+            memberships.evict(projectId);
+        }
+    }
 }
@@ -4,6 +4,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import io.byteforge.backend.model.dto.ExecutionDto;
+import io.byteforge.backend.service.concurrency.Bulkhead;
+import io.byteforge.backend.service.concurrency.WebSocketSendLock;
+import io.byteforge.backend.service.diagnostics.ExecutionTiming;
+import io.byteforge.backend.service.diagnostics.ExecutionTrace;
+import io.byteforge.backend.service.diagnostics.ExecutionTraceRecorder;
+import io.byteforge.backend.service.diagnostics.SandboxMessageEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
@@ -18,10 +27,10 @@ import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 @Slf4j
@@ -39,24 +48,39 @@ public class SandboxService {
     @Value("${sandbox.memory.limit.mb:256}")
     private int memoryLimitMb;
 
+    // Each execution holds a permit for its whole lifetime, so this is the number of sandbox sockets open at once
+    @Value("${sandbox.concurrency.permits:16}")
+    private int maxConcurrentExecutions;
+
+    @Value("${sandbox.concurrency.queue-capacity:64}")
+    private int executionQueueCapacity;
+
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ExecutionTraceRecorder traceRecorder;
+    private final Map<String, ExecutionTrace> traces = new ConcurrentHashMap<>();
+    private final Map<String, Timer.Sample> compileSamples = new ConcurrentHashMap<>();
+    private final Map<String, Timer.Sample> runSamples = new ConcurrentHashMap<>();
     private final Map<String, Socket> activeSockets = new ConcurrentHashMap<>();
     private final Map<String, WebSocketSession> webSocketSessions = new ConcurrentHashMap<>();
     private final Map<String, PrintWriter> socketWriters = new ConcurrentHashMap<>();
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final Thread.Builder outputReaders = Thread.ofVirtual().name("sandbox-output-", 0);
+    private Bulkhead executions;
 
-    public SandboxService(ObjectMapper objectMapper) {
+    public SandboxService(ObjectMapper objectMapper, MeterRegistry meterRegistry, ExecutionTraceRecorder traceRecorder) {
         this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.traceRecorder = traceRecorder;
     }
 
     @PostConstruct
     public void init() {
+        executions = new Bulkhead("sandbox", maxConcurrentExecutions, executionQueueCapacity, meterRegistry);
         log.info("🚀 SandboxService initialized - Socket: {}:{}", socketHost, socketPort);
     }
 
     @PreDestroy
     public void cleanup() {
-        executorService.shutdown();
         activeSockets.values().forEach(this::closeSocket);
         socketWriters.values().forEach(writer -> {
             try {
@@ -67,6 +91,7 @@ public class SandboxService {
         });
         activeSockets.clear();
         socketWriters.clear();
+        executions.close();
     }
 
     public void registerSession(String sessionId, WebSocketSession session) {
@@ -80,37 +105,50 @@ public class SandboxService {
         log.info("🔌 WebSocket session unregistered: {}", sessionId);
     }
 
-    public void executeCodeInteractive(String sessionId, String code, String connectionId) {
-        executeWithSocket(sessionId, connectionId, () -> sendCodeToSandbox(sessionId, code));
+    public void executeCodeInteractive(String sessionId, String code, String connectionId, ExecutionTrace trace) {
+        executeWithSocket(sessionId, connectionId, trace, () -> sendCodeToSandbox(sessionId, code));
     }
 
-    public void executeMultiFileInteractive(String sessionId, Map<String, String> files, String connectionId) {
-        executeWithSocket(sessionId, connectionId, () -> sendMultiFileToSandbox(sessionId, files));
+    public void executeMultiFileInteractive(String sessionId, Map<String, String> files, String connectionId, ExecutionTrace trace) {
+        executeWithSocket(sessionId, connectionId, trace, () -> sendMultiFileToSandbox(sessionId, files));
     }
 
-    private void executeWithSocket(String sessionId, String connectionId, SocketOperation operation) {
+    private void executeWithSocket(String sessionId, String connectionId, ExecutionTrace trace, SocketOperation operation) {
         log.info("=== 🚀 STARTING SOCKET EXECUTION ===");
-        log.info("📋 Session: {}, Connection: {}", sessionId, connectionId);
+        log.info("📋 Session: {}, Connection: {}, Execution: {}", sessionId, connectionId, trace.getId());
 
-        executorService.submit(() -> {
-            Socket socket = null;
-            try {
-                socket = getSocket(sessionId);
-                operation.execute();
-                waitForCompletion(sessionId, socket);
-
-            } catch (java.net.ConnectException e) {
-                handleConnectionError(sessionId, "CONNECTION FAILED: Cannot connect to C++ server at {}:{}", e);
-            } catch (SocketTimeoutException e) {
-                handleConnectionError(sessionId, "CONNECTION TIMEOUT: Connection to {}:{} timed out", e);
-            } catch (Exception e) {
-                log.error("❌ EXECUTION FAILED for session {}: {}", sessionId, e.getMessage(), e);
-                sendWebSocketMessage(sessionId, createMessage("ERROR", "Execution failed: " + e.getMessage(), null));
-            } finally {
-                closeSocketConnection(sessionId);
-                log.info("=== 🏁 EXECUTION FINISHED ===");
-            }
-        });
+        try {
+            executions.execute(() -> runWithSocket(sessionId, trace, operation));
+        } catch (RejectedExecutionException e) {
+            log.warn("⏳ Sandbox saturated, rejecting execution {} for session {}", trace.getId(), sessionId);
+            sendWebSocketMessage(sessionId, createMessage("ERROR",
+                    "Too many programs are running right now. Please try again shortly.", null), trace);
+            traceRecorder.complete(trace, "rejected");
+        }
+    }
+
+    private void runWithSocket(String sessionId, ExecutionTrace trace, SocketOperation operation) {
+        Socket socket = null;
+        trace.mark(ExecutionTrace.Mark.DEQUEUED);
+        traces.put(sessionId, trace);
+        try {
+            socket = getSocket(sessionId, trace);
+            compileSamples.put(sessionId, Timer.start(meterRegistry));
+            operation.execute();
+            waitForCompletion(sessionId, socket);
+
+        } catch (java.net.ConnectException e) {
+            handleConnectionError(sessionId, "CONNECTION FAILED: Cannot connect to C++ server at {}:{}", e);
+        } catch (SocketTimeoutException e) {
+            handleConnectionError(sessionId, "CONNECTION TIMEOUT: Connection to {}:{} timed out", e);
+        } catch (Exception e) {
+            log.error("❌ EXECUTION FAILED for session {}: {}", sessionId, e.getMessage(), e);
+            sendWebSocketMessage(sessionId, createMessage("ERROR", "Execution failed: " + e.getMessage(), null));
+        } finally {
+            closeSocketConnection(sessionId, socket);
+            completeTrace(sessionId, trace, "failed");
+            log.info("=== 🏁 EXECUTION FINISHED ===");
+        }
     }
 
     private void handleConnectionError(String sessionId, String logMessage, Exception e) {
@@ -120,12 +158,20 @@ public class SandboxService {
                 "C++ execution server is not running. Please start the server first.", null));
     }
 
-    private Socket getSocket(String sessionId) throws IOException, InterruptedException {
+    private Socket getSocket(String sessionId, ExecutionTrace trace) throws IOException, InterruptedException {
         Socket socket;
         log.info("🔌 Attempting to connect to C++ server at {}:{}", socketHost, socketPort);
 
         socket = new Socket();
-        socket.connect(new InetSocketAddress(socketHost, socketPort), 5000);
+        Timer.Sample connectSample = Timer.start(meterRegistry);
+        try {
+            socket.connect(new InetSocketAddress(socketHost, socketPort), 5000);
+            connectSample.stop(phaseTimer("byteforge.sandbox.connect", "success"));
+            trace.mark(ExecutionTrace.Mark.CONNECTED);
+        } catch (IOException e) {
+            connectSample.stop(phaseTimer("byteforge.sandbox.connect", "failure"));
+            throw e;
+        }
         socket.setSoTimeout(30000);
 
         activeSockets.put(sessionId, socket);
@@ -143,10 +189,12 @@ public class SandboxService {
     }
 
     private void startOutputReader(String sessionId, Socket socket) {
-        executorService.submit(() -> {
+        // Not under the bulkhead: the reader lives inside an execution that already holds a permit
+        outputReaders.start(() -> {
             log.info("📖 Starting OUTPUT READER for session: {}", sessionId);
 
-            try (InputStream input = socket.getInputStream();
+            CountingInputStream counted = null;
+            try (InputStream input = counted = new CountingInputStream(socket.getInputStream());
                  BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
 
                 char[] buffer = new char[8192];
@@ -179,6 +227,7 @@ public class SandboxService {
                 }
 
                 log.info("📖 OUTPUT READER COMPLETED for session: {} (total bytes: {})", sessionId, totalBytesRead);
+                abandonIfUnfinished(sessionId, socket);
 
             } catch (IOException e) {
                 if (!e.getMessage().toLowerCase().contains("socket closed") &&
@@ -187,8 +236,17 @@ public class SandboxService {
                 } else {
                     log.info("🔌 Socket closed normally for session: {}", sessionId);
                 }
+                abandonIfUnfinished(sessionId, socket);
             } catch (Exception e) {
                 log.error("❌ UNEXPECTED ERROR in output reader for session {}: {}", sessionId, e.getMessage(), e);
+            } finally {
+                if (counted != null) {
+                    DistributionSummary.builder("byteforge.sandbox.output")
+                            .description("Bytes the sandbox streamed back for one execution")
+                            .baseUnit("bytes")
+                            .register(meterRegistry)
+                            .record(counted.count);
+                }
             }
         });
     }
@@ -205,23 +263,29 @@ public class SandboxService {
 
         log.info("🔍 PROCESSING CHUNK: [{}]", escapeNonPrintable(content));
 
-        if (content.contains("{\"type\":\"") && content.contains("\"message\":")) {
+        // The sandbox writes messages back to back without framing, so one read can carry many of them
+        boolean foundJson = false;
+        while (content.contains("{\"type\":\"") && content.contains("\"message\":")) {
             int jsonStart = content.indexOf("{\"type\":");
-            if (jsonStart != -1) {
-                int jsonEnd = findJsonEnd(content, jsonStart);
-                if (jsonEnd != -1) {
-                    String jsonLine = content.substring(jsonStart, jsonEnd + 1);
-                    log.info("🎯 FOUND JSON: [{}]", jsonLine);
+            int jsonEnd = jsonStart != -1 ? findJsonEnd(content, jsonStart) : -1;
+            if (jsonEnd == -1) {
+                log.info("⏳ JSON not complete yet, waiting for more data...");
+                break;
+            }
 
-                    handleOutputLine(sessionId, jsonLine);
+            String jsonLine = content.substring(jsonStart, jsonEnd + 1);
+            log.info("🎯 FOUND JSON: [{}]", jsonLine);
 
-                    outputBuffer.delete(jsonStart, jsonEnd + 1);
-                    log.info("🔍 BUFFER AFTER JSON REMOVAL: [{}]", outputBuffer.toString());
-                    return;
-                } else {
-                    log.info("⏳ JSON not complete yet, waiting for more data...");
-                }
-            }
+            handleOutputLine(sessionId, jsonLine);
+
+            outputBuffer.delete(jsonStart, jsonEnd + 1);
+            content = outputBuffer.toString();
+            foundJson = true;
+        }
+
+        if (foundJson) {
+            log.info("🔍 BUFFER AFTER JSON REMOVAL: [{}]", content);
+            return;
         }
 
         int lastNewline = content.lastIndexOf('\n');
@@ -256,11 +320,16 @@ public class SandboxService {
     private int findJsonEnd(String content, int start) {
         int braceCount = 0;
         boolean inString = false;
+        boolean escaped = false;
 
         for (int i = start; i < content.length(); i++) {
             char c = content.charAt(i);
 
-            if (c == '"' && (i == 0 || content.charAt(i - 1) != '\\')) {
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\' && inString) {
+                escaped = true;
+            } else if (c == '"') {
                 inString = !inString;
             } else if (!inString) {
                 if (c == '{') braceCount++;
@@ -300,9 +369,15 @@ public class SandboxService {
             String message = (String) data.get("message");
             log.info(logMessage, message);
 
+            if ("COMPILE_SUCCESS".equals(type)) {
+                compileFinished(sessionId, "success");
+            } else if ("OUTPUT".equals(type)) {
+                markTrace(sessionId, ExecutionTrace.Mark.FIRST_OUTPUT);
+            }
+
             if ("EXECUTION_RESULT".equals(type)) {
-                sendWebSocketMessage(sessionId, data);
                 closeSocketConnection(sessionId);
+                sendWebSocketMessage(sessionId, data);
             } else {
                 sendWebSocketMessage(sessionId, createMessage(type, message, getExitCode(data)));
             }
@@ -317,8 +392,21 @@ public class SandboxService {
         try {
             Map<String, Object> result = objectMapper.readValue(line, Map.class);
             log.info("🏁 EXECUTION RESULT: {}", result.get("status"));
-            sendWebSocketMessage(sessionId, result);
+            String outcome = result.get("status") != null ? String.valueOf(result.get("status")).toLowerCase() : "unknown";
+            finishRun(sessionId, outcome);
+
+            // Taken off the session first so the close below does not report the run as aborted
+            ExecutionTrace trace = traces.remove(sessionId);
+            if (trace != null) {
+                trace.mark(ExecutionTrace.Mark.FINISHED);
+            }
+
+            // Released before the client sees the result, so an immediate rerun starts on a clean session
             closeSocketConnection(sessionId);
+            sendWebSocketMessage(sessionId, result, trace);
+            if (trace != null) {
+                reportTimings(sessionId, traceRecorder.complete(trace, outcome));
+            }
         } catch (Exception e) {
             log.error("❌ Failed to parse EXECUTION_RESULT JSON: {}", e.getMessage());
             log.error("📋 Raw JSON that failed: {}", line);
@@ -330,12 +418,15 @@ public class SandboxService {
         if (cleanLine.startsWith("COMPILE_ERROR:")) {
             String error = cleanLine.substring("COMPILE_ERROR:".length()).trim();
             log.error("❌ COMPILATION ERROR: {}", error);
+            compileFinished(sessionId, "error");
             sendWebSocketMessage(sessionId, createMessage("COMPILE_ERROR", error, null));
         } else if (cleanLine.equals("COMPILE_SUCCESS")) {
             log.info("✅ COMPILATION SUCCESSFUL");
+            compileFinished(sessionId, "success");
             sendWebSocketMessage(sessionId, createMessage("COMPILE_SUCCESS", "Code compiled successfully", null));
         } else if (!cleanLine.isEmpty()) {
             log.info("📤 PROGRAM OUTPUT: {}", cleanLine);
+            markTrace(sessionId, ExecutionTrace.Mark.FIRST_OUTPUT);
             sendWebSocketMessage(sessionId, createMessage("OUTPUT", cleanLine, null));
         }
     }
@@ -388,6 +479,8 @@ public class SandboxService {
 
         try {
             String jsonRequest = jsonSupplier.get();
+            // Marked before the write so the reader can never see the sandbox's reply first
+            markTrace(sessionId, ExecutionTrace.Mark.SENT);
             writer.print(jsonRequest);
             writer.flush();
             log.info("✅ {} SENT SUCCESSFULLY", type);
@@ -456,22 +549,100 @@ public class SandboxService {
         }
     }
 
+    // The sandbox went away without an EXECUTION_RESULT; without this the run would wait out maxWaitTime
+    private void abandonIfUnfinished(String sessionId, Socket socket) {
+        if (activeSockets.get(sessionId) != socket) {
+            return;
+        }
+
+        log.warn("⚠️ Sandbox connection ended without a result for session: {}", sessionId);
+        closeSocketConnection(sessionId, socket);
+        sendWebSocketMessage(sessionId, createMessage("ERROR", "Connection to execution server lost", null));
+    }
+
+    private void compileFinished(String sessionId, String outcome) {
+        markTrace(sessionId, ExecutionTrace.Mark.COMPILED);
+        Timer.Sample compile = compileSamples.remove(sessionId);
+        if (compile != null) {
+            compile.stop(phaseTimer("byteforge.sandbox.compile", outcome));
+        }
+        if ("success".equals(outcome)) {
+            runSamples.put(sessionId, Timer.start(meterRegistry));
+        }
+    }
+
+    // A result without a prior COMPILE_SUCCESS (interpreted code, sandbox skipping the message) counts from submission
+    private void finishRun(String sessionId, String outcome) {
+        Timer.Sample run = runSamples.remove(sessionId);
+        Timer.Sample compile = compileSamples.remove(sessionId);
+        Timer.Sample sample = run != null ? run : compile;
+        if (sample != null) {
+            sample.stop(phaseTimer("byteforge.sandbox.run", outcome));
+        }
+    }
+
+    private void markTrace(String sessionId, ExecutionTrace.Mark mark) {
+        ExecutionTrace trace = traces.get(sessionId);
+        if (trace != null) {
+            trace.mark(mark);
+        }
+    }
+
+    // Only the first completion counts: a result, an abort and the worker's own cleanup can all race here
+    private void completeTrace(String sessionId, ExecutionTrace trace, String outcome) {
+        if (trace == null || !traces.remove(sessionId, trace)) {
+            return;
+        }
+        reportTimings(sessionId, traceRecorder.complete(trace, outcome));
+    }
+
+    private void reportTimings(String sessionId, ExecutionTiming timing) {
+        log.info("⏱️ EXECUTION {} {} - {}", timing.executionId(), timing.outcome(), timing.phasesMs());
+
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", "EXECUTION_TIMINGS");
+        message.put("executionId", timing.executionId());
+        message.put("outcome", timing.outcome());
+        message.put("messages", timing.messages());
+        message.put("phasesMs", timing.phasesMs());
+        message.put("timestamp", System.currentTimeMillis());
+        message.put("sessionId", "sandbox");
+        sendWebSocketMessage(sessionId, message, null);
+    }
+
+    private Timer phaseTimer(String name, String outcome) {
+        return Timer.builder(name)
+                .description("Sandbox execution phase latency")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
     private void closeSocketConnection(String sessionId) {
+        closeSocketConnection(sessionId, activeSockets.get(sessionId));
+    }
+
+    // Session state is only torn down while it still belongs to this socket; a rerun may already own the session
+    private void closeSocketConnection(String sessionId, Socket socket) {
         log.info("🔌 CLOSING SOCKET CONNECTION for session: {}", sessionId);
+        if (socket == null) {
+            return;
+        }
 
-        PrintWriter writer = socketWriters.remove(sessionId);
-        if (writer != null) {
-            try {
-                writer.close();
-            } catch (Exception e) {
-                // ignore
+        if (activeSockets.remove(sessionId, socket)) {
+            finishRun(sessionId, "aborted");
+            completeTrace(sessionId, traces.get(sessionId), "aborted");
+
+            PrintWriter writer = socketWriters.remove(sessionId);
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (Exception e) {
+                    // ignore
+                }
             }
         }
 
-        Socket socket = activeSockets.remove(sessionId);
-        if (socket != null) {
-            closeSocket(socket);
-        }
+        closeSocket(socket);
     }
 
     private void closeSocket(Socket socket) {
@@ -486,12 +657,24 @@ public class SandboxService {
     }
 
     private void sendWebSocketMessage(String sessionId, Map<String, Object> message) {
+        sendWebSocketMessage(sessionId, message, traces.get(sessionId));
+    }
+
+    private void sendWebSocketMessage(String sessionId, Map<String, Object> message, ExecutionTrace trace) {
         try {
             WebSocketSession session = webSocketSessions.get(sessionId);
             if (session != null && session.isOpen()) {
                 String jsonMessage = objectMapper.writeValueAsString(message);
-                synchronized (session) {
-                    session.sendMessage(new TextMessage(jsonMessage));
+                SandboxMessageEvent event = new SandboxMessageEvent();
+                event.begin();
+                long startedAt = System.nanoTime();
+                WebSocketSendLock.send(session, new TextMessage(jsonMessage));
+                if (trace != null) {
+                    trace.delivered(System.nanoTime() - startedAt);
+                }
+                if (event.isEnabled()) {
+                    event.finish(String.valueOf(message.get("type")), trace != null ? trace.getProjectId() : 0,
+                            trace != null ? trace.getId() : null, jsonMessage.getBytes(StandardCharsets.UTF_8).length);
                 }
                 log.debug("📤 WEB SOCKET SENT to {}: {} - {}", sessionId, message.get("type"), message.get("message"));
             } else {
@@ -527,6 +710,32 @@ public class SandboxService {
                 .create();
     }
 
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+
     @FunctionalInterface
     private interface SocketOperation {
         void execute() throws Exception;
@@ -1,17 +1,25 @@
 package io.byteforge.backend.service;
 
+import io.byteforge.backend.config.CacheConfig;
 import io.byteforge.backend.exceptions.UserNotFoundException;
+import io.byteforge.backend.model.custom.ProfileImageSize;
 import io.byteforge.backend.model.dto.UserDto;
 import io.byteforge.backend.model.entity.User;
 import io.byteforge.backend.repository.UserRepository;
+import io.byteforge.backend.service.image.ProfileImageStore;
+import io.byteforge.backend.service.tokens.UserTokensRevokedEvent;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -19,97 +27,107 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.time.Duration;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class UserService {
 
-    @Value("${file.storage.path:/uploads}")
-    private String storagePath;
+    private static final Duration IMMUTABLE_MAX_AGE = Duration.ofDays(365);
 
     private final UserRepository userRepository;
+    private final ProfileImageStore profileImageStore;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ResponseEntity<UserDto.Response> getUser(Long userId) {
-        User user = userRepository.findById(userId)
+        UserDto.Profile user = userRepository.findProfileById(userId)
                 .orElseThrow(() -> new UserNotFoundException("User with id: " + userId + " not found"));
 
         return ResponseEntity.status(HttpServletResponse.SC_OK).body(UserDto.Response.toDto(user));
     }
 
+    // Contributor lists carry usernames and emails too
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#userId"),
+            @CacheEvict(cacheNames = CacheConfig.MEMBERSHIPS, allEntries = true)
+    })
     public ResponseEntity<UserDto.Response> updateUser(Long userId, UserDto.Update userData) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException("User with id: " + userId + " not found"));
 
+        boolean renamed = !user.getUsername().equals(userData.getUsername());
         user.setEmail(userData.getEmail());
         user.setUsername(userData.getUsername());
+        User savedUser = userRepository.save(user);
+
+        // Access tokens carry the username; make every device refresh rather than show the old one until expiry
+        if (renamed) {
+            eventPublisher.publishEvent(new UserTokensRevokedEvent(userId));
+        }
 
-        return ResponseEntity.status(HttpServletResponse.SC_OK)
-                .body(UserDto.Response.toDto(userRepository.save(user)));
+        return ResponseEntity.status(HttpServletResponse.SC_OK).body(UserDto.Response.toDto(savedUser));
     }
 
+    // Contributor lists carry avatar URLs, and the files behind the old ones are deleted below
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USERS, key = "#userId"),
+            @CacheEvict(cacheNames = CacheConfig.MEMBERSHIPS, allEntries = true)
+    })
     public ResponseEntity<UserDto.Response> uploadProfileImage(Long userId, MultipartFile profileImage) throws IOException {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException("User with id: " + userId + " not found"));
 
-        Path storageDir = Paths.get(storagePath);
-
-        if (user.getProfileImage() != null && !user.getProfileImage().isEmpty()) {
-            Path filePath = storageDir.resolve(user.getProfileImage());
-            Files.deleteIfExists(filePath);
-        }
-
-        String uuid = UUID.randomUUID().toString();
-
-        if (!Files.exists(storageDir)) {
-            Files.createDirectories(storageDir);
-        }
-
-        String fileExtension = getFileExtension(profileImage.getOriginalFilename());
-        String fileName = uuid + (fileExtension != null ? "." + fileExtension : "");
-        Path filePath = storageDir.resolve(fileName);
-
-        Files.copy(profileImage.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        String previous = user.getProfileImage();
+        String fileName = profileImageStore.store(userId, profileImage);
 
         user.setProfileImage(fileName);
         User savedUser = userRepository.save(user);
 
+        if (previous != null && !previous.isEmpty() && !previous.equals(fileName)) {
+            profileImageStore.delete(previous);
+        }
+
         return ResponseEntity.status(HttpServletResponse.SC_OK).body(UserDto.Response.toDto(savedUser));
     }
 
-    public ResponseEntity<Resource> getProfileImage(Long userId) throws IOException {
-        User user = userRepository.findById(userId)
+    public ResponseEntity<Resource> getProfileImage(Long userId, ProfileImageSize size) throws IOException {
+        UserDto.Profile user = userRepository.findProfileById(userId)
                 .orElseThrow(() -> new UserNotFoundException("User with id: " + userId + " not found"));
 
         if (user.getProfileImage() == null || user.getProfileImage().isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        Path filePath = Paths.get(storagePath).resolve(user.getProfileImage());
-        Resource resource = new UrlResource(filePath.toUri());
-
-        if (!resource.exists()) {
+        Path filePath = profileImageStore.resolve(user.getProfileImage(), size);
+        if (filePath == null) {
             return ResponseEntity.notFound().build();
         }
 
-        String mimeType = Files.probeContentType(filePath);
-        if (mimeType == null) {
-            mimeType = "application/octet-stream";
+        // The id-based URL changes meaning on every upload, so clients revalidate it against the ETag
+        return serveImage(filePath, CacheControl.noCache().cachePrivate());
+    }
+
+    public ResponseEntity<Resource> getProfileImageFile(String fileName) throws IOException {
+        Path filePath = profileImageStore.resolveThumbnail(fileName);
+        if (filePath == null) {
+            return ResponseEntity.notFound().build();
         }
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(mimeType))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + user.getProfileImage() + "\"")
-                .body(resource);
+        return serveImage(filePath, CacheControl.maxAge(IMMUTABLE_MAX_AGE).cachePrivate().immutable());
     }
 
-    private String getFileExtension(String fileName) {
-        if (fileName == null || fileName.lastIndexOf(".") == -1) {
-            return null;
-        }
-        return fileName.substring(fileName.lastIndexOf(".") + 1);
+    // File names are content-hashed, so the name alone is a strong validator
+    private ResponseEntity<Resource> serveImage(Path filePath, CacheControl cacheControl) throws IOException {
+        String fileName = filePath.getFileName().toString();
+        MediaType mimeType = MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM);
+
+        return ResponseEntity.ok()
+                .eTag("\"" + fileName + "\"")
+                .cacheControl(cacheControl)
+                .contentType(mimeType)
+                .contentLength(Files.size(filePath))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"")
+                .body(new FileSystemResource(filePath));
     }
 }
@@ -0,0 +1,173 @@
+package io.byteforge.backend.service.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Every task gets its own virtual thread; the semaphore, not a pool size, caps how many use the resource at once
+@Slf4j
+public class Bulkhead implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    @Getter
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxWaiting;
+    private final Semaphore permits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ExecutorService executor;
+    private final Counter rejections;
+
+    public Bulkhead(String name, int maxConcurrent, int maxWaiting, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxWaiting = Math.max(0, maxWaiting);
+        // Fair, so queued work starts in the order it was submitted
+        this.permits = new Semaphore(this.maxConcurrent, true);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+
+        Gauge.builder("byteforge.bulkhead.active", this, Bulkhead::active)
+                .description("Tasks currently holding a permit")
+                .tag("resource", name)
+                .register(meterRegistry);
+        Gauge.builder("byteforge.bulkhead.waiting", permits, Semaphore::getQueueLength)
+                .description("Tasks waiting for a permit")
+                .tag("resource", name)
+                .register(meterRegistry);
+        Gauge.builder("byteforge.bulkhead.permits", this, bulkhead -> bulkhead.maxConcurrent)
+                .description("Maximum tasks allowed to use the resource at once")
+                .tag("resource", name)
+                .register(meterRegistry);
+        rejections = Counter.builder("byteforge.bulkhead.rejected")
+                .description("Tasks turned away because too many were already waiting")
+                .tag("resource", name)
+                .register(meterRegistry);
+    }
+
+    // Runs the task on a new virtual thread once a permit is free
+    public void execute(Runnable task) {
+        admit();
+        try {
+            executor.execute(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    inFlight.decrementAndGet();
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.error("Unhandled failure in {} task", name, e);
+                } finally {
+                    permits.release();
+                    inFlight.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    // Runs the task on the calling thread, which is expected to be virtual and therefore cheap to park
+    public void run(Task task) throws Exception {
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public <T> T call(Callable<T> task) throws Exception {
+        admit();
+        try {
+            permits.acquire();
+            try {
+                return task.call();
+            } finally {
+                permits.release();
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    // For work that outlives the calling method, e.g. a response body written after the controller has returned.
+    // Throws RejectedExecutionException when saturated, like execute
+    public Permit acquire() throws InterruptedException {
+        admit();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+        return new Permit();
+    }
+
+    public final class Permit implements AutoCloseable {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() {
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    public int active() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int waiting() {
+        return permits.getQueueLength();
+    }
+
+    // Lets callers turn work away before committing to it, e.g. before a response has started
+    public boolean saturated() {
+        return inFlight.get() >= maxConcurrent + maxWaiting;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("{} tasks still running after shutdown", name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void admit() {
+        if (inFlight.incrementAndGet() > maxConcurrent + maxWaiting) {
+            inFlight.decrementAndGet();
+            rejections.increment();
+            throw new RejectedExecutionException(name + " is saturated (" + maxConcurrent + " running, "
+                    + maxWaiting + " waiting)");
+        }
+    }
+}
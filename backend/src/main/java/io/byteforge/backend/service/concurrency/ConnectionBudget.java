@@ -0,0 +1,46 @@
+package io.byteforge.backend.service.concurrency;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+// Splits the JDBC pool between the bulkheads whose tasks hold a connection throughout. REST requests and @Scheduled
+// jobs are not gated; they borrow a connection briefly, and the reserved share keeps them from waiting on the bulkheads
+@Component
+@Slf4j
+public class ConnectionBudget {
+
+    @Getter
+    private final int poolSize;
+    private final int reserved;
+    private final int exportWorkers;
+    private final int exportStreams;
+
+    public ConnectionBudget(DataSource dataSource,
+                            @Value("${db.concurrency.reserved:2}") int reserved,
+                            @Value("${export.jobs.workers:2}") int exportWorkers,
+                            @Value("${export.stream.permits:2}") int exportStreams) throws SQLException {
+        this.poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        this.reserved = Math.max(0, reserved);
+        this.exportWorkers = Math.max(1, exportWorkers);
+        this.exportStreams = Math.max(1, exportStreams);
+
+        if (databasePermits() < 1) {
+            throw new IllegalStateException("A JDBC pool of " + poolSize + " cannot hold " + this.exportWorkers
+                    + " export workers, " + this.exportStreams + " export streams and " + this.reserved
+                    + " reserved connections with one left for WebSocket file operations");
+        }
+        log.info("JDBC pool of {}: {} for WebSocket file operations, {} export workers, {} export streams, {} reserved",
+                poolSize, databasePermits(), this.exportWorkers, this.exportStreams, this.reserved);
+    }
+
+    // Whatever the exports and the reserve leave over
+    public int databasePermits() {
+        return poolSize - reserved - exportWorkers - exportStreams;
+    }
+}
@@ -0,0 +1,31 @@
+package io.byteforge.backend.service.concurrency;
+
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Tomcat rejects overlapping writes to one session, and both the handler and the sandbox output readers send.
+// A ReentrantLock rather than synchronized, so a virtual thread blocked in the write unmounts instead of pinning.
+public final class WebSocketSendLock {
+
+    static final String ATTRIBUTE = WebSocketSendLock.class.getName();
+
+    private WebSocketSendLock() {
+    }
+
+    public static void send(WebSocketSession session, TextMessage message) throws IOException {
+        ReentrantLock lock = of(session);
+        lock.lock();
+        try {
+            session.sendMessage(message);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static ReentrantLock of(WebSocketSession session) {
+        return (ReentrantLock) session.getAttributes().computeIfAbsent(ATTRIBUTE, key -> new ReentrantLock());
+    }
+}
@@ -0,0 +1,41 @@
+package io.byteforge.backend.service.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("io.byteforge.Broadcast")
+@Label("Room Broadcast")
+@Category({"ByteForge", "WebSocket"})
+@Description("Fan-out of one message to every open session of a project room")
+@StackTrace(false)
+public class BroadcastEvent extends Event {
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Project Id")
+    long projectId;
+
+    @Label("Payload Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Recipients")
+    int recipients;
+
+    public void finish(String messageType, long projectId, long bytes, int recipients) {
+        end();
+        if (shouldCommit()) {
+            this.messageType = messageType;
+            this.projectId = projectId;
+            this.bytes = bytes;
+            this.recipients = recipients;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.byteforge.backend.service.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Spans the whole execution; phases the execution never reached are recorded as 0
+@Name("io.byteforge.Execution")
+@Label("Code Execution")
+@Category({"ByteForge", "Sandbox"})
+@Description("One code execution from EXECUTE_CODE to its result, broken down by phase")
+@StackTrace(false)
+class ExecutionEvent extends Event {
+
+    @Label("Execution Id")
+    String executionId;
+
+    @Label("Session Id")
+    String sessionId;
+
+    @Label("Project Id")
+    long projectId;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Queue Wait")
+    @Timespan
+    long queueWait;
+
+    @Label("Sandbox Connect")
+    @Timespan
+    long connect;
+
+    @Label("Request Send")
+    @Timespan
+    long send;
+
+    @Label("Compile")
+    @Timespan
+    long compile;
+
+    @Label("First Output")
+    @Timespan
+    long firstOutput;
+
+    @Label("Run")
+    @Timespan
+    long run;
+
+    @Label("WebSocket Delivery")
+    @Timespan
+    long delivery;
+
+    @Label("Messages Delivered")
+    int messages;
+}
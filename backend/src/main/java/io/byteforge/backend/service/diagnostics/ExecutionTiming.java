@@ -0,0 +1,21 @@
+package io.byteforge.backend.service.diagnostics;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+// Phases in milliseconds; a phase the execution never reached (no output, failed connect) is left out
+public record ExecutionTiming(String executionId, String sessionId, long projectId, String outcome, Instant startedAt,
+                              int messages, Map<String, Double> phasesMs) {
+
+    public static final String QUEUE_WAIT = "queueWait";
+    public static final String CONNECT = "connect";
+    public static final String SEND = "send";
+    public static final String COMPILE = "compile";
+    public static final String FIRST_OUTPUT = "firstOutput";
+    public static final String RUN = "run";
+    public static final String DELIVERY = "delivery";
+    public static final String TOTAL = "total";
+
+    public static final List<String> PHASES = List.of(QUEUE_WAIT, CONNECT, SEND, COMPILE, FIRST_OUTPUT, RUN, DELIVERY, TOTAL);
+}
@@ -0,0 +1,97 @@
+package io.byteforge.backend.service.diagnostics;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Timeline of one execution; marks come from the handler, the sandbox worker and the output reader threads
+public class ExecutionTrace {
+
+    public enum Mark {
+        REQUESTED, DEQUEUED, CONNECTED, SENT, COMPILED, FIRST_OUTPUT, FINISHED
+    }
+
+    @Getter
+    private final String id;
+    @Getter
+    private final String sessionId;
+    @Getter
+    private final long projectId;
+    private final Instant startedAt = Instant.now();
+
+    // 0 means not reached; only the first mark of each kind counts
+    private final AtomicLongArray marks = new AtomicLongArray(Mark.values().length);
+    private final AtomicLong deliveryNanos = new AtomicLong();
+    private final AtomicInteger messages = new AtomicInteger();
+    private final ExecutionEvent event = new ExecutionEvent();
+
+    ExecutionTrace(String id, String sessionId, long projectId) {
+        this.id = id;
+        this.sessionId = sessionId;
+        this.projectId = projectId;
+        event.begin();
+        mark(Mark.REQUESTED);
+    }
+
+    public void mark(Mark mark) {
+        marks.compareAndSet(mark.ordinal(), 0, System.nanoTime());
+    }
+
+    public void delivered(long nanos) {
+        deliveryNanos.addAndGet(nanos);
+        messages.incrementAndGet();
+    }
+
+    ExecutionTiming finish(String outcome) {
+        long finishedAt = System.nanoTime();
+        long compiledOrFinished = at(Mark.COMPILED) != 0 ? at(Mark.COMPILED) : at(Mark.FINISHED);
+
+        Map<String, Long> phases = new LinkedHashMap<>();
+        span(phases, ExecutionTiming.QUEUE_WAIT, at(Mark.REQUESTED), at(Mark.DEQUEUED));
+        span(phases, ExecutionTiming.CONNECT, at(Mark.DEQUEUED), at(Mark.CONNECTED));
+        span(phases, ExecutionTiming.SEND, at(Mark.CONNECTED), at(Mark.SENT));
+        span(phases, ExecutionTiming.COMPILE, at(Mark.SENT), compiledOrFinished);
+        span(phases, ExecutionTiming.FIRST_OUTPUT, at(Mark.COMPILED), at(Mark.FIRST_OUTPUT));
+        span(phases, ExecutionTiming.RUN, at(Mark.COMPILED), at(Mark.FINISHED));
+        if (messages.get() > 0) {
+            phases.put(ExecutionTiming.DELIVERY, deliveryNanos.get());
+        }
+        span(phases, ExecutionTiming.TOTAL, at(Mark.REQUESTED), finishedAt);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.executionId = id;
+            event.sessionId = sessionId;
+            event.projectId = projectId;
+            event.outcome = outcome;
+            event.queueWait = phases.getOrDefault(ExecutionTiming.QUEUE_WAIT, 0L);
+            event.connect = phases.getOrDefault(ExecutionTiming.CONNECT, 0L);
+            event.send = phases.getOrDefault(ExecutionTiming.SEND, 0L);
+            event.compile = phases.getOrDefault(ExecutionTiming.COMPILE, 0L);
+            event.firstOutput = phases.getOrDefault(ExecutionTiming.FIRST_OUTPUT, 0L);
+            event.run = phases.getOrDefault(ExecutionTiming.RUN, 0L);
+            event.delivery = phases.getOrDefault(ExecutionTiming.DELIVERY, 0L);
+            event.messages = messages.get();
+            event.commit();
+        }
+
+        Map<String, Double> millis = new LinkedHashMap<>();
+        phases.forEach((phase, nanos) -> millis.put(phase, nanos / 1_000L / 1_000.0));
+        return new ExecutionTiming(id, sessionId, projectId, outcome, startedAt, messages.get(), millis);
+    }
+
+    private long at(Mark mark) {
+        return marks.get(mark.ordinal());
+    }
+
+    private static void span(Map<String, Long> phases, String phase, long from, long to) {
+        if (from != 0 && to != 0 && to >= from) {
+            phases.put(phase, to - from);
+        }
+    }
+}
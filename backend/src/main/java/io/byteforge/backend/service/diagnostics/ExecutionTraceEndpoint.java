@@ -0,0 +1,34 @@
+package io.byteforge.backend.service.diagnostics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Served on the management port like the other actuator endpoints, behind the JWT filter chain
+@Component
+@Endpoint(id = "executions")
+@RequiredArgsConstructor
+public class ExecutionTraceEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final ExecutionTraceRecorder recorder;
+
+    @ReadOperation
+    public Map<String, Object> executions(@Nullable Integer limit) {
+        Map<String, Object> summary = recorder.summary();
+        summary.put("recent", recorder.recent(limit != null ? Math.max(0, limit) : DEFAULT_LIMIT));
+        return summary;
+    }
+
+    // Returning null makes actuator answer 404
+    @ReadOperation
+    public ExecutionTiming execution(@Selector String executionId) {
+        return recorder.find(executionId);
+    }
+}
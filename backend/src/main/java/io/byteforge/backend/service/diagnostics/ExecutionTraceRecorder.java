@@ -0,0 +1,118 @@
+package io.byteforge.backend.service.diagnostics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+
+// Keeps the most recent executions in a fixed ring so "Run is slow" reports can be matched to real timings
+@Component
+public class ExecutionTraceRecorder {
+
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99};
+
+    private final ExecutionTiming[] recent;
+    private int next;
+    private long recorded;
+
+    public ExecutionTraceRecorder(@Value("${sandbox.traces.capacity:512}") int capacity) {
+        this.recent = new ExecutionTiming[Math.max(1, capacity)];
+    }
+
+    public ExecutionTrace start(String sessionId, long projectId) {
+        return new ExecutionTrace(UUID.randomUUID().toString(), sessionId, projectId);
+    }
+
+    public ExecutionTiming complete(ExecutionTrace trace, String outcome) {
+        ExecutionTiming timing = trace.finish(outcome);
+        synchronized (this) {
+            recent[next] = timing;
+            next = (next + 1) % recent.length;
+            recorded++;
+        }
+        return timing;
+    }
+
+    // Newest first
+    public synchronized List<ExecutionTiming> recent(int limit) {
+        List<ExecutionTiming> timings = new ArrayList<>(Math.min(limit, recent.length));
+        for (int i = 1; i <= recent.length && timings.size() < limit; i++) {
+            ExecutionTiming timing = recent[Math.floorMod(next - i, recent.length)];
+            if (timing == null) {
+                break;
+            }
+            timings.add(timing);
+        }
+        return timings;
+    }
+
+    public ExecutionTiming find(String executionId) {
+        for (ExecutionTiming timing : recent(recent.length)) {
+            if (timing.executionId().equals(executionId)) {
+                return timing;
+            }
+        }
+        return null;
+    }
+
+    public Map<String, Object> summary() {
+        List<ExecutionTiming> timings = recent(recent.length);
+        long total;
+        synchronized (this) {
+            total = recorded;
+        }
+
+        Map<String, Long> outcomes = new TreeMap<>();
+        for (ExecutionTiming timing : timings) {
+            outcomes.merge(timing.outcome(), 1L, Long::sum);
+        }
+
+        Map<String, Object> phases = new LinkedHashMap<>();
+        for (String phase : ExecutionTiming.PHASES) {
+            double[] values = timings.stream()
+                    .map(timing -> timing.phasesMs().get(phase))
+                    .filter(Objects::nonNull)
+                    .mapToDouble(Double::doubleValue)
+                    .sorted()
+                    .toArray();
+            if (values.length > 0) {
+                phases.put(phase, distribution(values));
+            }
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("recorded", total);
+        summary.put("retained", timings.size());
+        summary.put("capacity", recent.length);
+        summary.put("outcomes", outcomes);
+        summary.put("phasesMs", phases);
+        return summary;
+    }
+
+    private static Map<String, Object> distribution(double[] sorted) {
+        Map<String, Object> distribution = new LinkedHashMap<>();
+        distribution.put("count", sorted.length);
+        distribution.put("mean", round(Arrays.stream(sorted).average().orElse(0)));
+        for (double percentile : PERCENTILES) {
+            distribution.put("p" + Math.round(percentile * 100), round(nearestRank(sorted, percentile)));
+        }
+        distribution.put("max", round(sorted[sorted.length - 1]));
+        return distribution;
+    }
+
+    private static double nearestRank(double[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.min(sorted.length, Math.max(1, rank)) - 1];
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,48 @@
+package io.byteforge.backend.service.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Ends when the transaction completes, so the duration covers the commit as well as the repository calls
+@Name("io.byteforge.FileSave")
+@Label("File Save")
+@Category({"ByteForge", "Persistence"})
+@Description("One file content update through to its transaction commit")
+@StackTrace(false)
+public class FileSaveEvent extends Event {
+
+    @Label("Project Id")
+    long projectId;
+
+    @Label("File Id")
+    long fileId;
+
+    @Label("Content Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Commit")
+    @Timespan
+    long commit;
+
+    public void finish(long projectId, long fileId, long bytes, String outcome, long commitNanos) {
+        end();
+        if (shouldCommit()) {
+            this.projectId = projectId;
+            this.fileId = fileId;
+            this.bytes = bytes;
+            this.outcome = outcome;
+            this.commit = commitNanos;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package io.byteforge.backend.service.diagnostics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// One on-demand recording at a time; the previous file is kept until the next recording starts
+@Component
+@Slf4j
+public class JfrRecordings {
+
+    private static final Set<String> SETTINGS = Set.of("default", "profile");
+    // Both bundled configurations record the JVM's environment and system properties, secrets included
+    static final Set<String> SENSITIVE_EVENTS = Set.of("jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty");
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    private final Path directory;
+    private final Duration defaultDuration;
+    private final Duration maxDuration;
+    private final long maxBytes;
+
+    private Recording recording;
+    private Path file;
+    private String settings;
+    private Instant startedAt;
+
+    public JfrRecordings(@Value("${diagnostics.jfr.dir:${java.io.tmpdir}/byteforge-jfr}") Path directory,
+                         @Value("${diagnostics.jfr.default-duration:60s}") Duration defaultDuration,
+                         @Value("${diagnostics.jfr.max-duration:10m}") Duration maxDuration,
+                         @Value("${diagnostics.jfr.max-size:256MB}") DataSize maxSize) {
+        this.directory = directory;
+        this.defaultDuration = defaultDuration;
+        this.maxDuration = maxDuration;
+        this.maxBytes = maxSize.toBytes();
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(directory);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    public synchronized Map<String, Object> start(Duration duration, String settings) throws IOException {
+        if (isRunning()) {
+            throw new IllegalStateException("A recording is already running");
+        }
+
+        String configurationName = settings != null ? settings : "default";
+        if (!SETTINGS.contains(configurationName)) {
+            throw new IllegalArgumentException("Unknown recording settings '" + settings + "', expected one of " + SETTINGS);
+        }
+        Duration bounded = duration == null || duration.isNegative() || duration.isZero() ? defaultDuration : duration;
+        if (bounded.compareTo(maxDuration) > 0) {
+            bounded = maxDuration;
+        }
+
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(configurationName);
+        } catch (ParseException e) {
+            throw new IOException("Unreadable JFR configuration " + configurationName, e);
+        }
+
+        discard();
+        Instant now = Instant.now();
+        Path destination = directory.resolve("byteforge-" + FILE_TIMESTAMP.format(now) + ".jfr");
+
+        Recording started = new Recording(configuration);
+        SENSITIVE_EVENTS.forEach(started::disable);
+        started.setName("byteforge-on-demand");
+        started.setToDisk(true);
+        started.setMaxSize(maxBytes);
+        // Once the duration elapses JFR stops the recording and writes it to the destination on its own
+        started.setDuration(bounded);
+        started.setDestination(destination);
+        started.start();
+
+        recording = started;
+        file = destination;
+        this.settings = configurationName;
+        startedAt = now;
+        log.info("Started JFR recording {} ({} settings, {})", destination.getFileName(), configurationName, bounded);
+        return status();
+    }
+
+    public synchronized Map<String, Object> stop() {
+        if (isRunning()) {
+            recording.stop();
+            log.info("Stopped JFR recording {}", file.getFileName());
+        }
+        return status();
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (recording == null) {
+            status.put("state", "NONE");
+            return status;
+        }
+
+        status.put("state", recording.getState().name());
+        status.put("name", file.getFileName().toString());
+        status.put("settings", settings);
+        status.put("startedAt", startedAt);
+        status.put("duration", recording.getDuration());
+        status.put("maxSize", DataSize.ofBytes(maxBytes).toString());
+        if (Files.exists(file)) {
+            try {
+                status.put("size", Files.size(file));
+            } catch (IOException e) {
+                // the size is informational only
+            }
+        }
+        return status;
+    }
+
+    // A running recording is served as a snapshot so it can be inspected before its duration is up
+    public synchronized Path file(String name) throws IOException {
+        if (recording == null || !file.getFileName().toString().equals(name)) {
+            return null;
+        }
+
+        if (isRunning()) {
+            Path snapshot = directory.resolve(name + ".snapshot");
+            recording.dump(snapshot);
+            return snapshot;
+        }
+        return Files.exists(file) ? file : null;
+    }
+
+    private void discard() {
+        if (recording == null) {
+            return;
+        }
+
+        recording.close();
+        try {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory.resolve(file.getFileName() + ".snapshot"));
+        } catch (IOException e) {
+            log.warn("Could not delete previous JFR recording {}: {}", file, e.getMessage());
+        }
+        recording = null;
+        file = null;
+    }
+}
@@ -0,0 +1,41 @@
+package io.byteforge.backend.service.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("io.byteforge.SandboxMessage")
+@Label("Sandbox Message")
+@Category({"ByteForge", "Sandbox"})
+@Description("One sandbox message forwarded to the client's WebSocket session")
+@StackTrace(false)
+public class SandboxMessageEvent extends Event {
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Project Id")
+    long projectId;
+
+    @Label("Execution Id")
+    String executionId;
+
+    @Label("Payload Size")
+    @DataAmount
+    long bytes;
+
+    public void finish(String messageType, long projectId, String executionId, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.messageType = messageType;
+            this.projectId = projectId;
+            this.executionId = executionId;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package io.byteforge.backend.service.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("io.byteforge.WebSocketMessage")
+@Label("WebSocket Message")
+@Category({"ByteForge", "WebSocket"})
+@Description("Handling of one inbound project WebSocket message")
+@StackTrace(false)
+public class WebSocketMessageEvent extends Event {
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Project Id")
+    long projectId;
+
+    @Label("Session Id")
+    String sessionId;
+
+    @Label("Payload Size")
+    @DataAmount
+    long bytes;
+
+    public void finish(String messageType, long projectId, String sessionId, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.messageType = messageType;
+            this.projectId = projectId;
+            this.sessionId = sessionId;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
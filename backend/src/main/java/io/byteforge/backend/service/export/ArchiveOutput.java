@@ -0,0 +1,23 @@
+package io.byteforge.backend.service.export;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+interface ArchiveOutput {
+
+    void addDirectory(String name, LocalDateTime modifiedAt) throws IOException;
+
+    void addFile(String name, LocalDateTime modifiedAt, String content) throws IOException;
+
+    void addFile(String name, LocalDateTime modifiedAt, byte[] content) throws IOException;
+
+    void drain() throws IOException;
+
+    void finish() throws IOException;
+
+    long uncompressedBytes();
+
+    long compressedBytes();
+
+    long archiveBytes();
+}
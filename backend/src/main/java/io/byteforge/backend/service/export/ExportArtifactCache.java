@@ -0,0 +1,164 @@
+package io.byteforge.backend.service.export;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+@Component
+@Slf4j
+public class ExportArtifactCache {
+
+    private static final String ARTIFACT_SUFFIX = ".artifact";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Duration maxAge;
+
+    private final Map<String, Artifact> artifacts = new ConcurrentHashMap<>();
+
+    public record Artifact(String key, Path path, long size, Instant createdAt, Instant lastAccessedAt) {
+
+        Artifact touch() {
+            return new Artifact(key, path, size, createdAt, Instant.now());
+        }
+
+        public String etag() {
+            return "\"" + key + "-" + Long.toHexString(createdAt.getEpochSecond()) + "-" + Long.toHexString(size) + "\"";
+        }
+    }
+
+    public ExportArtifactCache(@Value("${export.cache.dir:${java.io.tmpdir}/byteforge-exports}") Path directory,
+                               @Value("${export.cache.max-size:1GB}") DataSize maxSize,
+                               @Value("${export.cache.max-age:24h}") Duration maxAge) {
+        this.directory = directory;
+        this.maxBytes = maxSize.toBytes();
+        this.maxAge = maxAge;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(directory);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(ARTIFACT_SUFFIX))
+                    .forEach(this::reindex);
+        }
+
+        evict();
+        log.info("Export artifact cache at {} holds {} artifact(s)", directory, artifacts.size());
+    }
+
+    public Artifact get(String key) {
+        Artifact artifact = artifacts.get(key);
+        if (artifact == null) {
+            return null;
+        }
+        if (isExpired(artifact) || !Files.exists(artifact.path())) {
+            remove(artifact);
+            return null;
+        }
+
+        Artifact touched = artifact.touch();
+        return artifacts.replace(key, artifact, touched) ? touched : artifacts.get(key);
+    }
+
+    public Artifact put(String key, Path builtArchive) throws IOException {
+        Path target = directory.resolve(key + ARTIFACT_SUFFIX);
+        try {
+            Files.move(builtArchive, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(builtArchive, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        // Second precision so Last-Modified, If-Range dates and the ETag survive a restart's re-index unchanged
+        Instant now = Instant.now();
+        Instant createdAt = now.truncatedTo(ChronoUnit.SECONDS);
+        Files.setLastModifiedTime(target, FileTime.from(createdAt));
+        Artifact artifact = new Artifact(key, target, Files.size(target), createdAt, now);
+        artifacts.put(key, artifact);
+
+        evict();
+        return artifact;
+    }
+
+    public Path newBuildFile() throws IOException {
+        return Files.createTempFile(directory, "build-", ".tmp");
+    }
+
+    public long totalBytes() {
+        return artifacts.values().stream().mapToLong(Artifact::size).sum();
+    }
+
+    @Scheduled(fixedDelayString = "${export.cache.sweep-interval:600000}")
+    public void evict() {
+        artifacts.values().stream()
+                .filter(this::isExpired)
+                .toList()
+                .forEach(this::remove);
+
+        long total = totalBytes();
+        if (total <= maxBytes) {
+            return;
+        }
+
+        List<Artifact> leastRecentlyUsed = artifacts.values().stream()
+                .sorted(Comparator.comparing(Artifact::lastAccessedAt))
+                .toList();
+
+        for (Artifact artifact : leastRecentlyUsed) {
+            if (total <= maxBytes) {
+                break;
+            }
+            if (remove(artifact)) {
+                total -= artifact.size();
+            }
+        }
+    }
+
+    private boolean isExpired(Artifact artifact) {
+        return artifact.createdAt().plus(maxAge).isBefore(Instant.now());
+    }
+
+    private boolean remove(Artifact artifact) {
+        if (!artifacts.remove(artifact.key(), artifact)) {
+            return false;
+        }
+
+        try {
+            Files.deleteIfExists(artifact.path());
+            log.debug("Evicted export artifact {} ({} bytes)", artifact.key(), artifact.size());
+        } catch (IOException e) {
+            log.warn("Failed to delete export artifact {}: {}", artifact.path(), e.getMessage());
+        }
+        return true;
+    }
+
+    private void reindex(Path path) {
+        try {
+            String fileName = path.getFileName().toString();
+            String key = fileName.substring(0, fileName.length() - ARTIFACT_SUFFIX.length());
+            Instant modifiedAt = Files.getLastModifiedTime(path).toInstant().truncatedTo(ChronoUnit.SECONDS);
+            artifacts.put(key, new Artifact(key, path, Files.size(path), modifiedAt, modifiedAt));
+        } catch (IOException e) {
+            log.warn("Skipping unreadable export artifact {}: {}", path, e.getMessage());
+        }
+    }
+}
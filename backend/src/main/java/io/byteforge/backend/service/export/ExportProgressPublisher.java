@@ -0,0 +1,89 @@
+package io.byteforge.backend.service.export;
+
+import io.byteforge.backend.model.custom.ExportStatus;
+import io.byteforge.backend.model.dto.ProjectDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+@Component
+@Slf4j
+public class ExportProgressPublisher {
+
+    public static final String PROGRESS_EVENT = "progress";
+
+    @Value("${export.jobs.sse-timeout:10m}")
+    private Duration sseTimeout;
+
+    private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    public SseEmitter subscribe(String exportId, Supplier<ProjectDto.ExportResponse> snapshot) {
+        SseEmitter emitter = new SseEmitter(sseTimeout.toMillis());
+        Set<SseEmitter> emitters = subscribers.computeIfAbsent(exportId, id -> ConcurrentHashMap.newKeySet());
+        emitters.add(emitter);
+
+        Runnable unsubscribe = () -> remove(exportId, emitter);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+
+        // Registered before reading the snapshot so a transition in between is delivered, at worst twice
+        ProjectDto.ExportResponse current = snapshot.get();
+        if (send(emitter, current) && isFinished(current)) {
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    public void publish(ProjectDto.ExportResponse update) {
+        Set<SseEmitter> emitters = subscribers.get(update.getExportId());
+        if (emitters == null) {
+            return;
+        }
+
+        boolean finished = isFinished(update);
+        for (SseEmitter emitter : emitters) {
+            if (send(emitter, update) && finished) {
+                emitter.complete();
+            }
+        }
+
+        if (finished) {
+            subscribers.remove(update.getExportId());
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private boolean send(SseEmitter emitter, ProjectDto.ExportResponse update) {
+        try {
+            emitter.send(SseEmitter.event().name(PROGRESS_EVENT).data(update));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping export progress subscriber for {}: {}", update.getExportId(), e.getMessage());
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private void remove(String exportId, SseEmitter emitter) {
+        subscribers.computeIfPresent(exportId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private boolean isFinished(ProjectDto.ExportResponse update) {
+        return ExportStatus.valueOf(update.getStatus()).isFinished();
+    }
+}
@@ -0,0 +1,324 @@
+package io.byteforge.backend.service.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+class ParallelZipWriter implements ArchiveOutput {
+
+    static final Set<String> PRECOMPRESSED_EXTENSIONS = Set.of(
+            "zip", "jar", "war", "gz", "tgz", "bz2", "xz", "zst", "7z", "rar",
+            "png", "jpg", "jpeg", "gif", "webp", "avif", "heic",
+            "mp3", "mp4", "m4a", "ogg", "webm", "mov",
+            "woff", "woff2", "pdf");
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private static final short VERSION_DEFAULT = 20;
+    private static final short VERSION_ZIP64 = 45;
+    private static final short FLAG_UTF8_NAMES = 0x0800;
+    private static final short METHOD_STORED = 0;
+    private static final short METHOD_DEFLATED = 8;
+    private static final int DIRECTORY_ATTRIBUTE = 0x10;
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+    private final OutputStream out;
+    private final Executor executor;
+    private final int level;
+    private final int minCompressSize;
+    private final int window;
+
+    private final Deque<CompletableFuture<Entry>> pending = new ArrayDeque<>();
+    private final List<CentralRecord> centralDirectory = new ArrayList<>();
+
+    private long offset;
+    private long uncompressedBytes;
+    private long compressedBytes;
+
+    private record Entry(byte[] name, short method, long crc, byte[] data, int length, int size, int dosTime, boolean directory) {
+    }
+
+    private record CentralRecord(byte[] name, short method, long crc, int compressedSize, int size, int dosTime,
+                                 boolean directory, long localHeaderOffset) {
+    }
+
+    ParallelZipWriter(OutputStream out, Executor executor, int level, int minCompressSize, int window) {
+        this.out = out;
+        this.executor = executor;
+        this.level = level;
+        this.minCompressSize = minCompressSize;
+        this.window = Math.max(1, window);
+    }
+
+    @Override
+    public void addDirectory(String name, LocalDateTime modifiedAt) throws IOException {
+        String directoryName = name.endsWith("/") ? name : name + "/";
+        enqueue(CompletableFuture.completedFuture(new Entry(encode(directoryName), METHOD_STORED, 0, new byte[0], 0, 0,
+                dosTime(modifiedAt), true)));
+    }
+
+    @Override
+    public void addFile(String name, LocalDateTime modifiedAt, String content) throws IOException {
+        addFile(name, modifiedAt, () -> content != null ? content.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+    }
+
+    @Override
+    public void addFile(String name, LocalDateTime modifiedAt, byte[] content) throws IOException {
+        addFile(name, modifiedAt, () -> content);
+    }
+
+    private void addFile(String name, LocalDateTime modifiedAt, Supplier<byte[]> content) throws IOException {
+        byte[] encodedName = encode(name);
+        int dosTime = dosTime(modifiedAt);
+        boolean deflate = !isPrecompressed(name);
+
+        enqueue(CompletableFuture.supplyAsync(() -> compress(encodedName, dosTime, content.get(), deflate), executor));
+    }
+
+    @Override
+    public void drain() throws IOException {
+        while (!pending.isEmpty()) {
+            write(await(pending.poll()));
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        drain();
+
+        long centralDirectoryOffset = offset;
+        for (CentralRecord record : centralDirectory) {
+            writeCentralRecord(record);
+        }
+        long centralDirectorySize = offset - centralDirectoryOffset;
+
+        writeEndOfCentralDirectory(centralDirectoryOffset, centralDirectorySize);
+        out.flush();
+    }
+
+    @Override
+    public long uncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    @Override
+    public long compressedBytes() {
+        return compressedBytes;
+    }
+
+    @Override
+    public long archiveBytes() {
+        return offset;
+    }
+
+    static boolean isPrecompressed(String name) {
+        int dot = name.lastIndexOf('.');
+        int slash = name.lastIndexOf('/');
+        if (dot <= slash + 1) {
+            return false;
+        }
+        return PRECOMPRESSED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private void enqueue(CompletableFuture<Entry> entry) throws IOException {
+        pending.add(entry);
+
+        while (!pending.isEmpty() && (pending.size() > window || pending.peek().isDone())) {
+            write(await(pending.poll()));
+        }
+    }
+
+    private Entry compress(byte[] name, int dosTime, byte[] content, boolean deflate) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+
+        if (deflate && level != Deflater.NO_COMPRESSION && content.length >= minCompressSize) {
+            byte[] deflated = deflate(content);
+            if (deflated != null) {
+                return new Entry(name, METHOD_DEFLATED, crc.getValue(), deflated, deflated.length, content.length, dosTime, false);
+            }
+        }
+
+        return new Entry(name, METHOD_STORED, crc.getValue(), content, content.length, content.length, dosTime, false);
+    }
+
+    private byte[] deflate(byte[] content) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, content.length / 2));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int written = deflater.deflate(chunk);
+                buffer.write(chunk, 0, written);
+                if (buffer.size() >= content.length) {
+                    return null;
+                }
+            }
+
+            return buffer.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void write(Entry entry) throws IOException {
+        long localHeaderOffset = offset;
+
+        ByteBuffer header = littleEndian(30 + entry.name().length);
+        header.putInt(LOCAL_HEADER_SIGNATURE)
+                .putShort(VERSION_DEFAULT)
+                .putShort(FLAG_UTF8_NAMES)
+                .putShort(entry.method())
+                .putInt(entry.dosTime())
+                .putInt((int) entry.crc())
+                .putInt(entry.length())
+                .putInt(entry.size())
+                .putShort((short) entry.name().length)
+                .putShort((short) 0)
+                .put(entry.name());
+
+        writeBuffer(header);
+        out.write(entry.data(), 0, entry.length());
+        offset += entry.length();
+
+        uncompressedBytes += entry.size();
+        compressedBytes += entry.length();
+        centralDirectory.add(new CentralRecord(entry.name(), entry.method(), entry.crc(), entry.length(), entry.size(),
+                entry.dosTime(), entry.directory(), localHeaderOffset));
+    }
+
+    private void writeCentralRecord(CentralRecord record) throws IOException {
+        boolean zip64 = record.localHeaderOffset() >= ZIP64_MAGIC;
+        int extraLength = zip64 ? 12 : 0;
+
+        ByteBuffer header = littleEndian(46 + record.name().length + extraLength);
+        header.putInt(CENTRAL_HEADER_SIGNATURE)
+                .putShort(zip64 ? VERSION_ZIP64 : VERSION_DEFAULT)
+                .putShort(zip64 ? VERSION_ZIP64 : VERSION_DEFAULT)
+                .putShort(FLAG_UTF8_NAMES)
+                .putShort(record.method())
+                .putInt(record.dosTime())
+                .putInt((int) record.crc())
+                .putInt(record.compressedSize())
+                .putInt(record.size())
+                .putShort((short) record.name().length)
+                .putShort((short) extraLength)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putInt(record.directory() ? DIRECTORY_ATTRIBUTE : 0)
+                .putInt((int) (zip64 ? ZIP64_MAGIC : record.localHeaderOffset()))
+                .put(record.name());
+
+        if (zip64) {
+            header.putShort((short) 0x0001)
+                    .putShort((short) 8)
+                    .putLong(record.localHeaderOffset());
+        }
+
+        writeBuffer(header);
+    }
+
+    private void writeEndOfCentralDirectory(long centralDirectoryOffset, long centralDirectorySize) throws IOException {
+        int entries = centralDirectory.size();
+        boolean zip64 = entries >= ZIP64_MAGIC_COUNT
+                || centralDirectoryOffset >= ZIP64_MAGIC
+                || centralDirectorySize >= ZIP64_MAGIC;
+
+        if (zip64) {
+            long zip64EndOffset = offset;
+
+            ByteBuffer record = littleEndian(56 + 20);
+            record.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE)
+                    .putLong(44)
+                    .putShort(VERSION_ZIP64)
+                    .putShort(VERSION_ZIP64)
+                    .putInt(0)
+                    .putInt(0)
+                    .putLong(entries)
+                    .putLong(entries)
+                    .putLong(centralDirectorySize)
+                    .putLong(centralDirectoryOffset);
+            record.putInt(ZIP64_LOCATOR_SIGNATURE)
+                    .putInt(0)
+                    .putLong(zip64EndOffset)
+                    .putInt(1);
+            writeBuffer(record);
+        }
+
+        ByteBuffer end = littleEndian(22);
+        end.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) Math.min(entries, ZIP64_MAGIC_COUNT))
+                .putShort((short) Math.min(entries, ZIP64_MAGIC_COUNT))
+                .putInt((int) Math.min(centralDirectorySize, ZIP64_MAGIC))
+                .putInt((int) Math.min(centralDirectoryOffset, ZIP64_MAGIC))
+                .putShort((short) 0);
+        writeBuffer(end);
+    }
+
+    private void writeBuffer(ByteBuffer buffer) throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        offset += buffer.position();
+    }
+
+    private static ByteBuffer littleEndian(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static byte[] encode(String name) {
+        return name.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int dosTime(LocalDateTime time) {
+        LocalDateTime value = time != null ? time : LocalDateTime.now();
+        if (value.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+
+        return (value.getYear() - 1980) << 25
+                | value.getMonthValue() << 21
+                | value.getDayOfMonth() << 16
+                | value.getHour() << 11
+                | value.getMinute() << 5
+                | value.getSecond() >> 1;
+    }
+
+    private static Entry await(CompletableFuture<Entry> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new IOException("Failed to compress archive entry", e.getCause());
+        }
+    }
+}
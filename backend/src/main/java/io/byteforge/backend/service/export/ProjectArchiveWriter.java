@@ -0,0 +1,215 @@
+package io.byteforge.backend.service.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.byteforge.backend.model.custom.ExportFormat;
+import io.byteforge.backend.model.custom.FileType;
+import io.byteforge.backend.model.dto.FileDto;
+import io.byteforge.backend.model.dto.ProjectDto;
+import io.byteforge.backend.model.entity.Project;
+import io.byteforge.backend.repository.ProjectFileRepository;
+import io.byteforge.backend.repository.ProjectPathTombstoneRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProjectArchiveWriter {
+
+    public static final String METADATA_ENTRY = "PROJECT_INFO.json";
+    public static final String DELETIONS_ENTRY = "DELETED_PATHS.json";
+
+    private final ProjectFileRepository projectFileRepository;
+    private final ProjectPathTombstoneRepository tombstoneRepository;
+
+    @Value("${export.compression.threads:0}")
+    private int compressionThreads;
+
+    @Value("${export.compression.level:6}")
+    private int compressionLevel;
+
+    @Value("${export.compression.min-size:256}")
+    private int minCompressSize;
+
+    private ThreadPoolExecutor compressionPool;
+    private int window;
+
+    public record ArchiveStats(long files, long folders, long bytes, long archiveBytes) {
+    }
+
+    @PostConstruct
+    public void init() {
+        int threads = compressionThreads > 0 ? compressionThreads : Runtime.getRuntime().availableProcessors();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("export-compress-");
+        threadFactory.setDaemon(true);
+
+        compressionPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 8), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+        window = threads * 4;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compressionPool.shutdown();
+    }
+
+    // The timeout bounds the queries, and Spring refuses new ones past the deadline, so a stalled download cannot pin its connection forever
+    @Transactional(readOnly = true, timeoutString = "${export.transaction-timeout:300}")
+    public ArchiveStats write(Project project, ProjectDto.ExportRequest request, OutputStream out) throws IOException {
+        ExportFormat format = ExportFormat.from(request.getFormat());
+        int level = format == ExportFormat.ZIP_STORE
+                ? Deflater.NO_COMPRESSION
+                : compressionLevel(request.getCompressionLevel());
+
+        ArchiveOutput archive = format == ExportFormat.TAR_GZ
+                ? new TarGzWriter(out, level)
+                : new ParallelZipWriter(out, compressionPool, level, minCompressSize, window);
+
+        LocalDateTime since = request.getChangedSince();
+        Set<String> written = since != null ? new HashSet<>() : null;
+        long files = 0;
+        long folders = 0;
+
+        try (Stream<FileDto.ExportEntry> entries = since != null
+                ? projectFileRepository.streamExportEntriesChangedSince(project.getId(), since)
+                : projectFileRepository.streamExportEntries(project.getId())) {
+            Iterator<FileDto.ExportEntry> iterator = entries.iterator();
+            while (iterator.hasNext()) {
+                FileDto.ExportEntry entry = iterator.next();
+                if (isExcluded(entry.getPath(), request)) {
+                    continue;
+                }
+                if (written != null) {
+                    written.add(entry.getPath());
+                }
+
+                if (entry.getType() == FileType.FOLDER) {
+                    archive.addDirectory(entry.getPath(), entry.getUpdatedAt());
+                    folders++;
+                } else {
+                    archive.addFile(entry.getPath(), entry.getUpdatedAt(), entry.getContent());
+                    files++;
+                }
+            }
+        }
+
+        archive.drain();
+        long bytes = archive.uncompressedBytes();
+
+        Map<String, Object> metadata = metadata(project, files, folders);
+        if (since != null) {
+            List<String> deleted = deletedPaths(project, request, written);
+            metadata.put("changedSince", since.toString());
+            metadata.put("deletedPaths", deleted.size());
+
+            Map<String, Object> deletions = new LinkedHashMap<>();
+            deletions.put("changedSince", since.toString());
+            deletions.put("paths", deleted);
+            archive.addFile(DELETIONS_ENTRY, LocalDateTime.now(), json(deletions));
+        }
+
+        archive.addFile(METADATA_ENTRY, LocalDateTime.now(), json(metadata));
+        archive.finish();
+
+        log.debug("Wrote {} export for project {} (changed since {}): {} files, {} folders, {} bytes ({} compressed)",
+                format, project.getId(), since, files, folders, bytes, archive.compressedBytes());
+        return new ArchiveStats(files, folders, bytes, archive.archiveBytes());
+    }
+
+    public int compressionLevel(Integer requested) {
+        if (requested == null) {
+            return compressionLevel;
+        }
+        if (requested < Deflater.NO_COMPRESSION || requested > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between 0 and 9");
+        }
+        return requested;
+    }
+
+    @Transactional(readOnly = true)
+    public String contentDigest(Project project) {
+        MessageDigest digest = sha256();
+        digest.update(String.valueOf(project.getTitle()).getBytes(StandardCharsets.UTF_8));
+
+        try (Stream<Object[]> rows = projectFileRepository.streamFingerprintRows(project.getId())) {
+            rows.forEach(row -> {
+                digest.update((byte) 0);
+                for (Object column : row) {
+                    digest.update(String.valueOf(column).getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) 0x1f);
+                }
+            });
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static boolean isExcluded(String path, ProjectDto.ExportRequest request) {
+        String lowerPath = path.toLowerCase();
+
+        return Boolean.FALSE.equals(request.getIncludeGit())
+                && (lowerPath.contains(".git/") || lowerPath.equals(".git") || lowerPath.endsWith("/.git"));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Deleted rows plus the old paths of renames and moves; a path that exists again is shipped as a file, not as a deletion
+    private List<String> deletedPaths(Project project, ProjectDto.ExportRequest request, Set<String> written) {
+        LocalDateTime since = request.getChangedSince();
+        return Stream.concat(
+                        projectFileRepository.findPathsDeletedSince(project.getId(), since).stream(),
+                        tombstoneRepository.findPathsRemovedSince(project.getId(), since).stream())
+                .filter(path -> !written.contains(path) && !isExcluded(path, request))
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    private Map<String, Object> metadata(Project project, long files, long folders) {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("projectName", project.getTitle());
+        metadata.put("projectId", project.getId());
+        metadata.put("exportDate", LocalDateTime.now().toString());
+        metadata.put("totalFiles", files);
+        metadata.put("totalFolders", folders);
+        return metadata;
+    }
+
+    private byte[] json(Object value) throws IOException {
+        return new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValueAsBytes(value);
+    }
+}
@@ -0,0 +1,196 @@
+package io.byteforge.backend.service.export;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+@Component
+@Slf4j
+public class RangedFileResponder {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String BYTES_UNIT = "bytes=";
+
+    public record FileDescriptor(Path path, long length, String etag, Instant lastModified, String contentType, String fileName) {
+    }
+
+    private record ByteRange(long start, long end) {
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    public void send(FileDescriptor file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String lastModified = DateTimeFormatter.RFC_1123_DATE_TIME.format(file.lastModified().atZone(ZoneOffset.UTC));
+
+        response.setHeader(HttpHeaders.ETAG, file.etag());
+        response.setHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-transform");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(file.fileName())
+                .build()
+                .toString());
+
+        if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), file.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !ifRangeHolds(request.getHeader(HttpHeaders.IF_RANGE), file)) {
+            transfer(file, new ByteRange(0, file.length() - 1), HttpServletResponse.SC_OK, request, response);
+            return;
+        }
+
+        ByteRange range;
+        try {
+            range = parseRange(rangeHeader, file.length());
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring Range header '{}': {}", rangeHeader, e.getMessage());
+            transfer(file, new ByteRange(0, file.length() - 1), HttpServletResponse.SC_OK, request, response);
+            return;
+        }
+
+        if (range == null) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + file.length());
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start() + "-" + range.end() + "/" + file.length());
+        transfer(file, range, HttpServletResponse.SC_PARTIAL_CONTENT, request, response);
+    }
+
+    private void transfer(FileDescriptor file, ByteRange range, int status, HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        long length = Math.max(0, range.length());
+
+        response.setStatus(status);
+        response.setContentType(file.contentType());
+        response.setContentLengthLong(length);
+
+        if (length == 0 || "HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat hands the region to the kernel after the servlet returns
+            request.setAttribute(SENDFILE_FILENAME, file.path().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, range.start());
+            request.setAttribute(SENDFILE_END, range.end() + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = range.start();
+            long remaining = length;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, target);
+                if (written <= 0) {
+                    throw new IOException("Artifact shrank while it was being sent");
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+        response.flushBuffer();
+    }
+
+    // Returns null when the range cannot be satisfied, throws when the header should be ignored
+    private static ByteRange parseRange(String header, long length) {
+        if (!header.startsWith(BYTES_UNIT)) {
+            throw new IllegalArgumentException("unsupported range unit");
+        }
+
+        String spec = header.substring(BYTES_UNIT.length()).trim();
+        if (spec.contains(",")) {
+            throw new IllegalArgumentException("multiple ranges are served as a full response");
+        }
+
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            throw new IllegalArgumentException("malformed range");
+        }
+
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+
+        try {
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    return null;
+                }
+                return new ByteRange(Math.max(0, length - suffix), length - 1);
+            }
+
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start < 0 || (!last.isEmpty() && Long.parseLong(last) < start)) {
+                throw new IllegalArgumentException("malformed range");
+            }
+            if (start >= length) {
+                return null;
+            }
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("malformed range", e);
+        }
+    }
+
+    private boolean ifRangeHolds(String ifRange, FileDescriptor file) {
+        if (ifRange == null) {
+            return true;
+        }
+
+        String value = ifRange.trim();
+        if (value.startsWith("\"")) {
+            return value.equals(file.etag());
+        }
+        if (value.startsWith("W/")) {
+            return false;
+        }
+
+        try {
+            Instant since = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return since.getEpochSecond() == file.lastModified().getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
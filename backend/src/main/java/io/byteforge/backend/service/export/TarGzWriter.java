@@ -0,0 +1,209 @@
+package io.byteforge.backend.service.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+class TarGzWriter implements ArchiveOutput {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final int NAME_LENGTH = 100;
+    private static final int PREFIX_LENGTH = 155;
+
+    private static final byte TYPE_FILE = '0';
+    private static final byte TYPE_DIRECTORY = '5';
+    private static final byte TYPE_PAX_HEADER = 'x';
+
+    private static final String FILE_MODE = "0000644";
+    private static final String DIRECTORY_MODE = "0000755";
+
+    private final CountingOutputStream counter;
+    private final GZIPOutputStream gzip;
+
+    private long uncompressedBytes;
+
+    TarGzWriter(OutputStream out, int level) throws IOException {
+        this.counter = new CountingOutputStream(out);
+        this.gzip = new GZIPOutputStream(counter, 64 * 1024) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+
+    @Override
+    public void addDirectory(String name, LocalDateTime modifiedAt) throws IOException {
+        String directoryName = name.endsWith("/") ? name : name + "/";
+        writeEntry(directoryName, TYPE_DIRECTORY, DIRECTORY_MODE, modifiedAt, new byte[0]);
+    }
+
+    @Override
+    public void addFile(String name, LocalDateTime modifiedAt, String content) throws IOException {
+        addFile(name, modifiedAt, content != null ? content.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+    }
+
+    @Override
+    public void addFile(String name, LocalDateTime modifiedAt, byte[] content) throws IOException {
+        writeEntry(name, TYPE_FILE, FILE_MODE, modifiedAt, content);
+        uncompressedBytes += content.length;
+    }
+
+    @Override
+    public void drain() {
+    }
+
+    @Override
+    public void finish() throws IOException {
+        gzip.write(new byte[BLOCK_SIZE * 2]);
+        gzip.finish();
+        gzip.flush();
+    }
+
+    @Override
+    public long uncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    @Override
+    public long compressedBytes() {
+        return counter.count;
+    }
+
+    @Override
+    public long archiveBytes() {
+        return counter.count;
+    }
+
+    private void writeEntry(String name, byte type, String mode, LocalDateTime modifiedAt, byte[] content) throws IOException {
+        long mtime = (modifiedAt != null ? modifiedAt : LocalDateTime.now()).atZone(ZoneId.systemDefault()).toEpochSecond();
+        byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+
+        int split = ustarSplit(encodedName);
+        if (split < 0) {
+            writePaxPath(name, mtime);
+            encodedName = Arrays.copyOf(encodedName, NAME_LENGTH);
+            split = 0;
+        }
+
+        byte[] header = new byte[BLOCK_SIZE];
+        if (split > 0) {
+            System.arraycopy(encodedName, split + 1, header, 0, encodedName.length - split - 1);
+            System.arraycopy(encodedName, 0, header, 345, split);
+        } else {
+            System.arraycopy(encodedName, 0, header, 0, Math.min(encodedName.length, NAME_LENGTH));
+        }
+
+        putAscii(header, 100, mode + "\0");
+        putAscii(header, 108, "0000000\0");
+        putAscii(header, 116, "0000000\0");
+        putOctal(header, 124, 12, content.length);
+        putOctal(header, 136, 12, mtime);
+        header[156] = type;
+        putAscii(header, 257, "ustar\0");
+        putAscii(header, 263, "00");
+        putChecksum(header);
+
+        gzip.write(header);
+        writePadded(content);
+    }
+
+    private void writePaxPath(String name, long mtime) throws IOException {
+        byte[] record = paxRecord("path", name);
+
+        byte[] header = new byte[BLOCK_SIZE];
+        putAscii(header, 0, "PaxHeader");
+        putAscii(header, 100, FILE_MODE + "\0");
+        putAscii(header, 108, "0000000\0");
+        putAscii(header, 116, "0000000\0");
+        putOctal(header, 124, 12, record.length);
+        putOctal(header, 136, 12, mtime);
+        header[156] = TYPE_PAX_HEADER;
+        putAscii(header, 257, "ustar\0");
+        putAscii(header, 263, "00");
+        putChecksum(header);
+
+        gzip.write(header);
+        writePadded(record);
+    }
+
+    private void writePadded(byte[] content) throws IOException {
+        gzip.write(content);
+        int remainder = content.length % BLOCK_SIZE;
+        if (remainder != 0) {
+            gzip.write(new byte[BLOCK_SIZE - remainder]);
+        }
+    }
+
+    // Returns the index of the '/' splitting prefix from name, 0 when the name fits as is, -1 when it needs PAX
+    private static int ustarSplit(byte[] name) {
+        if (name.length <= NAME_LENGTH) {
+            return 0;
+        }
+
+        for (int i = Math.min(name.length - 1, PREFIX_LENGTH); i > 0; i--) {
+            if (name[i] == '/' && name.length - i - 1 <= NAME_LENGTH && name.length - i - 1 > 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] paxRecord(String key, String value) {
+        int payload = key.length() + value.getBytes(StandardCharsets.UTF_8).length + 3;
+        int length = payload + String.valueOf(payload).length();
+        if (String.valueOf(length).length() != String.valueOf(payload).length()) {
+            length++;
+        }
+        return (length + " " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putAscii(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+
+    private static void putOctal(byte[] header, int offset, int length, long value) {
+        String octal = Long.toOctalString(value);
+        String padded = "0".repeat(Math.max(0, length - 1 - octal.length())) + octal + "\0";
+        putAscii(header, offset, padded);
+    }
+
+    private static void putChecksum(byte[] header) {
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        long sum = 0;
+        for (byte b : header) {
+            sum += b & 0xff;
+        }
+        putAscii(header, 148, String.format("%06o", sum) + "\0 ");
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package io.byteforge.backend.service.image;
+
+import io.byteforge.backend.model.custom.ProfileImageSize;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProfileImageStore {
+
+    private static final Pattern THUMBNAIL_NAME = Pattern.compile("([A-Za-z0-9-]+)-(\\d+)\\.png");
+    private static final Pattern EXTENSION = Pattern.compile("[A-Za-z0-9]{1,10}");
+    private static final int HASH_LENGTH = 32;
+
+    private final ThumbnailGenerator thumbnailGenerator;
+
+    @Value("${file.storage.path:/uploads}")
+    private String storagePath;
+
+    // Names are <userId>-<content hash>.<ext>, so a URL never points at different bytes and can be cached forever
+    public String store(Long userId, MultipartFile upload) throws IOException {
+        Path storageDir = storageDir();
+        Path temp = Files.createTempFile(storageDir, "upload-", ".tmp");
+
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(upload.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            String extension = extension(upload.getOriginalFilename());
+            String fileName = userId + "-" + HexFormat.of().formatHex(digest.digest()).substring(0, HASH_LENGTH)
+                    + (extension != null ? "." + extension : "");
+            Path original = storageDir.resolve(fileName);
+            Files.move(temp, original, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            writeThumbnails(original, fileName);
+            return fileName;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public void delete(String profileImage) throws IOException {
+        Path storageDir = Paths.get(storagePath);
+        for (ProfileImageSize size : ProfileImageSize.values()) {
+            Files.deleteIfExists(storageDir.resolve(size.fileName(profileImage)));
+        }
+    }
+
+    // Falls back to the original when a thumbnail cannot be produced, e.g. for formats ImageIO cannot decode
+    public Path resolve(String profileImage, ProfileImageSize size) throws IOException {
+        Path storageDir = Paths.get(storagePath);
+        Path original = storageDir.resolve(profileImage);
+        if (!Files.isRegularFile(original)) {
+            return null;
+        }
+        if (!size.isThumbnail()) {
+            return original;
+        }
+
+        Path thumbnail = storageDir.resolve(size.fileName(profileImage));
+        if (!Files.isRegularFile(thumbnail)) {
+            // Images uploaded before thumbnails existed get theirs on first request
+            writeThumbnails(original, profileImage);
+        }
+        return Files.isRegularFile(thumbnail) ? thumbnail : original;
+    }
+
+    public Path resolveThumbnail(String fileName) throws IOException {
+        Matcher matcher = THUMBNAIL_NAME.matcher(fileName);
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        int pixels = Integer.parseInt(matcher.group(2));
+        ProfileImageSize size = Arrays.stream(ProfileImageSize.values())
+                .filter(candidate -> candidate.isThumbnail() && candidate.getPixels() == pixels)
+                .findFirst()
+                .orElse(null);
+        if (size == null) {
+            return null;
+        }
+
+        Path thumbnail = Paths.get(storagePath).resolve(fileName);
+        if (Files.isRegularFile(thumbnail)) {
+            return thumbnail;
+        }
+
+        String original = findOriginal(matcher.group(1));
+        return original != null ? resolve(original, size) : null;
+    }
+
+    private void writeThumbnails(Path original, String profileImage) throws IOException {
+        int largest = Arrays.stream(ProfileImageSize.values()).mapToInt(ProfileImageSize::getPixels).max().orElse(0);
+
+        BufferedImage image;
+        try {
+            image = thumbnailGenerator.decode(original, largest);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not decode profile image {}: {}", profileImage, e.getMessage());
+            return;
+        }
+        if (image == null) {
+            log.warn("No image reader for profile image {}, serving the original for every size", profileImage);
+            return;
+        }
+
+        Path storageDir = original.getParent();
+        for (ProfileImageSize size : ProfileImageSize.values()) {
+            if (!size.isThumbnail()) {
+                continue;
+            }
+
+            Path temp = Files.createTempFile(storageDir, "thumb-", ".tmp");
+            try {
+                Files.write(temp, thumbnailGenerator.squarePng(image, size.getPixels()));
+                Files.move(temp, storageDir.resolve(size.fileName(profileImage)),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private String findOriginal(String base) throws IOException {
+        Path storageDir = Paths.get(storagePath);
+        if (Files.isRegularFile(storageDir.resolve(base))) {
+            return base;
+        }
+        if (!Files.isDirectory(storageDir)) {
+            return null;
+        }
+
+        try (DirectoryStream<Path> candidates = Files.newDirectoryStream(storageDir, base + ".*")) {
+            for (Path candidate : candidates) {
+                return candidate.getFileName().toString();
+            }
+        }
+        return null;
+    }
+
+    private Path storageDir() throws IOException {
+        Path storageDir = Paths.get(storagePath);
+        if (!Files.exists(storageDir)) {
+            Files.createDirectories(storageDir);
+        }
+        return storageDir;
+    }
+
+    private static String extension(String fileName) {
+        if (fileName == null || fileName.lastIndexOf(".") == -1) {
+            return null;
+        }
+
+        String extension = fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase(Locale.ROOT);
+        return EXTENSION.matcher(extension).matches() ? extension : null;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package io.byteforge.backend.service.image;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+@Component
+@Slf4j
+public class ThumbnailGenerator {
+
+    // Decoding is subsampled down to this multiple of the largest target so a 50 MB photo never lands in memory whole
+    private static final int DECODE_HEADROOM = 2;
+
+    public BufferedImage decode(Path source, int largestTarget) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                return null;
+            }
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int shortSide = Math.min(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, shortSide / (largestTarget * DECODE_HEADROOM));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    public byte[] squarePng(BufferedImage source, int size) throws IOException {
+        int side = Math.min(source.getWidth(), source.getHeight());
+        int x = (source.getWidth() - side) / 2;
+        int y = (source.getHeight() - side) / 2;
+        boolean alpha = source.getColorModel().hasAlpha();
+
+        BufferedImage current = source.getSubimage(x, y, side, side);
+        int currentSize = side;
+
+        // Halving in steps keeps bilinear filtering from skipping pixels on large downscales
+        while (currentSize / 2 >= size) {
+            currentSize /= 2;
+            current = scale(current, currentSize, alpha, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        }
+        if (currentSize != size) {
+            current = scale(current, size, alpha, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(current, "png", out);
+        return out.toByteArray();
+    }
+
+    private static BufferedImage scale(BufferedImage source, int size, boolean alpha, Object interpolation) {
+        BufferedImage target = new BufferedImage(size, size, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, size, size, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+}
@@ -0,0 +1,206 @@
+package io.byteforge.backend.service.index;
+
+import io.byteforge.backend.model.custom.FileType;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class PathTrie {
+
+    public record Entry(Long id, String name, String path, FileType type, Long parentId) {
+    }
+
+    private static class Node {
+        private String name;
+        private Long id;
+        private FileType type;
+        private boolean present;
+        private Node parent;
+        private final Map<String, Node> children = new LinkedHashMap<>();
+
+        private Node(String name, Node parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+    }
+
+    private final Node root = new Node("", null);
+    private final Map<Long, Node> byId = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(Long id, String path, FileType type) {
+        lock.writeLock().lock();
+        try {
+            Node node = getOrCreate(path);
+            node.id = id;
+            node.type = type;
+            node.present = true;
+            byId.put(id, node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean exists(String path) {
+        lock.readLock().lock();
+        try {
+            Node node = find(path);
+            return node != null && node.present;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Entry resolve(Long id) {
+        lock.readLock().lock();
+        try {
+            Node node = byId.get(id);
+            return node != null ? toEntry(node) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean reserve(String path, FileType type) {
+        lock.writeLock().lock();
+        try {
+            Node node = getOrCreate(path);
+            if (node.present) {
+                return false;
+            }
+            node.present = true;
+            node.type = type;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void commit(String path, Long id) {
+        lock.writeLock().lock();
+        try {
+            Node node = getOrCreate(path);
+            node.id = id;
+            node.present = true;
+            byId.put(id, node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void release(String path) {
+        lock.writeLock().lock();
+        try {
+            Node node = find(path);
+            if (node != null && node.id == null) {
+                node.present = false;
+                prune(node);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Node node = byId.get(id);
+            if (node == null) {
+                return;
+            }
+            forget(node);
+            node.parent.children.remove(node.name);
+            prune(node.parent);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // False when the trie no longer knows the node or its new parent; the caller should drop and reload it
+    public boolean move(Long id, Long newParentId, String newName) {
+        lock.writeLock().lock();
+        try {
+            Node node = byId.get(id);
+            if (node == null) {
+                return false;
+            }
+            Node newParent = newParentId != null && newParentId != 0 ? byId.get(newParentId) : root;
+            if (newParent == null) {
+                return false;
+            }
+
+            Node oldParent = node.parent;
+            oldParent.children.remove(node.name);
+            prune(oldParent);
+
+            Node placeholder = newParent.children.get(newName);
+            if (placeholder != null && placeholder != node) {
+                node.children.putAll(placeholder.children);
+                placeholder.children.values().forEach(child -> child.parent = node);
+            }
+
+            node.name = newName;
+            node.parent = newParent;
+            newParent.children.put(newName, node);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Node find(String path) {
+        Node current = root;
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            current = current.children.get(segment);
+            if (current == null) {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    private Node getOrCreate(String path) {
+        Node current = root;
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            Node parent = current;
+            current = parent.children.computeIfAbsent(segment, name -> new Node(name, parent));
+        }
+        return current;
+    }
+
+    private void forget(Node node) {
+        if (node.id != null) {
+            byId.remove(node.id);
+        }
+        node.children.values().forEach(this::forget);
+    }
+
+    private void prune(Node node) {
+        while (node != root && !node.present && node.children.isEmpty()) {
+            node.parent.children.remove(node.name);
+            node = node.parent;
+        }
+    }
+
+    private Entry toEntry(Node node) {
+        Long parentId = node.parent != null && node.parent != root ? node.parent.id : null;
+        return new Entry(node.id, node.name, pathOf(node), node.type, parentId);
+    }
+
+    private String pathOf(Node node) {
+        StringBuilder path = new StringBuilder(node.name);
+        for (Node current = node.parent; current != null && current != root; current = current.parent) {
+            path.insert(0, current.name + "/");
+        }
+        return path.toString();
+    }
+}
@@ -0,0 +1,85 @@
+package io.byteforge.backend.service.index;
+
+import io.byteforge.backend.model.custom.FileType;
+import io.byteforge.backend.repository.ProjectFileRepository;
+import io.byteforge.backend.repository.ProjectRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProjectPathIndex {
+
+    private final ProjectFileRepository projectFileRepository;
+    private final ProjectRepository projectRepository;
+
+    private final Map<Long, Room> rooms = new ConcurrentHashMap<>();
+
+    private static class Room {
+        private int sessions;
+        private volatile PathTrie trie;
+        // Held across the JDBC load; synchronized would pin the virtual thread to its carrier for that long
+        private final ReentrantLock loading = new ReentrantLock();
+    }
+
+    public void retain(Long projectId) {
+        rooms.compute(projectId, (id, room) -> {
+            Room current = room != null ? room : new Room();
+            current.sessions++;
+            return current;
+        });
+    }
+
+    public void release(Long projectId) {
+        rooms.computeIfPresent(projectId, (id, room) -> --room.sessions <= 0 ? null : room);
+    }
+
+    public PathTrie get(Long projectId) {
+        Room room = rooms.get(projectId);
+        if (room == null) {
+            return null;
+        }
+
+        PathTrie trie = room.trie;
+        if (trie == null) {
+            room.loading.lock();
+            try {
+                trie = room.trie;
+                if (trie == null) {
+                    trie = load(projectId);
+                    room.trie = trie;
+                }
+            } finally {
+                room.loading.unlock();
+            }
+        }
+        return trie;
+    }
+
+    public void invalidate(Long projectId) {
+        Room room = rooms.get(projectId);
+        if (room != null) {
+            room.trie = null;
+        }
+    }
+
+    private PathTrie load(Long projectId) {
+        if (!projectRepository.existsById(projectId)) {
+            return null;
+        }
+
+        PathTrie trie = new PathTrie();
+        for (Object[] row : projectFileRepository.findPathEntriesByProjectId(projectId)) {
+            trie.put((Long) row[0], (String) row[1], (FileType) row[2]);
+        }
+
+        log.info("Path index loaded for project {}", projectId);
+        return trie;
+    }
+}
@@ -4,8 +4,12 @@ import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
 import org.springframework.stereotype.Service;
 
+import java.util.UUID;
+
 @Service
 @RequiredArgsConstructor
 public class CookieService {
@@ -25,30 +29,35 @@ public class CookieService {
         return null;
     }
 
-    public void setCookieInResponse(HttpServletResponse response, long id) {
-        String accessToken = jwtService.generateAccessToken(id);
-        String refreshToken = jwtService.generateRefreshToken(id);
-
-        refreshTokenService.createRefreshToken(refreshToken, id);
+    public void setCookieInResponse(HttpServletResponse response, long id, String username) {
+        String family = UUID.randomUUID().toString();
+        setTokenCookies(response, jwtService.generateAccessToken(id, username, family), refreshTokenService.issue(id, family));
+    }
 
+    public void setTokenCookies(HttpServletResponse response, String accessToken, String refreshToken) {
         setTokenCookie(response, "ACCESS_TOKEN", accessToken, (int) (jwtService.getAccessTokenExpiration() / 1000));
         setTokenCookie(response, "REFRESH_TOKEN", refreshToken, (int) (jwtService.getRefreshTokenExpiration() / 1000));
     }
 
     public void setTokenCookie(HttpServletResponse response, String name, String token, int maxAge) {
-        Cookie cookie = new Cookie(name, token);
-        cookie.setHttpOnly(true);
-        cookie.setMaxAge(maxAge);
-        cookie.setPath("/");
-        response.addCookie(cookie);
+        ResponseCookie cookie = ResponseCookie.from(name, token)
+                .httpOnly(true)
+                // Not sent on cross-site subresource requests, WebSocket handshakes included
+                .sameSite("Lax")
+                .maxAge(maxAge)
+                .path("/")
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
     }
 
     public void removeTokenCookie(HttpServletResponse response, String name) {
-        Cookie cookie = new Cookie(name, null);
-        cookie.setHttpOnly(true);
-        cookie.setSecure(true);
-        cookie.setMaxAge(0);
-        cookie.setPath("/");
-        response.addCookie(cookie);
+        ResponseCookie cookie = ResponseCookie.from(name, "")
+                .httpOnly(true)
+                .secure(true)
+                .sameSite("Lax")
+                .maxAge(0)
+                .path("/")
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
     }
-}
\ No newline at end of file
+}
@@ -1,15 +1,27 @@
 package io.byteforge.backend.service.tokens;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JwtService {
@@ -23,54 +35,134 @@ public class JwtService {
     @Value("${jwt.refresh-token.expiration}")
     private @Getter long refreshTokenExpiration;
 
+    @Value("${jwt.verified-cache.max-size:10000}")
+    private long verifiedCacheMaxSize;
 
-    private SecretKey getSigningKey() {
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private Cache<ByteBuffer, VerifiedToken> verifiedTokens;
+
+    public static final String USERNAME_CLAIM = "username";
+    public static final String VERSION_CLAIM = "ver";
+    public static final String FAMILY_CLAIM = "fam";
+    public static final String TYPE_CLAIM = "typ";
+    public static final String ACCESS_TYPE = "access";
+    public static final String REFRESH_TYPE = "refresh";
+
+    public record VerifiedToken(Long userId, String username, String family, long issuedAt, long expiresAt) {
+    }
+
+    @PostConstruct
+    public void init() {
         byte[] keyBytes = jwtSecret.getBytes();
         if (keyBytes.length < 64) {
             throw new IllegalArgumentException("JWT secret must be at least 512 bits (64 characters) for HS512");
         }
-        return Keys.hmacShaKeyFor(keyBytes);
+
+        signingKey = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(new Expiry<ByteBuffer, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, VerifiedToken value, long currentTime) {
+                        long remainingMs = value.expiresAt() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
-    public String generateAccessToken(Long id) {
-        return generateToken(id, accessTokenExpiration);
+    public String generateAccessToken(Long id, String username) {
+        return generateAccessToken(id, username, null);
     }
 
-    public String generateRefreshToken(Long id) {
-        return generateToken(id, refreshTokenExpiration);
+    // The family ties the access token to the refresh token session it came from, so signing out can revoke just that session
+    public String generateAccessToken(Long id, String username, String family) {
+        Date now = new Date();
+
+        return Jwts.builder()
+                .setSubject(id.toString())
+                .claim(TYPE_CLAIM, ACCESS_TYPE)
+                .claim(USERNAME_CLAIM, username)
+                .claim(FAMILY_CLAIM, family)
+                .claim(VERSION_CLAIM, now.getTime())
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + accessTokenExpiration))
+                .signWith(signingKey, SignatureAlgorithm.HS512)
+                .compact();
     }
 
-    private String generateToken(Long id, long expirationMs) {
+    public String generateRefreshToken(Long id, String family) {
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + expirationMs);
 
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(id.toString())
+                .claim(TYPE_CLAIM, REFRESH_TYPE)
+                .claim(FAMILY_CLAIM, family)
                 .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .setExpiration(new Date(now.getTime() + refreshTokenExpiration))
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    // Access tokens only; anything else is rejected before it reaches the cache
+    public VerifiedToken verify(String token) {
+        ByteBuffer digest = digest(token);
+
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            return cached;
+        }
+
+        try {
+            Claims claims = parseClaims(token);
+            if (!ACCESS_TYPE.equals(claims.get(TYPE_CLAIM, String.class))) {
+                return null;
+            }
+            Long version = claims.get(VERSION_CLAIM, Long.class);
+            VerifiedToken verified = new VerifiedToken(
+                    Long.parseLong(claims.getSubject()),
+                    claims.get(USERNAME_CLAIM, String.class),
+                    claims.get(FAMILY_CLAIM, String.class),
+                    version != null ? version : claims.getIssuedAt().getTime(),
+                    claims.getExpiration().getTime());
+            verifiedTokens.put(digest, verified);
+            return verified;
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
 
-        return Long.parseLong(claims.getSubject());
+    // Refresh tokens minted before the type claim existed carry none; they are still stored, so they stay valid until they expire
+    public static boolean isRefreshToken(Claims claims) {
+        String type = claims.get(TYPE_CLAIM, String.class);
+        return type == null ? claims.get(USERNAME_CLAIM) == null : REFRESH_TYPE.equals(type);
     }
 
-    public boolean validateToken(String token) {
+    private ByteBuffer digest(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (Exception e) {
-            return false;
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
     }
-}
\ No newline at end of file
+}
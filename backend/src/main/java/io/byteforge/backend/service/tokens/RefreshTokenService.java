@@ -1,38 +1,130 @@
 package io.byteforge.backend.service.tokens;
 
-import io.byteforge.backend.exceptions.UserNotFoundException;
+import io.byteforge.backend.exceptions.AuthenticationException;
 import io.byteforge.backend.model.entity.Token;
-import io.byteforge.backend.model.entity.User;
 import io.byteforge.backend.repository.TokenRepository;
 import io.byteforge.backend.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class RefreshTokenService {
 
     private final UserRepository userRepository;
     private final TokenRepository tokenRepository;
+    private final JwtService jwtService;
 
     @Value("${jwt.refresh-token.expiration}")
     private long refreshTokenExpiration;
 
-    public Token createRefreshToken(String rawToken, Long userId) {
+    @Value("${jwt.refresh-token.purge-batch-size:1000}")
+    private int purgeBatchSize;
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("User with id " + userId + " not found"));
+    public record Rotation(Long userId, String username, String family, String refreshToken) {
+    }
+
+    public String issue(Long userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
 
-        Token newToken = new Token(
-                rawToken,
+    @Transactional
+    public String issue(Long userId, String family) {
+        String rawToken = jwtService.generateRefreshToken(userId, family);
+
+        tokenRepository.save(new Token(
+                hash(rawToken),
+                family,
                 Instant.now().plus(refreshTokenExpiration, ChronoUnit.MILLIS),
-                user
-        );
+                userRepository.getReferenceById(userId)
+        ));
+
+        return rawToken;
+    }
+
+    @Transactional(noRollbackFor = AuthenticationException.class)
+    public Rotation rotate(String rawToken) {
+        Claims claims;
+        try {
+            claims = jwtService.parseClaims(rawToken);
+        } catch (ExpiredJwtException e) {
+            tokenRepository.deleteByTokenHash(hash(rawToken));
+            throw new AuthenticationException("Refresh token expired");
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new AuthenticationException("Invalid refresh token signature");
+        }
+        if (!JwtService.isRefreshToken(claims)) {
+            throw new AuthenticationException("Invalid refresh token");
+        }
+
+        Long userId = Long.parseLong(claims.getSubject());
+        String family = claims.get(JwtService.FAMILY_CLAIM, String.class);
+
+        Optional<Token> stored = tokenRepository.findByTokenHash(hash(rawToken));
+        if (stored.isEmpty()) {
+            if (family != null) {
+                int revoked = tokenRepository.deleteFamily(userId, family);
+                log.warn("Refresh token reuse detected for user {}, revoked {} token(s) in family {}", userId, revoked, family);
+            }
+            throw new AuthenticationException("Invalid refresh token");
+        }
+
+        Token token = stored.get();
+        String rotatedToken = jwtService.generateRefreshToken(userId, token.getFamily());
+        // Another refresh with the same token (a second tab, a retry) rotated it since the lookup; that is a race, not a replay
+        if (tokenRepository.rotate(token.getTokenHash(), hash(rotatedToken),
+                Instant.now().plus(refreshTokenExpiration, ChronoUnit.MILLIS)) == 0) {
+            throw new AuthenticationException("Refresh token was already rotated");
+        }
+
+        return new Rotation(userId, token.getUser().getUsername(), token.getFamily(), rotatedToken);
+    }
+
+    @Transactional
+    public boolean revoke(String rawToken) {
+        return tokenRepository.deleteByTokenHash(hash(rawToken)) > 0;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh-token.purge-interval:3600000}",
+               initialDelayString = "${jwt.refresh-token.purge-initial-delay:60000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        int total = 0;
+        int deleted;
+
+        do {
+            deleted = tokenRepository.deleteExpiredBatch(now, purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+
+        if (total > 0) {
+            log.info("Purged {} expired refresh token(s)", total);
+        }
+    }
 
-        return tokenRepository.save(newToken);
+    static String hash(String rawToken) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,4 @@
+package io.byteforge.backend.service.tokens;
+
+public record TokenFamilyRevokedEvent(String family) {
+}
@@ -0,0 +1,56 @@
+package io.byteforge.backend.service.tokens;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private final boolean enabled;
+    private final Cache<Long, Long> revokedBefore;
+    private final Cache<String, Long> familyRevokedBefore;
+
+    public TokenRevocationService(@Value("${jwt.revocation.enabled:true}") boolean enabled,
+                                  @Value("${jwt.access-token.expiration}") long accessTokenExpiration) {
+        this.enabled = enabled;
+        this.revokedBefore = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(accessTokenExpiration))
+                .build();
+        this.familyRevokedBefore = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(accessTokenExpiration))
+                .build();
+    }
+
+    public boolean isRevoked(JwtService.VerifiedToken token) {
+        if (!enabled) {
+            return false;
+        }
+
+        Long watermark = revokedBefore.getIfPresent(token.userId());
+        if (watermark != null && token.issuedAt() <= watermark) {
+            return true;
+        }
+
+        Long familyWatermark = token.family() != null ? familyRevokedBefore.getIfPresent(token.family()) : null;
+        return familyWatermark != null && token.issuedAt() <= familyWatermark;
+    }
+
+    @EventListener
+    public void onUserTokensRevoked(UserTokensRevokedEvent event) {
+        revokedBefore.put(event.userId(), System.currentTimeMillis());
+        log.debug("Revoked access tokens issued so far for user {}", event.userId());
+    }
+
+    @EventListener
+    public void onTokenFamilyRevoked(TokenFamilyRevokedEvent event) {
+        familyRevokedBefore.put(event.family(), System.currentTimeMillis());
+        log.debug("Revoked access tokens issued so far in family {}", event.family());
+    }
+}
@@ -0,0 +1,64 @@
+CREATE INDEX IF NOT EXISTS idx_project_files_project_path_prefix
+    ON project_files (project_id, path text_pattern_ops);
+
+-- One-off data migrations record themselves here so later boots skip them
+CREATE TABLE IF NOT EXISTS schema_migrations
+(
+    name       VARCHAR(100) PRIMARY KEY,
+    applied_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+DO
+$$
+    BEGIN
+        IF NOT EXISTS (SELECT 1 FROM schema_migrations WHERE name = 'project_file_stats') THEN
+            UPDATE projects p
+            SET file_count  = stats.files,
+                total_bytes = stats.bytes
+            FROM (SELECT project_id,
+                         COUNT(*)                                AS files,
+                         COALESCE(SUM(octet_length(content)), 0) AS bytes
+                  FROM project_files
+                  WHERE deleted = false
+                  GROUP BY project_id) stats
+            WHERE stats.project_id = p.id;
+
+            INSERT INTO schema_migrations (name) VALUES ('project_file_stats');
+        END IF;
+    END
+$$;
+
+ALTER TABLE tokens ADD COLUMN IF NOT EXISTS token_hash VARCHAR(64);
+ALTER TABLE tokens ADD COLUMN IF NOT EXISTS family VARCHAR(36);
+
+-- Only databases that still have the plaintext column need the backfill; it drops the column, so this runs once
+DO
+$$
+    BEGIN
+        IF EXISTS (SELECT 1
+                   FROM information_schema.columns
+                   WHERE table_schema = current_schema()
+                     AND table_name = 'tokens'
+                     AND column_name = 'token') THEN
+            UPDATE tokens
+            SET token_hash = encode(sha256(convert_to(token, 'UTF8')), 'hex')
+            WHERE token_hash IS NULL
+              AND token IS NOT NULL;
+
+            UPDATE tokens
+            SET family = gen_random_uuid()::text
+            WHERE family IS NULL;
+
+            DELETE FROM tokens WHERE token_hash IS NULL;
+
+            ALTER TABLE tokens DROP COLUMN token;
+        END IF;
+    END
+$$;
+
+ALTER TABLE tokens ALTER COLUMN token_hash SET NOT NULL;
+ALTER TABLE tokens ALTER COLUMN family SET NOT NULL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_tokens_token_hash ON tokens (token_hash);
+CREATE INDEX IF NOT EXISTS idx_tokens_user_family ON tokens (user_id, family);
+CREATE INDEX IF NOT EXISTS idx_tokens_expiry_date ON tokens (expiry_date);
@@ -0,0 +1,65 @@
+package io.byteforge.backend;
+
+import io.byteforge.backend.model.custom.CustomUserDetails;
+import io.byteforge.backend.model.entity.Project;
+import io.byteforge.backend.model.entity.SharedProject;
+import io.byteforge.backend.model.entity.User;
+import io.byteforge.backend.repository.ProjectRepository;
+import io.byteforge.backend.repository.SharedProjectRepository;
+import io.byteforge.backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+
+// Users, projects and memberships for tests running against the H2 test profile; pull in with @Import(TestData.class)
+@TestComponent
+@RequiredArgsConstructor
+public class TestData {
+
+    private final UserRepository userRepository;
+    private final ProjectRepository projectRepository;
+    private final SharedProjectRepository sharedProjectRepository;
+
+    public User user() {
+        String name = UUID.randomUUID().toString();
+
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@byteforge.io");
+        user.setPassword("password");
+        return userRepository.save(user);
+    }
+
+    public Project project(User owner) {
+        Project project = new Project();
+        project.setTitle("Project " + UUID.randomUUID());
+        project.setOwner(owner);
+        return projectRepository.save(project);
+    }
+
+    public SharedProject share(Project project, User user, String role) {
+        SharedProject sharedProject = new SharedProject();
+        sharedProject.setProject(project);
+        sharedProject.setUser(user);
+        sharedProject.setAccessLevel(role);
+        return sharedProjectRepository.save(sharedProject);
+    }
+
+    public static Authentication authenticationOf(User user) {
+        CustomUserDetails principal = new CustomUserDetails(user.getId(), user.getUsername(), user.getPassword(),
+                List.of(new SimpleGrantedAuthority("ROLE_USER")), true);
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    public static RequestPostProcessor signedInAs(User user) {
+        return authentication(authenticationOf(user));
+    }
+}
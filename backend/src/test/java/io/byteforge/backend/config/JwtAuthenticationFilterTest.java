@@ -0,0 +1,105 @@
+package io.byteforge.backend.config;
+
+import io.byteforge.backend.model.custom.CustomUserDetails;
+import io.byteforge.backend.service.tokens.CookieService;
+import io.byteforge.backend.service.tokens.JwtService;
+import io.byteforge.backend.service.tokens.TokenFamilyRevokedEvent;
+import io.byteforge.backend.service.tokens.TokenRevocationService;
+import io.byteforge.backend.service.tokens.UserTokensRevokedEvent;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtAuthenticationFilterTest {
+
+    private JwtService jwtService;
+    private TokenRevocationService tokenRevocationService;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", "test-secret-test-secret-test-secret-test-secret-test-secret-test-secret");
+        ReflectionTestUtils.setField(jwtService, "accessTokenExpiration", TimeUnit.MINUTES.toMillis(15));
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpiration", TimeUnit.DAYS.toMillis(7));
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaxSize", 100L);
+        jwtService.init();
+
+        tokenRevocationService = new TokenRevocationService(true, TimeUnit.MINUTES.toMillis(15));
+        filter = new JwtAuthenticationFilter(jwtService, new CookieService(jwtService, null), tokenRevocationService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void buildsPrincipalFromAccessTokenClaims() throws Exception {
+        Authentication auth = authenticate(jwtService.generateAccessToken(7L, "alice"));
+
+        assertNotNull(auth);
+        CustomUserDetails principal = (CustomUserDetails) auth.getPrincipal();
+        assertEquals(7L, principal.getId());
+        assertEquals("alice", principal.getUsername());
+    }
+
+    @Test
+    void issuesTheAccessCookieAsSameSiteLax() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new CookieService(jwtService, null).setTokenCookie(response, "ACCESS_TOKEN", jwtService.generateAccessToken(7L, "alice"), 60);
+
+        assertTrue(response.getHeader("Set-Cookie").contains("SameSite=Lax"), response.getHeader("Set-Cookie"));
+    }
+
+    @Test
+    void rejectsRefreshTokenAsAccessToken() throws Exception {
+        assertNull(authenticate(jwtService.generateRefreshToken(7L, "family")));
+    }
+
+    @Test
+    void rejectsAccessTokensIssuedBeforeRevocation() throws Exception {
+        String token = jwtService.generateAccessToken(7L, "alice");
+        assertNotNull(authenticate(token));
+
+        Thread.sleep(2);
+        tokenRevocationService.onUserTokensRevoked(new UserTokensRevokedEvent(7L));
+        assertNull(authenticate(token));
+
+        Thread.sleep(2);
+        assertNotNull(authenticate(jwtService.generateAccessToken(7L, "alice")));
+    }
+
+    @Test
+    void signingOutOneSessionLeavesTheOthersSignedIn() throws Exception {
+        String laptop = jwtService.generateAccessToken(7L, "alice", "laptop");
+        String phone = jwtService.generateAccessToken(7L, "alice", "phone");
+
+        Thread.sleep(2);
+        tokenRevocationService.onTokenFamilyRevoked(new TokenFamilyRevokedEvent("laptop"));
+
+        assertNull(authenticate(laptop));
+        assertNotNull(authenticate(phone));
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/project");
+        request.setCookies(new Cookie("ACCESS_TOKEN", token));
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
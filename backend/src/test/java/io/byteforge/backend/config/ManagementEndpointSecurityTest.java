@@ -0,0 +1,63 @@
+package io.byteforge.backend.config;
+
+import io.byteforge.backend.TestData;
+import io.byteforge.backend.model.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static io.byteforge.backend.TestData.signedInAs;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Management endpoints share the application port here so MockMvc can reach them
+@SpringBootTest(properties = "management.server.port=${server.port}")
+@Import(TestData.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ManagementEndpointSecurityTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void executionTracesAreOnlyServedToLoopbackCallers() throws Exception {
+        User user = testData.user();
+
+        mockMvc.perform(get("/actuator/executions").with(signedInAs(user)).with(from("172.18.0.4")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/executions").with(signedInAs(user)).with(from("127.0.0.1")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void recordingsAreOnlyServedToLoopbackCallers() throws Exception {
+        User user = testData.user();
+
+        mockMvc.perform(get("/actuator/jfr").with(signedInAs(user)).with(from("172.18.0.4")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/jfr").with(signedInAs(user)).with(from("::1")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void healthStaysOpen() throws Exception {
+        mockMvc.perform(get("/actuator/health").with(from("172.18.0.4")))
+                .andExpect(status().isOk());
+    }
+
+    private static RequestPostProcessor from(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+}
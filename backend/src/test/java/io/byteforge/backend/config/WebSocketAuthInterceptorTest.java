@@ -0,0 +1,102 @@
+package io.byteforge.backend.config;
+
+import io.byteforge.backend.TestData;
+import io.byteforge.backend.model.entity.Project;
+import io.byteforge.backend.model.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.byteforge.backend.TestData.signedInAs;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@Import(TestData.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class WebSocketAuthInterceptorTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private WebSocketAuthInterceptor interceptor;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void attachesPrincipalForOwnersAndMembers() throws Exception {
+        User owner = testData.user();
+        User member = testData.user();
+        Project project = createProject(owner, member);
+
+        Map<String, Object> attributes = new HashMap<>();
+        assertEquals(200, handshake(project.getId(), owner, attributes));
+        assertEquals(owner.getId(), attributes.get(WebSocketAuthInterceptor.USER_ID_ATTRIBUTE));
+        assertEquals(owner.getUsername(), attributes.get(WebSocketAuthInterceptor.USERNAME_ATTRIBUTE));
+        assertEquals(project.getId(), attributes.get(WebSocketAuthInterceptor.PROJECT_ID_ATTRIBUTE));
+
+        assertEquals(200, handshake(project.getId(), member, new HashMap<>()));
+    }
+
+    @Test
+    void rejectsStrangersAndAnonymousClients() throws Exception {
+        Project project = createProject(testData.user(), testData.user());
+
+        assertEquals(403, handshake(project.getId(), testData.user(), new HashMap<>()));
+        assertEquals(401, handshake(project.getId(), null, new HashMap<>()));
+    }
+
+    @Test
+    void refusesHandshakesFromOtherOrigins() throws Exception {
+        User owner = testData.user();
+        Project project = createProject(owner, testData.user());
+
+        assertEquals(403, handshakeFrom(project.getId(), owner, "https://attacker.example"));
+        // Past the origin and access checks; MockMvc has no WebSocket container, so the missing Upgrade header ends it there
+        assertEquals(400, handshakeFrom(project.getId(), owner, "http://localhost:5173"));
+    }
+
+    private int handshakeFrom(Long projectId, User user, String origin) throws Exception {
+        return mockMvc.perform(get("/ws/project/" + projectId)
+                        .with(signedInAs(user))
+                        .header(HttpHeaders.ORIGIN, origin))
+                .andReturn().getResponse().getStatus();
+    }
+
+    private int handshake(Long projectId, User user, Map<String, Object> attributes) throws IOException {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/ws/project/" + projectId);
+        if (user != null) {
+            servletRequest.setUserPrincipal(TestData.authenticationOf(user));
+        }
+
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        ServletServerHttpResponse response = new ServletServerHttpResponse(servletResponse);
+        boolean accepted = interceptor.beforeHandshake(new ServletServerHttpRequest(servletRequest), response, null, attributes);
+        response.flush();
+
+        assertEquals(accepted, servletResponse.getStatus() == 200);
+        return servletResponse.getStatus();
+    }
+
+    private Project createProject(User owner, User member) {
+        Project project = testData.project(owner);
+        testData.share(project, member, "EDITOR");
+        return project;
+    }
+}
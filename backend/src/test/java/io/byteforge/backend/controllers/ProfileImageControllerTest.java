@@ -0,0 +1,108 @@
+package io.byteforge.backend.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.byteforge.backend.TestData;
+import io.byteforge.backend.model.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static io.byteforge.backend.TestData.signedInAs;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@Import(TestData.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProfileImageControllerTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void servesContentHashedThumbnailsWithImmutableCaching() throws Exception {
+        User user = testData.user();
+        MockMultipartFile upload = new MockMultipartFile("file", "avatar.png", "image/png", png(1200, 800));
+
+        String body = mockMvc.perform(authenticated(multipart("/api/v1/profile-image").file(upload), user))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        JsonNode response = objectMapper.readTree(body);
+        String avatarUrl = response.get("avatarUrl").asText();
+        assertTrue(avatarUrl.matches("/api/v1/profile-images/" + user.getId() + "-[0-9a-f]{32}-96\\.png"), avatarUrl);
+
+        MockHttpServletResponse thumbnail = mockMvc.perform(authenticated(get(avatarUrl), user))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/png"))
+                .andReturn()
+                .getResponse();
+        assertTrue(thumbnail.getHeader("Cache-Control").contains("immutable"));
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(thumbnail.getContentAsByteArray()));
+        assertEquals(96, image.getWidth());
+        assertEquals(96, image.getHeight());
+
+        String etag = thumbnail.getHeader("ETag");
+        assertNotNull(etag);
+        mockMvc.perform(authenticated(get(avatarUrl).header("If-None-Match", etag), user))
+                .andExpect(status().isNotModified());
+
+        MockHttpServletResponse bySize = mockMvc.perform(authenticated(get("/api/v1/profile-image/" + user.getId() + "?size=small"), user))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag))
+                .andReturn()
+                .getResponse();
+        assertTrue(bySize.getHeader("Cache-Control").contains("no-cache"));
+
+        MockMultipartFile replacement = new MockMultipartFile("file", "avatar.png", "image/png", png(300, 300));
+        mockMvc.perform(authenticated(multipart("/api/v1/profile-image").file(replacement), user))
+                .andExpect(status().isOk());
+        mockMvc.perform(authenticated(get(avatarUrl), user))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(authenticated(get("/api/v1/profile-images/" + user.getId() + "-notes.txt"), user))
+                .andExpect(status().isNotFound());
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(width % 256, 90, 200));
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private MockHttpServletRequestBuilder authenticated(MockHttpServletRequestBuilder request, User user) {
+        return request.with(signedInAs(user));
+    }
+}
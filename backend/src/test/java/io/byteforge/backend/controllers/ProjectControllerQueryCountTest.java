@@ -0,0 +1,140 @@
+package io.byteforge.backend.controllers;
+
+import io.byteforge.backend.TestData;
+import io.byteforge.backend.model.entity.Project;
+import io.byteforge.backend.model.entity.User;
+import io.byteforge.backend.repository.ProjectRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.UUID;
+
+import static io.byteforge.backend.TestData.signedInAs;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@Import(TestData.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProjectControllerQueryCountTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void contributorListingDoesNotGrowWithCollaborators() throws Exception {
+        assertConstant(project -> get("/api/v1/project/" + project.getId() + "/contributors"));
+    }
+
+    @Test
+    void projectDetailDoesNotGrowWithCollaborators() throws Exception {
+        assertConstant(project -> get("/api/v1/project/" + project.getId()));
+    }
+
+    @Test
+    void projectListingDoesNotGrowWithCollaborators() throws Exception {
+        assertConstant(project -> get("/api/v1/project"));
+    }
+
+    @Test
+    void inviteJoinDoesNotGrowWithCollaborators() throws Exception {
+        long small = countJoin(1);
+        long large = countJoin(10);
+
+        assertEquals(small, large, "statements per join grew with collaborator count");
+    }
+
+    private void assertConstant(RequestFactory request) throws Exception {
+        long small = countStatements(1, request);
+        long large = countStatements(10, request);
+
+        assertEquals(small, large, "statements per request grew with collaborator count");
+    }
+
+    private long countStatements(int collaborators, RequestFactory request) throws Exception {
+        User owner = testData.user();
+        Project project = createProject(owner, collaborators);
+
+        clearCaches();
+        statistics.clear();
+
+        mockMvc.perform(authenticated(request.build(project), owner))
+                .andExpect(status().isOk());
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long countJoin(int collaborators) throws Exception {
+        User owner = testData.user();
+        Project project = createProject(owner, collaborators);
+        project.setInviteToken(UUID.randomUUID().toString());
+        projectRepository.save(project);
+        User joiner = testData.user();
+
+        clearCaches();
+        statistics.clear();
+
+        mockMvc.perform(authenticated(post("/api/v1/project/join-link")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"token\":\"" + project.getInviteToken() + "\",\"role\":\"EDITOR\"}"), joiner))
+                .andExpect(status().isCreated());
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Project createProject(User owner, int collaborators) {
+        Project project = testData.project(owner);
+        for (int i = 0; i < collaborators; i++) {
+            testData.share(project, testData.user(), "EDITOR");
+        }
+        return project;
+    }
+
+    private void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    private RequestBuilder authenticated(MockHttpServletRequestBuilder request, User user) {
+        return request.with(signedInAs(user));
+    }
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        MockHttpServletRequestBuilder build(Project project);
+    }
+}
@@ -0,0 +1,434 @@
+package io.byteforge.backend.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.byteforge.backend.TestData;
+import io.byteforge.backend.model.custom.ExportStatus;
+import io.byteforge.backend.model.custom.FileType;
+import io.byteforge.backend.model.entity.ExportJob;
+import io.byteforge.backend.model.entity.Project;
+import io.byteforge.backend.model.entity.ProjectFile;
+import io.byteforge.backend.model.entity.ProjectPathTombstone;
+import io.byteforge.backend.model.entity.User;
+import io.byteforge.backend.repository.ExportJobRepository;
+import io.byteforge.backend.repository.ProjectFileRepository;
+import io.byteforge.backend.repository.ProjectPathTombstoneRepository;
+import io.byteforge.backend.service.FileService;
+import io.byteforge.backend.service.ProjectExportService;
+import io.byteforge.backend.service.ProjectService;
+import io.byteforge.backend.service.concurrency.Bulkhead;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcProperties;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static io.byteforge.backend.TestData.signedInAs;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@Import(TestData.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProjectExportControllerTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProjectFileRepository projectFileRepository;
+
+    @Autowired
+    private ExportJobRepository exportJobRepository;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ProjectExportService projectExportService;
+
+    @Autowired
+    private WebMvcProperties webMvcProperties;
+
+    @Autowired
+    private ProjectPathTombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Test
+    void streamsProjectFilesAsZip() throws Exception {
+        User owner = testData.user();
+        Project project = testData.project(owner);
+        ProjectFile src = createFile(project, null, "src", FileType.FOLDER, null);
+        createFile(project, src, "src/main.cpp", FileType.FILE, "int main() {}");
+        createFile(project, null, ".git", FileType.FOLDER, null);
+        createFile(project, null, ".git/HEAD", FileType.FILE, "ref: refs/heads/main");
+
+        Map<String, String> entries = unzip(stream(project, owner, "/export/stream"));
+        assertEquals("int main() {}", entries.get("src/main.cpp"));
+        assertTrue(entries.containsKey("src/"));
+        assertTrue(entries.containsKey(".git/HEAD"));
+        assertTrue(entries.get("PROJECT_INFO.json").contains("\"totalFiles\" : 2"));
+
+        Map<String, String> withoutGit = unzip(stream(project, owner, "/export/stream?includeGit=false"));
+        assertFalse(withoutGit.containsKey(".git/HEAD"));
+        assertFalse(withoutGit.containsKey(".git/"));
+        assertTrue(withoutGit.containsKey("src/main.cpp"));
+    }
+
+    @Test
+    void streamsSelectedFormat() throws Exception {
+        User owner = testData.user();
+        Project project = testData.project(owner);
+        createFile(project, null, "main.py", FileType.FILE, "print('hi')");
+
+        MvcResult result = mockMvc.perform(authenticated(get("/api/v1/project/" + project.getId() + "/export/stream?format=TAR_GZ"), owner))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] archive = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+        assertEquals((byte) 0x1f, archive[0]);
+        assertEquals((byte) 0x8b, archive[1]);
+
+        Map<String, String> stored = unzip(stream(project, owner, "/export/stream?format=ZIP_STORE"));
+        assertEquals("print('hi')", stored.get("main.py"));
+
+        Timer streamed = meterRegistry.find("byteforge.export.duration")
+                .tags("mode", "stream", "format", "TAR_GZ", "outcome", "success")
+                .timer();
+        assertNotNull(streamed);
+        assertTrue(streamed.count() >= 1);
+        DistributionSummary archiveBytes = meterRegistry.find("byteforge.export.archive")
+                .tags("mode", "stream", "format", "TAR_GZ")
+                .summary();
+        assertNotNull(archiveBytes);
+        assertTrue(archiveBytes.totalAmount() >= archive.length);
+
+        mockMvc.perform(authenticated(get("/api/v1/project/" + project.getId() + "/export/stream?format=RAR"), owner))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(authenticated(get("/api/v1/project/" + project.getId() + "/export/stream?compressionLevel=12"), owner))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamsOnlyChangesSinceTimestampOrPreviousExport() throws Exception {
+        User owner = testData.user();
+        Project project = testData.project(owner);
+        createFile(project, null, "stable.txt", FileType.FILE, "unchanged");
+        ProjectFile removed = createFile(project, null, "removed.txt", FileType.FILE, "bye");
+
+        Thread.sleep(20);
+        LocalDateTime cut = LocalDateTime.now();
+        Thread.sleep(20);
+
+        createFile(project, null, "added.txt", FileType.FILE, "hello");
+        removed.softDelete();
+        projectFileRepository.save(removed);
+
+        Map<String, String> changes = unzip(stream(project, owner, "/export/stream?changedSince=" + cut));
+        assertEquals("hello", changes.get("added.txt"));
+        assertFalse(changes.containsKey("stable.txt"));
+        assertTrue(changes.get("DELETED_PATHS.json").contains("\"removed.txt\""));
+        assertTrue(changes.get("PROJECT_INFO.json").contains("\"deletedPaths\" : 1"));
+
+        String exportId = startExport(project, owner).get("exportId").asText();
+        awaitFinished(exportId);
+        Thread.sleep(20);
+        createFile(project, null, "later.txt", FileType.FILE, "after the backup");
+
+        Map<String, String> sinceBackup = unzip(stream(project, owner, "/export/stream?sinceExportId=" + exportId));
+        assertEquals(Set.of("later.txt", "DELETED_PATHS.json", "PROJECT_INFO.json"), sinceBackup.keySet());
+        assertFalse(sinceBackup.get("DELETED_PATHS.json").contains("removed.txt"));
+
+        mockMvc.perform(authenticated(get("/api/v1/project/" + project.getId() + "/export/stream?changedSince=" + cut
+                        + "&sinceExportId=" + exportId), owner))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void reportsTheOldPathsOfRenamesAndMovesAsDeleted() throws Exception {
+        User owner = testData.user();
+        Project project = testData.project(owner);
+        ProjectFile src = createFile(project, null, "src", FileType.FOLDER, null);
+        createFile(project, src, "src/main.cpp", FileType.FILE, "int main() {}");
+        ProjectFile notes = createFile(project, null, "notes.txt", FileType.FILE, "todo");
+        ProjectFile docs = createFile(project, null, "docs", FileType.FOLDER, null);
+
+        Thread.sleep(20);
+        LocalDateTime cut = LocalDateTime.now();
+        Thread.sleep(20);
+
+        fileService.renameFile(src.getId(), "app");
+        fileService.moveFile(notes.getId(), docs.getId());
+
+        Map<String, String> changes = unzip(stream(project, owner, "/export/stream?changedSince=" + cut));
+        assertEquals("int main() {}", changes.get("app/main.cpp"));
+        assertEquals("todo", changes.get("docs/notes.txt"));
+        String deleted = changes.get("DELETED_PATHS.json");
+        assertTrue(deleted.contains("\"src\""));
+        assertTrue(deleted.contains("\"src/main.cpp\""));
+        assertTrue(deleted.contains("\"notes.txt\""));
+        assertFalse(deleted.contains("\"app"));
+        assertTrue(changes.get("PROJECT_INFO.json").contains("\"deletedPaths\" : 3"));
+    }
+
+    @Test
+    void purgesTombstonesPastTheRetentionAndRefusesIncrementalExportsThatReachThem() throws Exception {
+        User owner = testData.user();
+        Project project = testData.project(owner);
+        LocalDateTime now = LocalDateTime.now();
+        tombstone(project, "ancient.txt", now.minusDays(31));
+        tombstone(project, "recent.txt", now.minusDays(1));
+
+        projectExportService.purgeExpiredTombstones();
+
+        assertEquals(List.of("recent.txt"), tombstoneRepository.findPathsRemovedSince(project.getId(), now.minusDays(60)));
+        mockMvc.perform(authenticated(get("/api/v1/project/" + project.getId() + "/export/stream?changedSince="
+                        + now.minusDays(31)), owner))
+                .andExpect(status().isBadRequest());
+        assertNotNull(unzip(stream(project, owner, "/export/stream?changedSince=" + now.minusDays(29))));
+    }
+
+    @Test
+    void deletingAProjectDeletesItsTombstones() throws Exception {
+        Project project = testData.project(testData.user());
+        Project other = testData.project(testData.user());
+        tombstone(project, "gone.txt", LocalDateTime.now());
+        tombstone(other, "kept.txt", LocalDateTime.now());
+
+        projectService.deleteProject(project.getId());
+
+        LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
+        assertTrue(tombstoneRepository.findPathsRemovedSince(project.getId(), yesterday).isEmpty());
+        assertEquals(List.of("kept.txt"), tombstoneRepository.findPathsRemovedSince(other.getId(), yesterday));
+    }
+
+    @Test
+    void holdsAStreamSlotFromTheRequestUntilTheArchiveIsWritten() throws Exception {
+        User owner = testData.user();
+        Project project = testData.project(owner);
+        Bulkhead streams = (Bulkhead) ReflectionTestUtils.getField(projectExportService, "exportStreams");
+
+        List<Bulkhead.Permit> held = List.of(streams.acquire(), streams.acquire());
+        try {
+            mockMvc.perform(authenticated(get("/api/v1/project/" + project.getId() + "/export/stream"), owner))
+                    .andExpect(status().isTooManyRequests());
+        } finally {
+            held.forEach(Bulkhead.Permit::close);
+        }
+
+        assertNotNull(unzip(stream(project, owner, "/export/stream")));
+        assertEquals(0, streams.active());
+        // MockMvc does not enforce it, but the container would end the response at this point
+        assertEquals(Duration.ofSeconds(300), webMvcProperties.getAsync().getRequestTimeout());
+    }
+
+    @Test
+    void rejectsStrangers() throws Exception {
+        Project project = testData.project(testData.user());
+
+        mockMvc.perform(authenticated(get("/api/v1/project/" + project.getId() + "/export/stream"), testData.user()))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void persistsExportJobAndPushesCompletion() throws Exception {
+        User owner = testData.user();
+        Project project = testData.project(owner);
+        createFile(project, null, "main.py", FileType.FILE, "print('hi')");
+
+        String exportId = startExport(project, owner).get("exportId").asText();
+        ExportJob job = awaitFinished(exportId);
+        assertEquals(ExportStatus.COMPLETED, job.getStatus());
+        assertEquals(project.getId(), job.getProjectId());
+
+        MvcResult events = mockMvc.perform(authenticated(get("/api/v1/project/" + project.getId() + "/export/" + exportId + "/events"), owner))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String stream = events.getResponse().getContentAsString();
+        assertTrue(stream.contains("event:progress"));
+        assertTrue(stream.contains("\"status\":\"COMPLETED\""));
+
+        byte[] archive = mockMvc.perform(authenticated(get("/api/v1/project/" + project.getId() + "/export/" + exportId + "/download"), owner))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+        assertEquals("print('hi')", unzip(archive).get("main.py"));
+
+        JsonNode repeated = startExport(project, owner);
+        assertEquals("COMPLETED", repeated.get("status").asText());
+        assertNotEquals(exportId, repeated.get("exportId").asText());
+    }
+
+    @Test
+    void resumesDownloadsWithRangeAndIfRange() throws Exception {
+        User owner = testData.user();
+        Project project = testData.project(owner);
+        createFile(project, null, "data.txt", FileType.FILE, "payload ".repeat(500));
+
+        String exportId = startExport(project, owner).get("exportId").asText();
+        awaitFinished(exportId);
+        String url = "/api/v1/project/" + project.getId() + "/export/" + exportId + "/download";
+
+        MockHttpServletResponse full = mockMvc.perform(authenticated(get(url), owner))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andReturn()
+                .getResponse();
+        byte[] archive = full.getContentAsByteArray();
+        String etag = full.getHeader("ETag");
+        assertNotNull(etag);
+
+        byte[] tail = mockMvc.perform(authenticated(get(url).header("Range", "bytes=100-").header("If-Range", etag), owner))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 100-" + (archive.length - 1) + "/" + archive.length))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+        assertArrayEquals(Arrays.copyOfRange(archive, 100, archive.length), tail);
+
+        byte[] suffix = mockMvc.perform(authenticated(get(url).header("Range", "bytes=-10"), owner))
+                .andExpect(status().isPartialContent())
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+        assertArrayEquals(Arrays.copyOfRange(archive, archive.length - 10, archive.length), suffix);
+
+        mockMvc.perform(authenticated(get(url).header("Range", "bytes=100-").header("If-Range", "\"stale\""), owner))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue("Content-Length", archive.length));
+
+        mockMvc.perform(authenticated(get(url).header("Range", "bytes=" + archive.length + "-"), owner))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */" + archive.length));
+
+        mockMvc.perform(authenticated(get(url).header("If-None-Match", etag), owner))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void rejectsExportLookupThroughAnotherProject() throws Exception {
+        User owner = testData.user();
+        Project project = testData.project(owner);
+        Project other = testData.project(owner);
+
+        String exportId = startExport(project, owner).get("exportId").asText();
+        awaitFinished(exportId);
+
+        mockMvc.perform(authenticated(get("/api/v1/project/" + other.getId() + "/export/" + exportId + "/status"), owner))
+                .andExpect(status().isForbidden());
+    }
+
+    private JsonNode startExport(Project project, User user) throws Exception {
+        String body = mockMvc.perform(authenticated(post("/api/v1/project/" + project.getId() + "/export")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"format\":\"ZIP\",\"includeGit\":true}"), user))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private ExportJob awaitFinished(String exportId) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            ExportJob job = exportJobRepository.findById(exportId).orElseThrow();
+            if (job.getStatus().isFinished()) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        return fail("Export " + exportId + " did not finish");
+    }
+
+    private byte[] stream(Project project, User user, String suffix) throws Exception {
+        MvcResult result = mockMvc.perform(authenticated(get("/api/v1/project/" + project.getId() + suffix), user))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/zip"))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+    }
+
+    private Map<String, String> unzip(byte[] archive) throws Exception {
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zis.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private ProjectFile createFile(Project project, ProjectFile parent, String path, FileType type, String content) {
+        ProjectFile file = new ProjectFile();
+        file.setProject(project);
+        file.setParent(parent);
+        file.setPath(path);
+        file.setName(path.substring(path.lastIndexOf('/') + 1));
+        file.setType(type);
+        file.setContent(content);
+        return projectFileRepository.save(file);
+    }
+
+    private void tombstone(Project project, String path, LocalDateTime removedAt) {
+        ProjectPathTombstone tombstone = new ProjectPathTombstone();
+        tombstone.setProject(project);
+        tombstone.setPath(path);
+        tombstone.setRemovedAt(removedAt);
+        tombstoneRepository.save(tombstone);
+    }
+
+    private MockHttpServletRequestBuilder authenticated(MockHttpServletRequestBuilder request, User user) {
+        return request.with(signedInAs(user));
+    }
+}
@@ -0,0 +1,122 @@
+package io.byteforge.backend.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.byteforge.backend.TestData;
+import io.byteforge.backend.model.entity.Project;
+import io.byteforge.backend.model.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static io.byteforge.backend.TestData.signedInAs;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@Import(TestData.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProjectInviteControllerTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void joinerAskingForOwnerGetsTheRoleOnTheLink() throws Exception {
+        User owner = testData.user();
+        User joiner = testData.user();
+        Project project = testData.project(owner);
+        String token = inviteToken(project, owner, "DEVELOPER");
+
+        mockMvc.perform(post("/api/v1/project/join-link")
+                        .with(signedInAs(joiner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"token\":\"" + token + "\",\"role\":\"OWNER\"}"))
+                .andExpect(status().isCreated());
+
+        assertEquals("DEVELOPER", roleOf(project, owner, joiner));
+        mockMvc.perform(get("/api/v1/project/{id}/join-link", project.getId()).with(signedInAs(joiner)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put("/api/v1/project/{id}/contributors/{contId}", project.getId(), joiner.getId())
+                        .with(signedInAs(joiner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"role\":\"DEVELOPER\"}"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void linksDefaultToViewer() throws Exception {
+        User owner = testData.user();
+        User joiner = testData.user();
+        Project project = testData.project(owner);
+
+        String token = inviteToken(project, owner, null);
+        mockMvc.perform(post("/api/v1/project/join-link")
+                        .with(signedInAs(joiner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"token\":\"" + token + "\",\"role\":\"DEVELOPER\"}"))
+                .andExpect(status().isCreated());
+
+        assertEquals("VIEWER", roleOf(project, owner, joiner));
+    }
+
+    @Test
+    void askingForAnotherRoleReplacesTheLink() throws Exception {
+        User owner = testData.user();
+        Project project = testData.project(owner);
+
+        String developers = inviteToken(project, owner, "DEVELOPER");
+        assertEquals(developers, inviteToken(project, owner, "DEVELOPER"));
+
+        String viewers = inviteToken(project, owner, "VIEWER");
+        assertNotEquals(developers, viewers);
+
+        User late = testData.user();
+        mockMvc.perform(post("/api/v1/project/join-link")
+                .with(signedInAs(late))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"token\":\"" + developers + "\"}"));
+
+        assertNull(roleOf(project, owner, late));
+    }
+
+    private String inviteToken(Project project, User owner, String role) throws Exception {
+        MockHttpServletRequestBuilder request = get("/api/v1/project/{id}/join-link", project.getId()).with(signedInAs(owner));
+        if (role != null) {
+            request.param("role", role);
+        }
+
+        String body = mockMvc.perform(request)
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("token").asText();
+    }
+
+    private String roleOf(Project project, User viewer, User contributor) throws Exception {
+        String body = mockMvc.perform(get("/api/v1/project/{id}/contributors", project.getId()).with(signedInAs(viewer)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        for (JsonNode user : objectMapper.readTree(body)) {
+            if (user.get("id").asLong() == contributor.getId()) {
+                return user.get("role").asText();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,311 @@
+package io.byteforge.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Stand-in for the cpp_sandbox socket server: same framing (one JSON request in, unframed JSON messages out), scripted runs
+@Slf4j
+public class FakeSandboxServer implements AutoCloseable {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "fake-sandbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final List<String> inputs = new CopyOnWriteArrayList<>();
+    private final AtomicInteger completed = new AtomicInteger();
+    private volatile Scenario scenario;
+
+    public FakeSandboxServer(Scenario scenario) throws IOException {
+        this.scenario = scenario;
+        this.serverSocket = new ServerSocket(0, 512, InetAddress.getLoopbackAddress());
+        executor.submit(this::accept);
+    }
+
+    public void script(Scenario scenario) {
+        this.scenario = scenario;
+    }
+
+    public String host() {
+        return serverSocket.getInetAddress().getHostAddress();
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public List<String> requests() {
+        return Collections.unmodifiableList(requests);
+    }
+
+    public List<String> inputs() {
+        return Collections.unmodifiableList(inputs);
+    }
+
+    public int completed() {
+        return completed.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Scenario current = scenario;
+                executor.submit(() -> serve(socket, current));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.warn("Fake sandbox accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket, Scenario scenario) {
+        try (socket) {
+            Run run = new Run(socket);
+            requests.add(run.request);
+            scenario.play(run);
+            completed.incrementAndGet();
+        } catch (IOException e) {
+            log.debug("Fake sandbox connection ended: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Scenario {
+
+        void play(Run run) throws IOException, InterruptedException;
+
+        static Scenario success(String... lines) {
+            return run -> {
+                run.compileSuccess();
+                StringBuilder output = new StringBuilder();
+                for (String line : lines) {
+                    run.output(line + "\n");
+                    output.append(line).append('\n');
+                }
+                run.result("SUCCESS", 0, output.toString(), "");
+            };
+        }
+
+        // Everything is written back to back, so the backend sees many messages per socket read
+        static Scenario hugeOutput(long totalBytes, int messageSize) {
+            String payload = "x".repeat(Math.max(1, messageSize - 1)) + "\n";
+            return run -> {
+                run.compileSuccess();
+                for (long written = 0; written < totalBytes; written += payload.length()) {
+                    run.output(payload);
+                }
+                run.result("SUCCESS", 0, "", "");
+            };
+        }
+
+        static Scenario slowOutput(int lines, Duration interval) {
+            return run -> {
+                run.compileSuccess();
+                for (int i = 0; i < lines; i++) {
+                    run.pause(interval);
+                    run.output("tick " + i + "\n");
+                }
+                run.result("SUCCESS", 0, "", "");
+            };
+        }
+
+        // Prompts once and echoes whatever the backend forwards, like a program reading one line from cin
+        static Scenario inputPrompt(String prompt) {
+            return run -> {
+                run.compileSuccess();
+                run.requestInput(prompt);
+                String input = run.readInput();
+                if (input == null) {
+                    run.error("Client disconnected during input", -6);
+                    return;
+                }
+                run.output("You entered: " + input.strip() + "\n");
+                run.result("SUCCESS", 0, "", "");
+            };
+        }
+
+        static Scenario compileError(String error) {
+            return run -> run.result("COMPILATION_ERROR", -2, "", error);
+        }
+
+        static Scenario timeout(Duration limit) {
+            return run -> {
+                run.compileSuccess();
+                run.output("working...\n");
+                run.pause(limit);
+                run.result("TIME_LIMIT_EXCEEDED", -4, "working...\n",
+                        "Time limit exceeded (" + limit.toSeconds() + "s)", true);
+            };
+        }
+
+        static Scenario connectionReset(int outputsBeforeReset) {
+            return run -> {
+                run.compileSuccess();
+                for (int i = 0; i < outputsBeforeReset; i++) {
+                    run.output("partial " + i + "\n");
+                }
+                run.reset();
+            };
+        }
+
+        // Closes cleanly without ever sending EXECUTION_RESULT
+        static Scenario silentClose() {
+            return run -> run.compileSuccess();
+        }
+    }
+
+    public final class Run {
+
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final String request;
+        private final long startedAt = System.nanoTime();
+
+        private Run(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = socket.getOutputStream();
+            this.request = readRequest(in);
+        }
+
+        public String request() {
+            return request;
+        }
+
+        public void compileSuccess() throws IOException {
+            send(message("COMPILE_SUCCESS", "Code compiled successfully"));
+        }
+
+        public void output(String text) throws IOException {
+            send(message("OUTPUT", text));
+        }
+
+        public void requestInput(String prompt) throws IOException {
+            send(message("INPUT_REQUIRED", prompt));
+        }
+
+        public void error(String message, int exitCode) throws IOException {
+            Map<String, Object> error = message("ERROR", message);
+            error.put("exit_code", exitCode);
+            send(error);
+        }
+
+        // Like the sandbox, hands the program whatever one recv() returned; null when the backend hung up
+        public String readInput() throws IOException {
+            byte[] buffer = new byte[4096];
+            int read = in.read(buffer);
+            if (read < 0) {
+                return null;
+            }
+            String input = new String(buffer, 0, read, StandardCharsets.UTF_8);
+            inputs.add(input);
+            return input;
+        }
+
+        public void result(String status, int exitCode, String output, String error) throws IOException {
+            result(status, exitCode, output, error, false);
+        }
+
+        public void result(String status, int exitCode, String output, String error, boolean timedOut) throws IOException {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("type", "EXECUTION_RESULT");
+            result.put("output", output);
+            result.put("error", error);
+            result.put("status", status);
+            result.put("exit_code", exitCode);
+            result.put("execution_time_ms", (System.nanoTime() - startedAt) / 1_000_000);
+            result.put("memory_used_kb", 0);
+            result.put("timed_out", timedOut);
+            result.put("memory_exceeded", false);
+            send(result);
+        }
+
+        public void pause(Duration duration) throws InterruptedException {
+            Thread.sleep(duration.toMillis());
+        }
+
+        // SO_LINGER 0 makes close() send RST instead of FIN
+        public void reset() throws IOException {
+            socket.setSoLinger(true, 0);
+            socket.close();
+        }
+
+        private void send(Map<String, Object> message) throws IOException {
+            try {
+                out.write(OBJECT_MAPPER.writeValueAsBytes(message));
+                out.flush();
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static Map<String, Object> message(String type, String text) {
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("type", type);
+            message.put("message", text);
+            return message;
+        }
+
+        // The backend writes one JSON object without a trailing newline, so read until the braces balance
+        private static String readRequest(InputStream in) throws IOException {
+            ByteArrayOutputStream request = new ByteArrayOutputStream();
+            int depth = 0;
+            boolean inString = false;
+            boolean escaped = false;
+            int b;
+            while ((b = in.read()) != -1) {
+                request.write(b);
+                char c = (char) b;
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = inString;
+                } else if (c == '"') {
+                    inString = !inString;
+                } else if (!inString && c == '{') {
+                    depth++;
+                } else if (!inString && c == '}' && --depth == 0) {
+                    break;
+                }
+            }
+            return request.toString(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package io.byteforge.backend.service;
+
+import io.byteforge.backend.TestData;
+import io.byteforge.backend.model.dto.FileDto;
+import io.byteforge.backend.model.entity.Project;
+import io.byteforge.backend.model.entity.ProjectFile;
+import io.byteforge.backend.repository.ProjectFileRepository;
+import io.byteforge.backend.repository.ProjectRepository;
+import io.byteforge.backend.service.index.PathTrie;
+import io.byteforge.backend.service.index.ProjectPathIndex;
+import org.apache.coyote.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(TestData.class)
+@ActiveProfiles("test")
+class FileServiceTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private ProjectFileRepository projectFileRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private ProjectPathIndex pathIndex;
+
+    private Project project;
+
+    @BeforeEach
+    void setUp() {
+        project = testData.project(testData.user());
+    }
+
+    @Test
+    void renamingAFolderRewritesEveryDescendantPath() throws Exception {
+        FileDto.Response folder = folder("a_b", 0L);
+        FileDto.Response nested = folder("a_b/util", folder.getId());
+        file("a_b/util/math.cpp", nested.getId());
+        file("a_b/main.cpp", folder.getId());
+        // "_" is a LIKE wildcard, so an unescaped "a_b/%" would also match this sibling
+        FileDto.Response sibling = folder("axb", 0L);
+        file("axb/keep.cpp", sibling.getId());
+
+        FileDto.SubtreeMove move = fileService.renameFile(folder.getId(), "src");
+
+        assertEquals(4, move.getAffected());
+        assertEquals(Set.of("src", "src/util", "src/util/math.cpp", "src/main.cpp", "axb", "axb/keep.cpp"), paths());
+    }
+
+    @Test
+    void renamingRejectsNamesThatWouldChangeThePathDepth() throws Exception {
+        FileDto.Response src = folder("src", 0L);
+        file("src/main.cpp", src.getId());
+
+        for (String name : new String[]{"", " ", ".", "..", "lib/src", "/"}) {
+            assertThrows(BadRequestException.class, () -> fileService.renameFile(src.getId(), name), name);
+        }
+        assertThrows(BadRequestException.class, () -> fileService.renameFile(src.getId(), null));
+
+        assertEquals(Set.of("src", "src/main.cpp"), paths());
+    }
+
+    @Test
+    void movingAFolderRewritesEveryDescendantPath() throws Exception {
+        FileDto.Response src = folder("src", 0L);
+        FileDto.Response util = folder("src/util", src.getId());
+        file("src/util/math.cpp", util.getId());
+        FileDto.Response deeper = folder("src/util/io", util.getId());
+        file("src/util/io/read.cpp", deeper.getId());
+        FileDto.Response lib = folder("lib", 0L);
+
+        FileDto.SubtreeMove move = fileService.moveFile(util.getId(), lib.getId());
+
+        assertEquals("src/util", move.getOldPath());
+        assertEquals("lib/util", move.getNewPath());
+        assertEquals(4, move.getAffected());
+        assertEquals(Set.of("src", "lib", "lib/util", "lib/util/math.cpp", "lib/util/io", "lib/util/io/read.cpp"), paths());
+    }
+
+    @Test
+    void deletingAFolderSubtractsItsWholeSubtreeFromTheProjectStats() throws Exception {
+        FileDto.Response src = folder("src", 0L);
+        FileDto.Response util = folder("src/util", src.getId());
+        FileDto.Response math = file("src/util/math.cpp", util.getId());
+        file("src/main.cpp", src.getId());
+        FileDto.Response sibling = file("srcx.cpp", 0L);
+        fileService.updateFile(math.getId(), "π = 3.14");
+        fileService.updateFile(sibling.getId(), "int x;");
+        assertEquals(5, fileCount());
+        assertEquals(15, totalBytes());
+
+        fileService.deleteFile(src.getId());
+
+        assertEquals(1, fileCount());
+        assertEquals(6, totalBytes());
+    }
+
+    @Test
+    void editingFilesLeavesTheProjectListOrderAlone() throws Exception {
+        LocalDateTime updatedAt = projectRepository.findProjectSummaryById(project.getId()).orElseThrow().getUpdatedAt();
+
+        FileDto.Response main = file("main.cpp", 0L);
+        fileService.updateFile(main.getId(), "int main() {}");
+
+        assertEquals(updatedAt, projectRepository.findProjectSummaryById(project.getId()).orElseThrow().getUpdatedAt());
+        assertEquals(13, totalBytes());
+    }
+
+    @Test
+    void savingAStaleProjectDoesNotRollBackItsStats() throws Exception {
+        Project stale = projectRepository.findById(project.getId()).orElseThrow();
+        file("main.cpp", 0L);
+
+        stale.setTitle("Renamed");
+        projectRepository.save(stale);
+
+        assertEquals(1, fileCount());
+        assertEquals("Renamed", projectRepository.findById(project.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    void renamingWithAnOpenRoomReservesTheNewPathInTheIndex() throws Exception {
+        pathIndex.retain(project.getId());
+        try {
+            FileDto.Response src = folder("src", 0L);
+            FileDto.Response main = file("src/main.cpp", src.getId());
+            file("src/util.cpp", src.getId());
+
+            assertThrows(BadRequestException.class, () -> fileService.renameFile(main.getId(), "util.cpp"));
+
+            fileService.renameFile(main.getId(), "app.cpp");
+
+            PathTrie trie = pathIndex.get(project.getId());
+            assertTrue(trie.exists("src/app.cpp"));
+            assertFalse(trie.exists("src/main.cpp"));
+            assertEquals("src/app.cpp", trie.resolve(main.getId()).path());
+        } finally {
+            pathIndex.release(project.getId());
+        }
+    }
+
+    private FileDto.Response folder(String path, Long parentId) throws Exception {
+        return fileService.createFile(project.getId(), name(path), path, "FOLDER", parentId);
+    }
+
+    private FileDto.Response file(String path, Long parentId) throws Exception {
+        return fileService.createFile(project.getId(), name(path), path, "FILE", parentId);
+    }
+
+    private static String name(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private long fileCount() {
+        return projectRepository.findProjectSummaryById(project.getId()).orElseThrow().getFileCount();
+    }
+
+    private long totalBytes() {
+        return projectRepository.findProjectSummaryById(project.getId()).orElseThrow().getTotalBytes();
+    }
+
+    private Set<String> paths() {
+        return projectFileRepository.findByProject_Id(project.getId()).stream()
+                .map(ProjectFile::getPath)
+                .collect(Collectors.toSet());
+    }
+}
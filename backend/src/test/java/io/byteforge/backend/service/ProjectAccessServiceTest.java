@@ -0,0 +1,104 @@
+package io.byteforge.backend.service;
+
+import io.byteforge.backend.TestData;
+import io.byteforge.backend.model.entity.Project;
+import io.byteforge.backend.model.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.coyote.BadRequestException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import static io.byteforge.backend.service.ProjectAccessService.Permission.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(TestData.class)
+@ActiveProfiles("test")
+class ProjectAccessServiceTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private ProjectAccessService projectAccessService;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void rolesMapToPermissions() {
+        User owner = testData.user();
+        User editor = testData.user();
+        User viewer = testData.user();
+        Project project = testData.project(owner);
+        testData.share(project, editor, "DEVELOPER");
+        testData.share(project, viewer, "VIEWER");
+
+        assertTrue(projectAccessService.can(project.getId(), owner.getId(), MANAGE));
+        assertTrue(projectAccessService.can(project.getId(), editor.getId(), EDIT));
+        assertFalse(projectAccessService.can(project.getId(), editor.getId(), MANAGE));
+        assertTrue(projectAccessService.can(project.getId(), viewer.getId(), VIEW));
+        assertFalse(projectAccessService.can(project.getId(), viewer.getId(), EDIT));
+        assertFalse(projectAccessService.can(project.getId(), testData.user().getId(), VIEW));
+        assertFalse(projectAccessService.can(Long.MAX_VALUE, owner.getId(), VIEW));
+    }
+
+    @Test
+    void checksAreServedFromMemoryOnceLoaded() {
+        User owner = testData.user();
+        User member = testData.user();
+        Project project = testData.project(owner);
+        testData.share(project, member, "DEVELOPER");
+        projectAccessService.can(project.getId(), member.getId(), EDIT);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(projectAccessService.can(project.getId(), member.getId(), EDIT));
+        }
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void contributorChangesUpdateTheLoadedMatrix() throws Exception {
+        User owner = testData.user();
+        User member = testData.user();
+        Project project = testData.project(owner);
+        testData.share(project, member, "DEVELOPER");
+        assertTrue(projectAccessService.can(project.getId(), member.getId(), EDIT));
+
+        projectService.changeContributorRole(project.getId(), member.getId(), "VIEWER");
+        assertFalse(projectAccessService.can(project.getId(), member.getId(), EDIT));
+        assertTrue(projectAccessService.can(project.getId(), member.getId(), VIEW));
+
+        projectService.removeUserFromSharedProject(project.getId(), member.getId());
+        assertFalse(projectAccessService.can(project.getId(), member.getId(), VIEW));
+
+        String token = projectService.createJoinLink(project.getId(), "DEVELOPER").getBody().getToken();
+        projectService.joinByToken(token, member.getId());
+        assertTrue(projectAccessService.can(project.getId(), member.getId(), EDIT));
+    }
+
+    @Test
+    void onlyTheOwnerManagesWhateverTheMembershipSays() {
+        User owner = testData.user();
+        User member = testData.user();
+        Project project = testData.project(owner);
+        testData.share(project, member, ProjectAccessService.OWNER_ROLE);
+
+        assertTrue(projectAccessService.can(project.getId(), member.getId(), EDIT));
+        assertFalse(projectAccessService.can(project.getId(), member.getId(), MANAGE));
+        assertTrue(projectAccessService.can(project.getId(), owner.getId(), MANAGE));
+        assertThrows(BadRequestException.class, () -> projectService.createJoinLink(project.getId(), ProjectAccessService.OWNER_ROLE));
+        assertThrows(BadRequestException.class, () -> projectService.changeContributorRole(project.getId(), member.getId(), ProjectAccessService.OWNER_ROLE));
+    }
+}
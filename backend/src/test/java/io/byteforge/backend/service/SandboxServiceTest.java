@@ -0,0 +1,277 @@
+package io.byteforge.backend.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.byteforge.backend.service.diagnostics.ExecutionTiming;
+import io.byteforge.backend.service.diagnostics.ExecutionTrace;
+import io.byteforge.backend.service.diagnostics.ExecutionTraceRecorder;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SandboxServiceTest {
+
+    private static final String SESSION_ID = "session-1";
+    private static final long PROJECT_ID = 7L;
+    private static final String CODE = "#include <iostream>\nint main() { std::cout << \"hi\"; }";
+
+    // SandboxService logs every chunk at INFO; the burst scenarios would flood the build output
+    private static final Logger SANDBOX_LOGGER = (Logger) LoggerFactory.getLogger(SandboxService.class);
+    private static Level previousLevel;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutionTraceRecorder traces = new ExecutionTraceRecorder(16);
+    private final List<JsonNode> messages = new CopyOnWriteArrayList<>();
+
+    private FakeSandboxServer sandbox;
+    private SandboxService sandboxService;
+
+    @BeforeAll
+    static void quietSandboxLogging() {
+        previousLevel = SANDBOX_LOGGER.getLevel();
+        SANDBOX_LOGGER.setLevel(Level.WARN);
+    }
+
+    @AfterAll
+    static void restoreSandboxLogging() {
+        SANDBOX_LOGGER.setLevel(previousLevel);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (sandboxService != null) {
+            sandboxService.cleanup();
+        }
+        if (sandbox != null) {
+            sandbox.close();
+        }
+    }
+
+    @Test
+    void streamsCompileOutputAndResult() throws Exception {
+        start(FakeSandboxServer.Scenario.success("hello", "world"));
+
+        JsonNode result = await("EXECUTION_RESULT");
+        assertEquals("SUCCESS", result.get("status").asText());
+        assertEquals(0, result.get("exit_code").asInt());
+        assertEquals(1, count("COMPILE_SUCCESS"));
+        assertEquals("hello\nworld\n", outputs());
+
+        JsonNode request = objectMapper.readTree(sandbox.requests().get(0));
+        assertEquals(CODE, request.get("code").asText());
+        assertTrue(request.has("time_limit"));
+        assertEquals(1, runTimer("success").count());
+    }
+
+    @Test
+    void deliversEveryMessageOfABurst() throws Exception {
+        start(FakeSandboxServer.Scenario.hugeOutput(256 * 1024, 128));
+
+        JsonNode result = await("EXECUTION_RESULT");
+        assertEquals("SUCCESS", result.get("status").asText());
+        assertEquals(2048, count("OUTPUT"));
+        assertEquals(256 * 1024, outputs().length());
+    }
+
+    @Test
+    void reportsPhaseTimingsForEachExecution() throws Exception {
+        ExecutionTrace trace = traces.start(SESSION_ID, PROJECT_ID);
+        start(FakeSandboxServer.Scenario.success("hello"), trace);
+
+        JsonNode timings = await("EXECUTION_TIMINGS");
+        assertEquals(trace.getId(), timings.get("executionId").asText());
+        assertEquals("success", timings.get("outcome").asText());
+        for (String phase : ExecutionTiming.PHASES) {
+            assertTrue(timings.get("phasesMs").has(phase), "missing phase " + phase);
+        }
+
+        ExecutionTiming recorded = traces.find(trace.getId());
+        assertNotNull(recorded);
+        assertTrue(recorded.phasesMs().get(ExecutionTiming.TOTAL) >= recorded.phasesMs().get(ExecutionTiming.RUN));
+        assertTrue(recorded.messages() >= 4, "EXECUTION_STARTED, COMPILE_SUCCESS, OUTPUT and the result are delivered");
+    }
+
+    @Test
+    void recordsAbortedExecutionsWithoutRunPhase() throws Exception {
+        start(FakeSandboxServer.Scenario.silentClose());
+
+        JsonNode timings = await("EXECUTION_TIMINGS");
+        assertEquals("aborted", timings.get("outcome").asText());
+        assertFalse(timings.get("phasesMs").has(ExecutionTiming.RUN));
+        assertEquals(1, traces.recent(10).size());
+    }
+
+    @Test
+    void rerunsImmediatelyAfterResult() throws Exception {
+        start(FakeSandboxServer.Scenario.success("first"));
+        await("EXECUTION_RESULT");
+
+        messages.clear();
+        sandbox.script(FakeSandboxServer.Scenario.success("second"));
+        sandboxService.executeCodeInteractive(SESSION_ID, CODE, "connection-1", traces.start(SESSION_ID, PROJECT_ID));
+
+        JsonNode result = await("EXECUTION_RESULT");
+        assertEquals("SUCCESS", result.get("status").asText());
+        assertEquals("second\n", outputs());
+        assertEquals(2, sandbox.requests().size());
+        assertEquals(2, runTimer("success").count());
+    }
+
+    @Test
+    void streamsSlowOutputInOrder() throws Exception {
+        start(FakeSandboxServer.Scenario.slowOutput(5, Duration.ofMillis(30)));
+
+        await("EXECUTION_RESULT");
+        assertEquals("tick 0\ntick 1\ntick 2\ntick 3\ntick 4\n", outputs());
+    }
+
+    @Test
+    void keepsMessagesWithEscapedBackslashesIntact() throws Exception {
+        start(run -> {
+            run.compileSuccess();
+            run.output("C:\\temp\\");
+            run.output("{\"nested\": \"}\"}\n");
+            run.result("SUCCESS", 0, "", "");
+        });
+
+        await("EXECUTION_RESULT");
+        assertEquals("C:\\temp\\{\"nested\": \"}\"}\n", outputs());
+    }
+
+    @Test
+    void relaysInputPrompts() throws Exception {
+        start(FakeSandboxServer.Scenario.inputPrompt("Enter a number:"));
+
+        JsonNode prompt = await("INPUT_REQUIRED");
+        assertEquals("Enter a number:", prompt.get("message").asText());
+
+        sandboxService.sendInputToExecution(SESSION_ID, "42", "connection-1");
+
+        await("EXECUTION_RESULT");
+        assertEquals(1, count("INPUT_SENT"));
+        assertEquals("You entered: 42\n", outputs());
+        assertEquals(List.of("42"), sandbox.inputs());
+    }
+
+    @Test
+    void reportsCompilationErrors() throws Exception {
+        start(FakeSandboxServer.Scenario.compileError("main.cpp:1:1: error: expected ';'"));
+
+        JsonNode result = await("EXECUTION_RESULT");
+        assertEquals("COMPILATION_ERROR", result.get("status").asText());
+        assertEquals("main.cpp:1:1: error: expected ';'", result.get("error").asText());
+        assertEquals(0, count("COMPILE_SUCCESS"));
+    }
+
+    @Test
+    void reportsTimeLimit() throws Exception {
+        start(FakeSandboxServer.Scenario.timeout(Duration.ofMillis(300)));
+
+        JsonNode result = await("EXECUTION_RESULT");
+        assertEquals("TIME_LIMIT_EXCEEDED", result.get("status").asText());
+        assertTrue(result.get("timed_out").asBoolean());
+        assertEquals(1, runTimer("time_limit_exceeded").count());
+    }
+
+    @Test
+    void abandonsRunWhenSandboxResetsConnection() throws Exception {
+        start(FakeSandboxServer.Scenario.connectionReset(3));
+
+        JsonNode error = await("ERROR");
+        assertEquals("Connection to execution server lost", error.get("message").asText());
+        assertEquals(1, runTimer("aborted").count());
+        assertEquals(0, count("EXECUTION_RESULT"));
+    }
+
+    @Test
+    void abandonsRunWhenSandboxClosesWithoutResult() throws Exception {
+        start(FakeSandboxServer.Scenario.silentClose());
+
+        JsonNode error = await("ERROR");
+        assertEquals("Connection to execution server lost", error.get("message").asText());
+        assertEquals(1, runTimer("aborted").count());
+    }
+
+    private void start(FakeSandboxServer.Scenario scenario) throws Exception {
+        start(scenario, traces.start(SESSION_ID, PROJECT_ID));
+    }
+
+    private void start(FakeSandboxServer.Scenario scenario, ExecutionTrace trace) throws Exception {
+        sandbox = new FakeSandboxServer(scenario);
+
+        sandboxService = new SandboxService(objectMapper, meterRegistry, traces);
+        ReflectionTestUtils.setField(sandboxService, "socketHost", sandbox.host());
+        ReflectionTestUtils.setField(sandboxService, "socketPort", sandbox.port());
+        ReflectionTestUtils.setField(sandboxService, "timeoutSeconds", 5);
+        ReflectionTestUtils.setField(sandboxService, "memoryLimitMb", 64);
+        ReflectionTestUtils.setField(sandboxService, "maxConcurrentExecutions", 4);
+        ReflectionTestUtils.setField(sandboxService, "executionQueueCapacity", 4);
+        sandboxService.init();
+
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(SESSION_ID);
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            TextMessage message = invocation.getArgument(0);
+            messages.add(objectMapper.readTree(message.getPayload()));
+            return null;
+        }).when(session).sendMessage(any());
+
+        sandboxService.registerSession(SESSION_ID, session);
+        sandboxService.executeCodeInteractive(SESSION_ID, CODE, "connection-1", trace);
+    }
+
+    private JsonNode await(String type) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            for (JsonNode message : messages) {
+                if (type.equals(message.path("type").asText())) {
+                    return message;
+                }
+            }
+            Thread.sleep(20);
+        }
+        return fail("No " + type + " message, received " + messages.stream()
+                .map(message -> message.path("type").asText())
+                .collect(Collectors.toList()));
+    }
+
+    private long count(String type) {
+        return messages.stream().filter(message -> type.equals(message.path("type").asText())).count();
+    }
+
+    private String outputs() {
+        return messages.stream()
+                .filter(message -> "OUTPUT".equals(message.path("type").asText()))
+                .map(message -> message.get("message").asText())
+                .collect(Collectors.joining());
+    }
+
+    private Timer runTimer(String outcome) {
+        Timer timer = meterRegistry.find("byteforge.sandbox.run").tag("outcome", outcome).timer();
+        assertNotNull(timer, "no byteforge.sandbox.run timer for outcome " + outcome);
+        return timer;
+    }
+}
@@ -0,0 +1,82 @@
+package io.byteforge.backend.service;
+
+import io.byteforge.backend.TestData;
+import io.byteforge.backend.model.dto.ProjectDto;
+import io.byteforge.backend.model.dto.UserDto;
+import io.byteforge.backend.model.entity.Project;
+import io.byteforge.backend.model.entity.User;
+import io.byteforge.backend.service.tokens.JwtService;
+import io.byteforge.backend.service.tokens.TokenRevocationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(TestData.class)
+@ActiveProfiles("test")
+class UserServiceTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Test
+    void renamesReachCachedProfilesAndContributorLists() throws Exception {
+        User owner = testData.user();
+        User member = testData.user();
+        Project project = testData.project(owner);
+        testData.share(project, member, "EDITOR");
+
+        userService.getUser(member.getId());
+        projectService.getProjectUsers(project.getId());
+
+        userService.updateUser(member.getId(), update("renamed", member.getEmail()));
+
+        assertEquals("renamed", userService.getUser(member.getId()).getBody().getUsername());
+        assertTrue(projectService.getProjectUsers(project.getId()).getBody().stream()
+                .map(ProjectDto.ProjectUsers::getUsername)
+                .anyMatch("renamed"::equals));
+    }
+
+    @Test
+    void renamingRevokesAccessTokensCarryingTheOldName() throws Exception {
+        User user = testData.user();
+        long issuedAt = System.currentTimeMillis() - 1000;
+        JwtService.VerifiedToken token = new JwtService.VerifiedToken(user.getId(), user.getUsername(), null, issuedAt, issuedAt + 60_000);
+
+        userService.updateUser(user.getId(), update(user.getUsername(), "new-" + user.getEmail()));
+        assertFalse(tokenRevocationService.isRevoked(token));
+
+        userService.updateUser(user.getId(), update("renamed", user.getEmail()));
+        assertTrue(tokenRevocationService.isRevoked(token));
+    }
+
+    @Test
+    void failedUpdateLeavesTheCachedProfileUntouched() {
+        User user = testData.user();
+        userService.getUser(user.getId());
+
+        assertThrows(RuntimeException.class, () -> userService.updateUser(user.getId(), update(null, user.getEmail())));
+
+        assertEquals(user.getUsername(), userService.getUser(user.getId()).getBody().getUsername());
+    }
+
+    private static UserDto.Update update(String username, String email) {
+        UserDto.Update update = new UserDto.Update();
+        update.setUsername(username);
+        update.setEmail(email);
+        return update;
+    }
+}
@@ -0,0 +1,150 @@
+package io.byteforge.backend.service.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private Bulkhead bulkhead;
+
+    @AfterEach
+    void tearDown() {
+        if (bulkhead != null) {
+            bulkhead.close();
+        }
+    }
+
+    @Test
+    void runsTasksOnVirtualThreadsWithinThePermits() throws InterruptedException {
+        bulkhead = new Bulkhead("test", 2, 8, meterRegistry);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicBoolean allVirtual = new AtomicBoolean(true);
+        CountDownLatch done = new CountDownLatch(10);
+
+        for (int i = 0; i < 10; i++) {
+            bulkhead.execute(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                allVirtual.compareAndSet(true, Thread.currentThread().isVirtual());
+                sleep(20);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, peak.get());
+        assertTrue(allVirtual.get());
+        assertEquals(0, bulkhead.active());
+    }
+
+    @Test
+    void rejectsOnceTheWaitingRoomIsFull() throws Exception {
+        bulkhead = new Bulkhead("test", 1, 1, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        bulkhead.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        bulkhead.execute(() -> await(release));
+
+        assertThrows(RejectedExecutionException.class, () -> bulkhead.execute(() -> { }));
+        assertThrows(RejectedExecutionException.class, () -> bulkhead.run(() -> { }));
+        assertEquals(2, meterRegistry.get("byteforge.bulkhead.rejected").tag("resource", "test").counter().count());
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.active() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        AtomicBoolean ran = new AtomicBoolean();
+        bulkhead.run(() -> ran.set(true));
+        assertTrue(ran.get());
+    }
+
+    @Test
+    void runsSynchronousTasksOnTheCallerAndPropagatesFailures() {
+        bulkhead = new Bulkhead("test", 1, 0, meterRegistry);
+        Thread caller = Thread.currentThread();
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> bulkhead.run(() -> {
+            assertSame(caller, Thread.currentThread());
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals("boom", failure.getMessage());
+        assertEquals(0, bulkhead.active());
+    }
+
+    @Test
+    void reportsSaturationBeforeTurningCallersAway() throws Exception {
+        bulkhead = new Bulkhead("test", 1, 0, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        assertFalse(bulkhead.saturated());
+        assertEquals("done", bulkhead.call(() -> "done"));
+
+        bulkhead.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(bulkhead.saturated());
+        assertThrows(RejectedExecutionException.class, () -> bulkhead.call(() -> "late"));
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.saturated() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(bulkhead.saturated());
+    }
+
+    @Test
+    void acquiredPermitsAreHeldUntilClosedOnce() throws Exception {
+        bulkhead = new Bulkhead("test", 1, 0, meterRegistry);
+
+        Bulkhead.Permit permit = bulkhead.acquire();
+        assertEquals(1, bulkhead.active());
+        assertThrows(RejectedExecutionException.class, bulkhead::acquire);
+
+        permit.close();
+        permit.close();
+        assertEquals(0, bulkhead.active());
+        assertFalse(bulkhead.saturated());
+        try (Bulkhead.Permit again = bulkhead.acquire()) {
+            assertEquals(1, bulkhead.active());
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package io.byteforge.backend.service.concurrency;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionBudgetTest {
+
+    @Test
+    void givesFileOperationsWhatTheExportsAndTheReserveLeave() throws Exception {
+        ConnectionBudget budget = new ConnectionBudget(pool(12), 2, 2, 2);
+
+        assertEquals(12, budget.getPoolSize());
+        assertEquals(6, budget.databasePermits());
+    }
+
+    @Test
+    void refusesAPoolTooSmallForEveryConsumer() throws Exception {
+        assertThrows(IllegalStateException.class, () -> new ConnectionBudget(pool(5), 2, 2, 2));
+        assertEquals(1, new ConnectionBudget(pool(7), 2, 2, 2).databasePermits());
+    }
+
+    // Never started: Hikari only opens connections on the first getConnection()
+    private static HikariDataSource pool(int size) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(size);
+        return dataSource;
+    }
+}
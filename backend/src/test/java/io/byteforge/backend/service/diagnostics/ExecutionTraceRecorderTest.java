@@ -0,0 +1,64 @@
+package io.byteforge.backend.service.diagnostics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionTraceRecorderTest {
+
+    @Test
+    void keepsOnlyTheMostRecentExecutions() {
+        ExecutionTraceRecorder recorder = new ExecutionTraceRecorder(3);
+
+        ExecutionTrace first = recorder.start("session-1", 1L);
+        recorder.complete(first, "success");
+        for (int i = 0; i < 3; i++) {
+            recorder.complete(recorder.start("session-1", 1L), "success");
+        }
+        ExecutionTrace last = recorder.start("session-2", 2L);
+        recorder.complete(last, "aborted");
+
+        List<ExecutionTiming> recent = recorder.recent(10);
+        assertEquals(3, recent.size());
+        assertEquals(last.getId(), recent.get(0).executionId());
+        assertNull(recorder.find(first.getId()));
+        assertEquals(5L, recorder.summary().get("recorded"));
+        assertEquals(Map.of("aborted", 1L, "success", 2L), recorder.summary().get("outcomes"));
+    }
+
+    @Test
+    void summarisesOnlyPhasesTheExecutionsReached() throws InterruptedException {
+        ExecutionTraceRecorder recorder = new ExecutionTraceRecorder(8);
+
+        ExecutionTrace trace = recorder.start("session-1", 1L);
+        trace.mark(ExecutionTrace.Mark.DEQUEUED);
+        Thread.sleep(5);
+        trace.mark(ExecutionTrace.Mark.CONNECTED);
+        ExecutionTiming timing = recorder.complete(trace, "failed");
+
+        assertTrue(timing.phasesMs().get(ExecutionTiming.CONNECT) >= 5.0);
+        assertFalse(timing.phasesMs().containsKey(ExecutionTiming.COMPILE));
+        assertFalse(timing.phasesMs().containsKey(ExecutionTiming.RUN));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> phases = (Map<String, Object>) recorder.summary().get("phasesMs");
+        assertEquals(List.of(ExecutionTiming.QUEUE_WAIT, ExecutionTiming.CONNECT, ExecutionTiming.TOTAL),
+                List.copyOf(phases.keySet()));
+    }
+
+    @Test
+    void ignoresRepeatedMarks() throws InterruptedException {
+        ExecutionTraceRecorder recorder = new ExecutionTraceRecorder(8);
+
+        ExecutionTrace trace = recorder.start("session-1", 1L);
+        trace.mark(ExecutionTrace.Mark.DEQUEUED);
+        trace.mark(ExecutionTrace.Mark.CONNECTED);
+        Thread.sleep(5);
+        trace.mark(ExecutionTrace.Mark.CONNECTED);
+
+        assertTrue(recorder.complete(trace, "failed").phasesMs().get(ExecutionTiming.CONNECT) < 5.0);
+    }
+}
@@ -0,0 +1,119 @@
+package io.byteforge.backend.service.diagnostics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrRecordingsTest {
+
+    @TempDir
+    private Path directory;
+
+    private JfrRecordings recordings;
+
+    @AfterEach
+    void tearDown() {
+        if (recordings != null) {
+            recordings.close();
+        }
+    }
+
+    @Test
+    void recordsCustomEventsUntilStopped() throws IOException {
+        recordings = newRecordings(Duration.ofMinutes(1));
+        Map<String, Object> started = recordings.start(Duration.ofSeconds(30), null);
+        assertEquals("RUNNING", started.get("state"));
+        assertEquals("default", started.get("settings"));
+
+        ExecutionTraceRecorder traces = new ExecutionTraceRecorder(4);
+        ExecutionTrace trace = traces.start("session-1", 42L);
+        traces.complete(trace, "success");
+
+        BroadcastEvent broadcast = new BroadcastEvent();
+        broadcast.begin();
+        broadcast.finish("FILE_SAVED", 42L, 128, 3);
+
+        assertEquals("CLOSED", recordings.stop().get("state"));
+
+        String name = (String) started.get("name");
+        Path file = recordings.file(name);
+        assertNotNull(file);
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().startsWith("io.byteforge."))
+                .toList();
+        RecordedEvent execution = find(events, "io.byteforge.Execution");
+        assertEquals(trace.getId(), execution.getString("executionId"));
+        assertEquals(42L, execution.getLong("projectId"));
+        RecordedEvent fanOut = find(events, "io.byteforge.Broadcast");
+        assertEquals(3, fanOut.getInt("recipients"));
+        assertEquals(128L, fanOut.getLong("bytes"));
+    }
+
+    @Test
+    void leavesTheEnvironmentAndSystemPropertiesOutOfRecordings() throws IOException {
+        recordings = newRecordings(Duration.ofMinutes(1));
+        String name = (String) recordings.start(Duration.ofSeconds(30), "profile").get("name");
+        recordings.stop();
+
+        List<String> recorded = RecordingFile.readAllEvents(recordings.file(name)).stream()
+                .map(event -> event.getEventType().getName())
+                .distinct()
+                .toList();
+        assertFalse(recorded.isEmpty());
+        JfrRecordings.SENSITIVE_EVENTS.forEach(sensitive -> assertFalse(recorded.contains(sensitive), sensitive));
+    }
+
+    @Test
+    void allowsOnlyOneRunningRecording() throws IOException {
+        recordings = newRecordings(Duration.ofMinutes(1));
+        recordings.start(Duration.ofSeconds(30), "default");
+
+        assertThrows(IllegalStateException.class, () -> recordings.start(null, null));
+        assertTrue(recordings.isRunning());
+    }
+
+    @Test
+    void capsDurationAndRejectsUnknownSettings() throws IOException {
+        recordings = newRecordings(Duration.ofSeconds(5));
+
+        assertThrows(IllegalArgumentException.class, () -> recordings.start(null, "everything"));
+        assertEquals(Duration.ofSeconds(5), recordings.start(Duration.ofHours(1), null).get("duration"));
+    }
+
+    @Test
+    void servesASnapshotWhileRunningAndNothingForOtherNames() throws IOException {
+        recordings = newRecordings(Duration.ofMinutes(1));
+        String name = (String) recordings.start(null, null).get("name");
+
+        Path snapshot = recordings.file(name);
+        assertNotNull(snapshot);
+        assertTrue(Files.size(snapshot) > 0);
+        assertNull(recordings.file("../" + name));
+    }
+
+    private JfrRecordings newRecordings(Duration maxDuration) throws IOException {
+        JfrRecordings created = new JfrRecordings(directory, Duration.ofSeconds(10), maxDuration, DataSize.ofMegabytes(64));
+        created.init();
+        return created;
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .findFirst()
+                .orElseGet(() -> fail("No " + name + " event in the recording"));
+    }
+}
@@ -0,0 +1,83 @@
+package io.byteforge.backend.service.diagnostics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadPinningMonitorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Object monitor = new Object();
+    private VirtualThreadPinningMonitor pinning;
+
+    @AfterEach
+    void tearDown() {
+        if (pinning != null) {
+            pinning.stop();
+        }
+    }
+
+    @Test
+    void timesPinsByTheInnermostApplicationFrame() throws Exception {
+        pinning = new VirtualThreadPinningMonitor(meterRegistry, true, Duration.ofMillis(5));
+        pinning.start();
+
+        Thread.ofVirtual().start(() -> interruptibly(this::sleepWhileSynchronized)).join();
+        Thread.ofVirtual().start(() -> interruptibly(this::sleepWhileLocked)).join();
+
+        Timer pinned = awaitTimer("VirtualThreadPinningMonitorTest.sleepWhileSynchronized");
+        assertEquals(1, pinned.count());
+        assertTrue(pinned.totalTime(TimeUnit.MILLISECONDS) >= 40);
+        assertNull(meterRegistry.find("byteforge.vthreads.pinned")
+                .tag("site", "VirtualThreadPinningMonitorTest.sleepWhileLocked")
+                .timer());
+    }
+
+    private void sleepWhileSynchronized() throws InterruptedException {
+        synchronized (monitor) {
+            Thread.sleep(50);
+        }
+    }
+
+    private void sleepWhileLocked() throws InterruptedException {
+        ReentrantLock lock = new ReentrantLock();
+        lock.lock();
+        try {
+            Thread.sleep(50);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private interface Sleeper {
+        void sleep() throws InterruptedException;
+    }
+
+    private static void interruptibly(Sleeper sleeper) {
+        try {
+            sleeper.sleep();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // JFR hands events to the stream about once a second
+    private Timer awaitTimer(String site) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            Timer timer = meterRegistry.find("byteforge.vthreads.pinned").tag("site", site).timer();
+            if (timer != null) {
+                return timer;
+            }
+            Thread.sleep(50);
+        }
+        return fail("No pinned event recorded for " + site);
+    }
+}
@@ -0,0 +1,60 @@
+package io.byteforge.backend.service.export;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportArtifactCacheTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void evictsLeastRecentlyUsedArtifactsOverSizeLimit() throws IOException {
+        ExportArtifactCache cache = newCache(DataSize.ofBytes(250), Duration.ofHours(1));
+
+        ExportArtifactCache.Artifact first = cache.put("first", build(cache, 100));
+        ExportArtifactCache.Artifact second = cache.put("second", build(cache, 100));
+        assertNotNull(cache.get("first"));
+
+        cache.put("third", build(cache, 100));
+
+        assertNotNull(cache.get("first"));
+        assertNull(cache.get("second"));
+        assertTrue(Files.exists(first.path()));
+        assertFalse(Files.exists(second.path()));
+        assertEquals(200, cache.totalBytes());
+    }
+
+    @Test
+    void deletesExpiredArtifactsFoundOnStartup() throws IOException {
+        Path stale = Files.write(directory.resolve("stale.artifact"), new byte[10]);
+        Files.setLastModifiedTime(stale, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        Path fresh = Files.write(directory.resolve("fresh.artifact"), new byte[10]);
+
+        ExportArtifactCache cache = newCache(DataSize.ofMegabytes(1), Duration.ofDays(1));
+
+        assertFalse(Files.exists(stale));
+        assertNull(cache.get("stale"));
+        assertEquals(fresh, cache.get("fresh").path());
+    }
+
+    private ExportArtifactCache newCache(DataSize maxSize, Duration maxAge) throws IOException {
+        ExportArtifactCache cache = new ExportArtifactCache(directory, maxSize, maxAge);
+        cache.init();
+        return cache;
+    }
+
+    private Path build(ExportArtifactCache cache, int size) throws IOException {
+        return Files.write(cache.newBuildFile(), new byte[size]);
+    }
+}
@@ -0,0 +1,93 @@
+package io.byteforge.backend.service.export;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelZipWriterTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @TempDir
+    private Path directory;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void keepsEntryOrderAndContentAcrossWorkers() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ParallelZipWriter zip = new ParallelZipWriter(out, executor, 6, 256, 3);
+
+        List<String> names = new ArrayList<>();
+        zip.addDirectory("src", LocalDateTime.of(2024, 5, 1, 10, 30));
+        names.add("src/");
+        for (int i = 0; i < 200; i++) {
+            String name = "src/File" + i + ".java";
+            zip.addFile(name, LocalDateTime.now(), source(i));
+            names.add(name);
+        }
+        zip.finish();
+
+        List<String> read = new ArrayList<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                read.add(entry.getName());
+                if (!entry.isDirectory()) {
+                    int index = Integer.parseInt(entry.getName().replaceAll("\\D", ""));
+                    assertEquals(source(index), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        assertEquals(names, read);
+        assertTrue(zip.compressedBytes() < zip.uncompressedBytes());
+    }
+
+    @Test
+    void storesPrecompressedAndTinyFiles() throws IOException {
+        Path archive = directory.resolve("export.zip");
+        byte[] image = source(1).getBytes(StandardCharsets.UTF_8);
+
+        try (OutputStream out = Files.newOutputStream(archive)) {
+            ParallelZipWriter zip = new ParallelZipWriter(out, executor, 6, 256, 8);
+            zip.addFile("logo.PNG", null, image);
+            zip.addFile("tiny.txt", null, "hello");
+            zip.addFile("Main.java", null, source(2));
+            zip.finish();
+        }
+
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("logo.PNG").getMethod());
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("tiny.txt").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("Main.java").getMethod());
+            assertArrayEquals(image, zipFile.getInputStream(zipFile.getEntry("logo.PNG")).readAllBytes());
+            assertEquals("hello", new String(zipFile.getInputStream(zipFile.getEntry("tiny.txt")).readAllBytes()));
+        }
+    }
+
+    private static String source(int index) {
+        return ("public class File" + index + " {\n    int value = " + index + ";\n}\n").repeat(40);
+    }
+}
@@ -0,0 +1,94 @@
+package io.byteforge.backend.service.export;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TarGzWriterTest {
+
+    @Test
+    void writesReadableUstarEntries() throws IOException {
+        String nested = "src/" + "deeply/nested/".repeat(8) + "Main.java";
+        String tooLong = "x".repeat(180) + ".txt";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TarGzWriter tar = new TarGzWriter(out, 6);
+        tar.addDirectory("src", LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        tar.addFile("src/main.cpp", null, "int main() {}");
+        tar.addFile(nested, null, "class Main {}");
+        tar.addFile(tooLong, null, "long");
+        tar.addFile("empty.txt", null, (String) null);
+        tar.finish();
+
+        Map<String, String> entries = read(out.toByteArray());
+
+        assertEquals(5, entries.size());
+        assertEquals("", entries.get("src/"));
+        assertEquals("int main() {}", entries.get("src/main.cpp"));
+        assertEquals("class Main {}", entries.get(nested));
+        assertEquals("long", entries.get(tooLong));
+        assertEquals("", entries.get("empty.txt"));
+        assertEquals(13 + 13 + 4, tar.uncompressedBytes());
+    }
+
+    private Map<String, String> read(byte[] archive) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        String paxPath = null;
+
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(archive)))) {
+            byte[] header = new byte[512];
+            while (true) {
+                in.readFully(header);
+                if (header[0] == 0) {
+                    break;
+                }
+
+                assertEquals(checksum(header), Long.parseLong(ascii(header, 148, 6), 8));
+                assertEquals("ustar", ascii(header, 257, 6));
+
+                int size = Integer.parseInt(ascii(header, 124, 12), 8);
+                byte[] content = new byte[size];
+                in.readFully(content);
+                in.skipNBytes((512 - size % 512) % 512);
+
+                if (header[156] == 'x') {
+                    String record = new String(content, StandardCharsets.UTF_8);
+                    paxPath = record.substring(record.indexOf("path=") + 5, record.length() - 1);
+                    continue;
+                }
+
+                String prefix = ascii(header, 345, 155);
+                String name = paxPath != null ? paxPath : (prefix.isEmpty() ? "" : prefix + "/") + ascii(header, 0, 100);
+                paxPath = null;
+                entries.put(name, new String(content, StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private static long checksum(byte[] header) {
+        long sum = 0;
+        for (int i = 0; i < header.length; i++) {
+            sum += i >= 148 && i < 156 ? ' ' : header[i] & 0xff;
+        }
+        return sum;
+    }
+
+    private static String ascii(byte[] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8).trim();
+    }
+}
@@ -0,0 +1,87 @@
+package io.byteforge.backend.service.index;
+
+import io.byteforge.backend.model.custom.FileType;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PathTrieTest {
+
+    @Test
+    void resolvesLoadedEntries() {
+        PathTrie trie = new PathTrie();
+        trie.put(1L, "src", FileType.FOLDER);
+        trie.put(2L, "src/main.cpp", FileType.FILE);
+        trie.put(3L, "src/util.h", FileType.FILE);
+
+        assertTrue(trie.exists("src/main.cpp"));
+        assertFalse(trie.exists("src/other.cpp"));
+        assertEquals("src/util.h", trie.resolve(3L).path());
+        assertEquals(1L, trie.resolve(2L).parentId());
+    }
+
+    @Test
+    void moveRelinksWholeSubtree() {
+        PathTrie trie = new PathTrie();
+        trie.put(1L, "src", FileType.FOLDER);
+        trie.put(2L, "src/main.cpp", FileType.FILE);
+        trie.put(3L, "lib", FileType.FOLDER);
+
+        assertTrue(trie.move(1L, 3L, "core"));
+
+        assertFalse(trie.exists("src"));
+        assertEquals("lib/core/main.cpp", trie.resolve(2L).path());
+
+        trie.remove(3L);
+
+        assertNull(trie.resolve(2L));
+        assertFalse(trie.exists("lib/core"));
+    }
+
+    @Test
+    void moveReportsAnUnknownParent() {
+        PathTrie trie = new PathTrie();
+        trie.put(1L, "src", FileType.FOLDER);
+
+        assertFalse(trie.move(1L, 42L, "src"));
+        assertFalse(trie.move(42L, null, "src"));
+        assertTrue(trie.exists("src"));
+    }
+
+    @Test
+    void onlyOneConcurrentReservationWins() throws Exception {
+        PathTrie trie = new PathTrie();
+        int contenders = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(contenders);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger winners = new AtomicInteger();
+
+        try {
+            for (int i = 0; i < contenders; i++) {
+                pool.submit(() -> {
+                    start.await();
+                    if (trie.reserve("src/main.cpp", FileType.FILE)) {
+                        winners.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, winners.get());
+
+        trie.release("src/main.cpp");
+        assertFalse(trie.exists("src/main.cpp"));
+        assertTrue(trie.reserve("src/main.cpp", FileType.FILE));
+    }
+}
@@ -0,0 +1,163 @@
+package io.byteforge.backend.service.tokens;
+
+import io.byteforge.backend.TestData;
+import io.byteforge.backend.exceptions.AuthenticationException;
+import io.byteforge.backend.model.entity.Token;
+import io.byteforge.backend.model.entity.User;
+import io.byteforge.backend.repository.TokenRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+@SpringBootTest
+@Import(TestData.class)
+@ActiveProfiles("test")
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @MockitoSpyBean
+    private TokenRepository tokenRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void storesOnlyTheHashOfIssuedTokens() {
+        User user = testData.user();
+        String rawToken = refreshTokenService.issue(user.getId());
+
+        Token stored = tokenRepository.findByTokenHash(RefreshTokenService.hash(rawToken)).orElseThrow();
+        assertEquals(64, stored.getTokenHash().length());
+        assertNotEquals(rawToken, stored.getTokenHash());
+    }
+
+    @Test
+    void rotationIsOneLookupAndOneWrite() {
+        User user = testData.user();
+        String rawToken = refreshTokenService.issue(user.getId());
+
+        statistics.clear();
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(rawToken);
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(user.getId(), rotation.userId());
+        assertEquals(user.getUsername(), rotation.username());
+        assertTrue(tokenRepository.findByTokenHash(RefreshTokenService.hash(rotation.refreshToken())).isPresent());
+        assertTrue(tokenRepository.findByTokenHash(RefreshTokenService.hash(rawToken)).isEmpty());
+    }
+
+    @Test
+    void replayingARotatedTokenRevokesItsFamily() {
+        User user = testData.user();
+        String rawToken = refreshTokenService.issue(user.getId());
+        String otherSession = refreshTokenService.issue(user.getId());
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(rawToken);
+
+        assertThrows(AuthenticationException.class, () -> refreshTokenService.rotate(rawToken));
+
+        assertThrows(AuthenticationException.class, () -> refreshTokenService.rotate(rotation.refreshToken()));
+        assertNotNull(refreshTokenService.rotate(otherSession));
+    }
+
+    @Test
+    void concurrentRefreshesRotateOnceWithoutRevokingTheSession() throws Exception {
+        User user = testData.user();
+        String rawToken = refreshTokenService.issue(user.getId());
+        // Both refreshes find the stored row before either of them rotates it
+        CyclicBarrier bothLookedUp = new CyclicBarrier(2);
+        // The repository is a JDK proxy, so the spy reaches it through its default answer rather than callRealMethod
+        Answer<?> repository = mockingDetails(tokenRepository).getMockCreationSettings().getDefaultAnswer();
+        doAnswer(invocation -> {
+            Object found = repository.answer(invocation);
+            bothLookedUp.await(5, TimeUnit.SECONDS);
+            return found;
+        }).when(tokenRepository).findByTokenHash(RefreshTokenService.hash(rawToken));
+
+        List<RefreshTokenService.Rotation> rotations = new ArrayList<>();
+        int rejected = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<RefreshTokenService.Rotation>> refreshes = List.of(
+                    executor.submit(() -> refreshTokenService.rotate(rawToken)),
+                    executor.submit(() -> refreshTokenService.rotate(rawToken)));
+            for (Future<RefreshTokenService.Rotation> refresh : refreshes) {
+                try {
+                    rotations.add(refresh.get(10, TimeUnit.SECONDS));
+                } catch (ExecutionException e) {
+                    assertInstanceOf(AuthenticationException.class, e.getCause());
+                    rejected++;
+                }
+            }
+        }
+
+        assertEquals(1, rotations.size());
+        assertEquals(1, rejected);
+        assertNotNull(refreshTokenService.rotate(rotations.get(0).refreshToken()));
+    }
+
+    @Test
+    void accessTokensAreNotAcceptedForRotation() {
+        User user = testData.user();
+        String family = UUID.randomUUID().toString();
+        String rawToken = refreshTokenService.issue(user.getId(), family);
+        String accessToken = jwtService.generateAccessToken(user.getId(), user.getUsername(), family);
+
+        assertThrows(AuthenticationException.class, () -> refreshTokenService.rotate(accessToken));
+
+        // Turned away as the wrong type, not treated as a replay that revokes the session
+        assertNotNull(refreshTokenService.rotate(rawToken));
+        assertNull(jwtService.verify(rawToken));
+    }
+
+    @Test
+    void purgeRemovesExpiredRowsInBatches() {
+        User user = testData.user();
+        for (int i = 0; i < 5; i++) {
+            tokenRepository.save(new Token(UUID.randomUUID().toString().replace("-", ""), UUID.randomUUID().toString(),
+                    Instant.now().minusSeconds(60), user));
+        }
+        String live = refreshTokenService.issue(user.getId());
+
+        refreshTokenService.purgeExpired();
+
+        assertEquals(0, tokenRepository.deleteExpiredBatch(Instant.now(), 10));
+        assertTrue(tokenRepository.findByTokenHash(RefreshTokenService.hash(live)).isPresent());
+    }
+}
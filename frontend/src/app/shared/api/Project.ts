@@ -1,6 +1,6 @@
 import { ExportRequest } from '../composables/types'
 import apiClient from './Config'
-import { ProjectData } from './types'
+import { ProjectData, ProjectPageCursor } from './types'
 
 export const projectApi = {
   async getProject(projectId: number) {
@@ -8,8 +8,10 @@ export const projectApi = {
     return response.data
   },
 
-  async getProjects() {
-    const response = await apiClient.get('/project')
+  async getProjectPage(cursor?: ProjectPageCursor) {
+    const response = await apiClient.get('/project/page', {
+      params: cursor ? { afterUpdatedAt: cursor.nextUpdatedAt, afterId: cursor.nextId } : {},
+    })
     return response.data
   },
 
@@ -28,13 +30,13 @@ export const projectApi = {
     return response.data
   },
 
-  async getJoinLink(projectId: number) {
-    const response = await apiClient.get(`/project/${projectId}/join-link`)
+  async getJoinLink(projectId: number, role: string) {
+    const response = await apiClient.get(`/project/${projectId}/join-link`, { params: { role } })
     return response.data
   },
 
-  async sendJoinLink(token: string, role: string) {
-    const response = await apiClient.post(`/project/join-link`, { token, role })
+  async sendJoinLink(token: string) {
+    const response = await apiClient.post(`/project/join-link`, { token })
     return response.data
   },
 
@@ -60,15 +62,16 @@ export const projectApi = {
     return response
   },
 
-  async getExportStatus(projectId: number, exportId: number) {
+  async getExportStatus(projectId: number, exportId: string) {
     const response = await apiClient.get(`/project/${projectId}/export/${exportId}/status`)
     return response
   },
 
-  async getDownloadUrl(projectId: number, exportId: number) {
-    const response = await apiClient.get(`/project/${projectId}/export/${exportId}/download`, {
-      responseType: 'blob',
-    })
-    return response
+  exportEventsUrl(projectId: number, exportId: string) {
+    return `/api/v1/project/${projectId}/export/${exportId}/events`
+  },
+
+  exportDownloadUrl(projectId: number, exportId: string) {
+    return `/api/v1/project/${projectId}/export/${exportId}/download`
   },
 }
@@ -3,6 +3,11 @@ export interface ProjectData {
   description?: string
 }
 
+export interface ProjectPageCursor {
+  nextUpdatedAt: string
+  nextId: number
+}
+
 export interface LoginData {
   email: string
   password: string
@@ -18,6 +23,7 @@ export interface AuthResponse {
   email: string
   created_at: string
   profileImageUrl: string
+  avatarUrl: string
 }
 
 export interface FileData {
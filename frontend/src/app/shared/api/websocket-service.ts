@@ -10,20 +10,11 @@ class WebSocketService {
   private connectionId: string = ''
   private reconnectAttempts: number = 0
   private maxReconnectAttempts: number = 5
-  private userId: number | null = null
-  private username: string = ''
-  private email: string = ''
 
   private generateConnectionId(): string {
     return `conn_${Date.now()}_${Math.random().toString(36).substr(2, 9)}`
   }
 
-  setUserInfo(userId: number, username: string, email: string): void {
-    this.userId = userId
-    this.username = username
-    this.email = email
-  }
-
   connect(projectId: string): Promise<boolean> {
     return new Promise((resolve) => {
       this.projectId = projectId
@@ -38,9 +29,6 @@ class WebSocketService {
           console.log(`✅ [${this.connectionId}] WebSocket CONNECTED!`)
           this.isConnected = true
           this.reconnectAttempts = 0
-
-          this.sendAuthentication()
-          this.getOnlineUsers()
           resolve(true)
         }
 
@@ -65,22 +53,6 @@ class WebSocketService {
     })
   }
 
-  private sendAuthentication(): void {
-    if (!this.socket) return
-
-    const authMessage = {
-      type: 'AUTH',
-      userId: this.userId,
-      username: this.username,
-      email: this.email,
-      projectId: this.projectId,
-      connectionId: this.connectionId,
-      timestamp: Date.now(),
-    }
-
-    this.socket.send(JSON.stringify(authMessage))
-  }
-
   private handleMessage(data: string): void {
     try {
       const message = JSON.parse(data)
@@ -191,6 +163,13 @@ class WebSocketService {
     })
   }
 
+  moveFile(fileId: number, parentId: number | null): void {
+    this.sendMessage('FILE_MOVE', {
+      fileId,
+      parentId,
+    })
+  }
+
   kickUser(userId: number): void {
     this.sendMessage('KICK_USER', {
       userId,
@@ -1,13 +1,20 @@
 export interface ExportRequest {
   includeGit: boolean
-  format: 'RAR' | 'ZIP'
+  format: ExportFormat
+  compressionLevel?: number
+  changedSince?: string
+  sinceExportId?: string
 }
 
+export type ExportFormat = 'ZIP' | 'ZIP_STORE' | 'TAR_GZ'
+
 export interface ExportStatus {
   exportId: string
-  status: 'PROCESSING' | 'COMPLETED' | 'FAILED'
+  status: 'QUEUED' | 'PROCESSING' | 'COMPLETED' | 'FAILED'
+  format?: string
   progress: number
   message: string | null
   downloadUrl?: string | null
+  changedSince?: string | null
   createdAt: string
 }
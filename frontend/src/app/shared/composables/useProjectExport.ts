@@ -7,6 +7,9 @@ export const useProjectExport = () => {
   const exportStatus = ref<ExportStatus | null>(null)
   const error = ref<string | null>(null)
 
+  const MAX_RECONNECTS = 3
+  let eventSource: EventSource | null = null
+
   const startExport = async (projectId: number, request: ExportRequest) => {
     try {
       isExporting.value = true
@@ -16,69 +19,82 @@ export const useProjectExport = () => {
       const response = await projectApi.exportProject(projectId, request)
 
       exportStatus.value = response.data
-      pollExportStatus(projectId, exportStatus.value.exportId)
+      await handleStatus(projectId, response.data, MAX_RECONNECTS)
     } catch (err: any) {
       error.value = err.response?.data?.message || err.message || 'Export failed to start'
       isExporting.value = false
     }
   }
 
-  const pollExportStatus = async (projectId: number, exportId: string) => {
-    const interval = setInterval(async () => {
+  const handleStatus = async (projectId: number, status: ExportStatus, reconnects: number) => {
+    exportStatus.value = status
+
+    if (status.status === 'COMPLETED') {
+      closeEvents()
+      isExporting.value = false
+      await downloadExportFile(projectId, status.exportId)
+    } else if (status.status === 'FAILED') {
+      closeEvents()
+      isExporting.value = false
+      error.value = status.message || 'Export failed'
+    } else if (!eventSource) {
+      watchExportEvents(projectId, status.exportId, reconnects)
+    }
+  }
+
+  const watchExportEvents = (projectId: number, exportId: string, reconnects: number) => {
+    const source = new EventSource(projectApi.exportEventsUrl(projectId, exportId), { withCredentials: true })
+    eventSource = source
+
+    source.addEventListener('progress', (event) => {
+      handleStatus(projectId, JSON.parse((event as MessageEvent).data), reconnects)
+    })
+
+    source.onerror = async () => {
+      if (eventSource !== source) return
+      closeEvents()
+      if (!isExporting.value) return
+
       try {
+        // goes through apiClient so an expired access token is refreshed before reconnecting
         const response = await projectApi.getExportStatus(projectId, exportId)
-        const status: ExportStatus = response.data
-
-        exportStatus.value = status
-
-        if (status.status === 'COMPLETED') {
-          clearInterval(interval)
-          isExporting.value = false
-          await downloadExportFile(projectId, exportId)
-        } else if (status.status === 'FAILED') {
-          clearInterval(interval)
-          isExporting.value = false
-          error.value = status.message || 'Export failed'
+        if (reconnects <= 0 && !['COMPLETED', 'FAILED'].includes(response.data.status)) {
+          throw new Error('Lost connection to export progress')
         }
+        await handleStatus(projectId, response.data, reconnects - 1)
       } catch (err: any) {
-        clearInterval(interval)
         isExporting.value = false
-        error.value = err.response?.data?.message || 'Failed to check export status'
+        error.value = err.response?.data?.message || err.message || 'Failed to check export status'
       }
-    }, 1000)
+    }
+  }
+
+  const closeEvents = () => {
+    eventSource?.close()
+    eventSource = null
   }
 
   const downloadExportFile = async (projectId: number, exportId: string) => {
     try {
       console.log('📥 Downloading export file...')
 
-      const response = await projectApi.getDownloadUrl(projectId, exportId)
+      // refreshes an expired access token before the browser takes over the download
+      await projectApi.getExportStatus(projectId, exportId)
 
-      const url = window.URL.createObjectURL(new Blob([response.data]))
+      // a native download lets the browser resume interrupted transfers with Range / If-Range
       const link = document.createElement('a')
-      link.href = url
-
-      const contentDisposition = response.headers['content-disposition']
-      let fileName = `project_${projectId}_export.${exportStatus.value?.format?.toLowerCase() || 'zip'}`
-
-      if (contentDisposition) {
-        const fileNameMatch = contentDisposition.match(/filename="(.+)"/)
-        if (fileNameMatch && fileNameMatch[1]) {
-          fileName = fileNameMatch[1]
-        }
-      }
-
-      link.setAttribute('download', fileName)
+      link.href = projectApi.exportDownloadUrl(projectId, exportId)
+      link.setAttribute('download', '')
       document.body.appendChild(link)
       link.click()
       link.remove()
-      window.URL.revokeObjectURL(url)
     } catch (err: any) {
       error.value = 'Failed to download file: ' + (err.response?.data?.message || err.message)
     }
   }
 
   const cancelExport = () => {
+    closeEvents()
     isExporting.value = false
     exportStatus.value = null
     error.value = null
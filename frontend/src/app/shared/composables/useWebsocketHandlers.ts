@@ -93,6 +93,35 @@ export function useWebSocketHandlers(
     }
   }
 
+  const handleSubtreeMoved = (message: any) => {
+    const { fileId, name, parentId, oldPath, newPath } = message
+    const rebase = (path: string) => {
+      if (path === oldPath) return newPath
+      if (path.startsWith(`${oldPath}/`)) return newPath + path.slice(oldPath.length)
+      return path
+    }
+
+    projectStore.currentProjectFiles = projectStore.currentProjectFiles.map((file) =>
+      file.id === fileId
+        ? { ...file, name, parentId: parentId ?? undefined, path: newPath }
+        : { ...file, path: rebase(file.path) },
+    )
+
+    for (const file of openFiles.value) {
+      if (file.id === fileId) {
+        file.name = name
+      }
+      file.path = rebase(file.path)
+    }
+
+    if (activeFile.value) {
+      if (activeFile.value.id === fileId) {
+        activeFile.value.name = name
+      }
+      activeFile.value.path = rebase(activeFile.value.path)
+    }
+  }
+
   const updateFileInStore = (fileId: number, updates: any) => {
     const fileIndex = projectStore.currentProjectFiles.findIndex((file) => file.id === fileId)
     if (fileIndex !== -1) {
@@ -143,6 +172,7 @@ export function useWebSocketHandlers(
     handleFileCreated,
     handleFileDeleted,
     handleFileRenamed,
+    handleSubtreeMoved,
     handleExecutionMessage,
   }
 }
@@ -1,5 +1,6 @@
 import { fileApi } from '@/app/shared/api/Files'
 import { projectApi } from '@/app/shared/api/Project'
+import type { ProjectPageCursor } from '@/app/shared/api/types'
 import { defineStore } from 'pinia'
 import { useToast } from 'vue-toastification'
 
@@ -14,6 +15,13 @@ export interface Project {
   fileCount: number
 }
 
+export interface ProjectPage {
+  items: Project[]
+  nextUpdatedAt?: string
+  nextId?: number
+  hasMore: boolean
+}
+
 export interface ProjectData {
   title: string
   description?: string
@@ -63,6 +71,7 @@ const toast = useToast()
 export const useProjectStore = defineStore('project', {
   state: () => ({
     projectList: [] as Project[],
+    projectPageCursor: null as ProjectPageCursor | null,
     currentProjectFiles: [] as FileNode[],
     openFolders: new Set<number>(),
     contributors: [] as Contributor[],
@@ -114,13 +123,32 @@ export const useProjectStore = defineStore('project', {
 
   actions: {
     async getListOfProjects() {
-      const result = await projectApi.getProjects()
+      const result = await projectApi.getProjectPage()
+
+      if (result.reponse?.data?.message) {
+        return toast.error(result.reponse.data.message)
+      }
+
+      this.setProjectPage(result, false)
+    },
+
+    async loadMoreProjects() {
+      if (!this.projectPageCursor) return
+
+      const result = await projectApi.getProjectPage(this.projectPageCursor)
 
       if (result.reponse?.data?.message) {
         return toast.error(result.reponse.data.message)
       }
 
-      this.projectList = result
+      this.setProjectPage(result, true)
+    },
+
+    setProjectPage(page: ProjectPage, append: boolean) {
+      this.projectList = append ? [...this.projectList, ...page.items] : page.items
+      this.projectPageCursor = page.hasMore
+        ? { nextUpdatedAt: page.nextUpdatedAt!, nextId: page.nextId! }
+        : null
     },
 
     async getProjectById(projectId: number) {
@@ -133,8 +161,8 @@ export const useProjectStore = defineStore('project', {
       return result
     },
 
-    async getJoinLink(projectId: number) {
-      const result = await projectApi.getJoinLink(projectId)
+    async getJoinLink(projectId: number, role: string) {
+      const result = await projectApi.getJoinLink(projectId, role)
 
       if (result.reponse?.data?.message) {
         return toast.error(result.reponse.data.message)
@@ -143,8 +171,8 @@ export const useProjectStore = defineStore('project', {
       return result.token
     },
 
-    async sendToken(token: string, role: string) {
-      const result = await projectApi.sendJoinLink(token, role)
+    async sendToken(token: string) {
+      const result = await projectApi.sendJoinLink(token)
 
       if (result.reponse?.data?.message) {
         return toast.error(result.reponse.data.message)
@@ -160,8 +188,7 @@ export const useProjectStore = defineStore('project', {
         return toast.error(result.reponse.data.message)
       }
       toast.success('Project created successfully')
-      const newProjectList = await projectApi.getProjects()
-      this.projectList = newProjectList
+      await this.getListOfProjects()
       return result
     },
 
@@ -174,8 +201,7 @@ export const useProjectStore = defineStore('project', {
 
       this.currentProject = result
 
-      const newProjectList = await projectApi.getProjects()
-      this.projectList = newProjectList
+      await this.getListOfProjects()
     },
 
     async deleteProject(projectId: number) {
@@ -185,8 +211,7 @@ export const useProjectStore = defineStore('project', {
         return toast.error(result.reponse.data.message)
       }
 
-      const newProjectList = await projectApi.getProjects()
-      this.projectList = newProjectList
+      await this.getListOfProjects()
       toast.success('Project deleted successfully')
     },
 